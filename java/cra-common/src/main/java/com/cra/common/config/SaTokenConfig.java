@@ -25,6 +25,8 @@ public class SaTokenConfig implements WebMvcConfigurer {
         // 注意：/api/contractsFile/** 包含了 /api/contractsFile/upload/**，所以不需要重复配置
         EXCLUDE_PATHS.add("/api/contracts/**");
         EXCLUDE_PATHS.add("/api/users/**");
+        // 健康检查与监控指标
+        EXCLUDE_PATHS.add("/actuator/**");
         
         // 可以在这里添加更多全局放行的路径
         // EXCLUDE_PATHS.add("/api/user/login");
@@ -6,12 +6,14 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.cra")
 @EnableDiscoveryClient
 @EnableFeignClients
 @EnableJpaRepositories
 @EnableMongoRepositories
+@EnableScheduling
 public class ContractServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,378 @@
+package com.cra.contract.cache;
+
+import com.cra.contract.entity.ContractMain;
+import com.cra.contract.entity.ContractVersion;
+import com.cra.contract.event.ContractBatchChangeEvent;
+import com.cra.contract.event.ContractChangeEvent;
+import com.cra.contract.repository.ContractMainRepository;
+import com.cra.contract.repository.ContractVersionRepository;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 合同元数据缓存: 合同基本信息 (含最新版本指针)、版本列表
+ * 两级: 进程内 Caffeine (短 TTL) + Redis (实例间共享), 都未命中时查库并回填
+ * - 合同变更事件在事务提交后删除本地和 Redis 中的条目, 并通过 Redis 频道通知其它实例删除本地条目
+ * - 查库期间发生过失效时不回填, 避免把失效前读到的旧数据写回缓存; 这只能发现本实例的失效,
+ *   其它实例在查库和写 Redis 之间失效时仍可能写回旧数据, 所以失效后延迟 double-delete-delay 再删除一次 Redis 条目并通知各实例
+ * - 命中时按 verify-sample-rate 抽样回库比对, 不一致计为一次过期读并以数据库为准
+ * Redis 不可用时退化为本地缓存 + 数据库, 只记录指标
+ * 缓存中的对象由多个请求共享, 调用方不能修改
+ */
+@Component
+public class ContractMetadataCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractMetadataCache.class);
+
+    // 缓存结构有变化时调大版本号, 旧的 Redis 条目自然失效
+    private static final String KEY_PREFIX = "cra:contract:meta:v1:";
+
+    enum Kind {
+        MAIN("main"),
+        VERSIONS("versions");
+
+        private final String name;
+
+        Kind(String name) {
+            this.name = name;
+        }
+
+        String key(Long contractId) {
+            return KEY_PREFIX + name + ":" + contractId;
+        }
+    }
+
+    @Value("${contract.cache.metadata.enabled:true}")
+    private boolean enabled;
+
+    @Value("${contract.cache.metadata.memory.max-size:10000}")
+    private long memoryMaxSize;
+
+    @Value("${contract.cache.metadata.memory.ttl:60000}")
+    private long memoryTtl;
+
+    @Value("${contract.cache.metadata.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${contract.cache.metadata.redis.ttl:600000}")
+    private long redisTtl;
+
+    @Value("${contract.cache.metadata.redis.channel:cra:contract:meta:invalidate}")
+    private String channel;
+
+    @Value("${contract.cache.metadata.redis.double-delete-delay:2000}")
+    private long doubleDeleteDelay;
+
+    @Value("${contract.cache.metadata.verify-sample-rate:0.01}")
+    private double verifySampleRate;
+
+    @Autowired
+    private ContractMainRepository contractMainRepository;
+
+    @Autowired
+    private ContractVersionRepository contractVersionRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private Cache<String, Object> memoryCache;
+
+    // 每次失效加一, 查库前后不一致说明期间发生过失效
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<Kind, JavaType> types = new EnumMap<>(Kind.class);
+
+    private final Map<Kind, Counter> staleCounters = new EnumMap<>(Kind.class);
+
+    private Counter memoryHitCounter;
+
+    private Counter redisHitCounter;
+
+    private Counter missCounter;
+
+    private Counter redisErrorCounter;
+
+    @PostConstruct
+    public void init() {
+        memoryCache = Caffeine.newBuilder()
+                .maximumSize(memoryMaxSize)
+                .expireAfterWrite(Duration.ofMillis(memoryTtl))
+                .build();
+        types.put(Kind.MAIN, objectMapper.constructType(ContractMain.class));
+        types.put(Kind.VERSIONS, objectMapper.getTypeFactory().constructCollectionType(List.class, ContractVersion.class));
+
+        memoryHitCounter = Counter.builder("contract.metadata.cache")
+                .tag("result", "hit").tag("tier", "memory")
+                .description("合同元数据缓存查询次数")
+                .register(meterRegistry);
+        redisHitCounter = Counter.builder("contract.metadata.cache")
+                .tag("result", "hit").tag("tier", "redis")
+                .register(meterRegistry);
+        missCounter = Counter.builder("contract.metadata.cache")
+                .tag("result", "miss").tag("tier", "none")
+                .register(meterRegistry);
+        for (Kind kind : Kind.values()) {
+            staleCounters.put(kind, Counter.builder("contract.metadata.cache.stale")
+                    .tag("kind", kind.name)
+                    .description("抽样回库比对时发现的过期读次数")
+                    .register(meterRegistry));
+        }
+        redisErrorCounter = Counter.builder("contract.metadata.cache.redis.error")
+                .description("Redis 读写失败次数, 失败时直接查库")
+                .register(meterRegistry);
+        Gauge.builder("contract.metadata.cache.hit.ratio", this, ContractMetadataCache::hitRatio)
+                .description("合同元数据缓存命中率")
+                .register(meterRegistry);
+        Gauge.builder("contract.metadata.cache.memory.size", memoryCache, Cache::estimatedSize)
+                .description("进程内缓存条目数")
+                .register(meterRegistry);
+    }
+
+    public Optional<ContractMain> getContract(Long contractId) {
+        return Optional.ofNullable(get(Kind.MAIN, contractId,
+                () -> contractMainRepository.findById(contractId).orElse(null)));
+    }
+
+    /**
+     * 合同的全部版本, 合同不存在或没有版本时为空列表
+     */
+    public List<ContractVersion> getVersions(Long contractId) {
+        return get(Kind.VERSIONS, contractId, () -> contractVersionRepository.findByContractId(contractId));
+    }
+
+    public Optional<ContractVersion> getVersion(Long contractId, Integer versionNumber) {
+        return getVersions(contractId).stream()
+                .filter(version -> Objects.equals(version.getVersionNumber(), versionNumber))
+                .findFirst();
+    }
+
+    /**
+     * 按合同上的最新版本ID在版本列表中查找; 两个条目加载时间不同, 对不上时取版本号最大的
+     */
+    public Optional<ContractVersion> getLatestVersion(Long contractId) {
+        List<ContractVersion> versions = getVersions(contractId);
+        Long latestVersionId = getContract(contractId).map(ContractMain::getLatestVersionId).orElse(null);
+        if (latestVersionId != null) {
+            for (ContractVersion version : versions) {
+                if (latestVersionId.equals(version.getId())) {
+                    return Optional.of(version);
+                }
+            }
+        }
+        return versions.stream().max(Comparator.comparing(ContractVersion::getVersionNumber));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChange(ContractChangeEvent event) {
+        invalidate(List.of(event.getContractId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractBatchChange(ContractBatchChangeEvent event) {
+        invalidate(event.getContractIds());
+    }
+
+    /**
+     * 删除本实例和 Redis 中的条目, 并通知其它实例; 延迟 double-delete-delay 后再执行一次,
+     * 清除其它实例在失效前查库、失效后才写入 Redis 的旧数据
+     * 须在数据库修改提交之后调用
+     */
+    public void invalidate(Collection<Long> contractIds) {
+        if (!enabled || contractIds.isEmpty()) {
+            return;
+        }
+        evict(contractIds);
+        if (!redisEnabled || doubleDeleteDelay <= 0) {
+            return;
+        }
+        List<Long> ids = List.copyOf(contractIds);
+        try {
+            taskScheduler.schedule(() -> evict(ids), Instant.now().plusMillis(doubleDeleteDelay));
+        } catch (TaskRejectedException e) {
+            // 关闭中, Redis 条目在 TTL 到期后失效
+            logger.debug("合同元数据缓存延迟删除未能调度: {} - {}", ids, e.getMessage());
+        }
+    }
+
+    private void evict(Collection<Long> contractIds) {
+        List<String> keys = evictLocal(contractIds);
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(keys);
+            stringRedisTemplate.convertAndSend(channel, contractIds.stream()
+                    .map(String::valueOf).collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            // Redis 条目在 TTL 到期后失效
+            redisErrorCounter.increment();
+            logger.warn("合同元数据缓存失效通知失败: {} - {}", contractIds, e.getMessage());
+        }
+    }
+
+    /**
+     * 其它实例发来的失效通知 (本实例发出的通知也会收到, 重复删除无副作用)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<Long> contractIds = new ArrayList<>();
+        for (String id : body.split(",")) {
+            try {
+                contractIds.add(Long.valueOf(id.trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("忽略无法解析的合同元数据缓存失效通知: {}", body);
+                return;
+            }
+        }
+        evictLocal(contractIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Kind kind, Long contractId, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = kind.key(contractId);
+        T value = (T) memoryCache.getIfPresent(key);
+        if (value != null) {
+            memoryHitCounter.increment();
+            return verify(kind, key, value, loader);
+        }
+        long loadGeneration = generation.get();
+        value = readRedis(kind, key);
+        if (value != null) {
+            redisHitCounter.increment();
+            putMemory(loadGeneration, key, value);
+            return verify(kind, key, value, loader);
+        }
+        missCounter.increment();
+        value = loader.get();
+        if (value != null && putMemory(loadGeneration, key, value)) {
+            writeRedis(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 抽样回库比对, 不一致时删除该条目并返回数据库中的值
+     */
+    private <T> T verify(Kind kind, String key, T cached, Supplier<T> loader) {
+        if (verifySampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= verifySampleRate) {
+            return cached;
+        }
+        T fresh = loader.get();
+        if (!Objects.equals(cached, fresh)) {
+            staleCounters.get(kind).increment();
+            memoryCache.invalidate(key);
+            deleteRedis(key);
+        }
+        return fresh;
+    }
+
+    private boolean putMemory(long loadGeneration, String key, Object value) {
+        if (generation.get() != loadGeneration) {
+            return false;
+        }
+        memoryCache.put(key, value);
+        return true;
+    }
+
+    private List<String> evictLocal(Collection<Long> contractIds) {
+        generation.incrementAndGet();
+        List<String> keys = new ArrayList<>(contractIds.size() * Kind.values().length);
+        for (Long contractId : contractIds) {
+            for (Kind kind : Kind.values()) {
+                keys.add(kind.key(contractId));
+            }
+        }
+        memoryCache.invalidateAll(keys);
+        return keys;
+    }
+
+    private <T> T readRedis(Kind kind, String key) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            String json = stringRedisTemplate.opsForValue().get(key);
+            return json == null ? null : objectMapper.readValue(json, types.get(kind));
+        } catch (Exception e) {
+            redisErrorCounter.increment();
+            logger.debug("读取合同元数据缓存失败: {} - {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, Object value) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value), Duration.ofMillis(redisTtl));
+        } catch (Exception e) {
+            redisErrorCounter.increment();
+            logger.debug("写入合同元数据缓存失败: {} - {}", key, e.getMessage());
+        }
+    }
+
+    private void deleteRedis(String key) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(key);
+        } catch (Exception e) {
+            redisErrorCounter.increment();
+            logger.debug("删除合同元数据缓存失败: {} - {}", key, e.getMessage());
+        }
+    }
+
+    private double hitRatio() {
+        double hits = memoryHitCounter.count() + redisHitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+}
@@ -0,0 +1,31 @@
+package com.cra.contract.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 搜索索引更新线程
+ * 合同变更在事务提交后只登记到 ContractSearchIndexer 的待处理集合, 由这个线程合并后批量写入搜索引擎,
+ * 搜索引擎变慢或不可用时不影响写接口的响应时间; 同一时刻最多只有一个合并任务在排队
+ */
+@Configuration
+public class IndexExecutorConfig {
+
+    @Bean(name = "contractIndexExecutor")
+    public ThreadPoolTaskExecutor contractIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("contract-index-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // 停机时把已登记的变更写完, 未写入的可通过重建索引接口补齐
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
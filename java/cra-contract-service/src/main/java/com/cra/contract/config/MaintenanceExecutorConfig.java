@@ -0,0 +1,24 @@
+package com.cra.contract.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 启动后维护任务线程 (历史数据清理、索引重建等)
+ * 单线程依次执行, 不占用启动线程, 不推迟服务就绪; 停机时不等待未完成的任务, 下次启动继续
+ */
+@Configuration
+public class MaintenanceExecutorConfig {
+
+    @Bean(name = "contractMaintenanceExecutor")
+    public ThreadPoolTaskExecutor contractMaintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("contract-maintenance-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
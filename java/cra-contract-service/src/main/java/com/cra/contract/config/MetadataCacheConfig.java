@@ -0,0 +1,31 @@
+package com.cra.contract.config;
+
+import com.cra.contract.cache.ContractMetadataCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 合同元数据缓存的跨实例失效通知
+ * 订阅 Redis 频道, 其它实例修改合同后删除本实例的进程内缓存条目
+ */
+@Configuration
+@ConditionalOnExpression("${contract.cache.metadata.enabled:true} and ${contract.cache.metadata.redis.enabled:true}")
+public class MetadataCacheConfig {
+
+    @Value("${contract.cache.metadata.redis.channel:cra:contract:meta:invalidate}")
+    private String channel;
+
+    @Bean
+    public RedisMessageListenerContainer contractMetadataListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           ContractMetadataCache contractMetadataCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(contractMetadataCache, new ChannelTopic(channel));
+        return container;
+    }
+}
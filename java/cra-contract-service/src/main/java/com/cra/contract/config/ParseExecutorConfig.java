@@ -0,0 +1,35 @@
+package com.cra.contract.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 文档解析线程池
+ * Tika 解析放到独立的有界线程池里执行, 调用方按超时等待结果, 解析卡死时不会占住请求线程或MQ消费线程
+ */
+@Configuration
+public class ParseExecutorConfig {
+
+    @Value("${contract.extraction.parser.pool-size:4}")
+    private int poolSize;
+
+    @Value("${contract.extraction.parser.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Bean(name = "contractParseExecutor")
+    public ThreadPoolTaskExecutor contractParseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("contract-parse-");
+        // 队列满时直接拒绝: 由调用方在自己线程里解析就失去了超时保护
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
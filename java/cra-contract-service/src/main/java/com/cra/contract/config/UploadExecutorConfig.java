@@ -0,0 +1,36 @@
+package com.cra.contract.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 批量上传线程池
+ * 所有批量上传请求共享这个有界线程池, pool-size 应小于数据库连接池大小, 避免批量上传占满连接池和FTP连接
+ */
+@Configuration
+public class UploadExecutorConfig {
+
+    @Value("${contract.upload.batch.pool-size:4}")
+    private int poolSize;
+
+    @Value("${contract.upload.batch.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Bean(name = "contractUploadExecutor")
+    public ThreadPoolTaskExecutor contractUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("contract-upload-");
+        // 队列满时由请求线程自己执行, 形成背压而不是直接拒绝
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,9 +1,24 @@
 package com.cra.contract.controller;
 
+import com.cra.contract.dto.BatchUploadResult;
+import com.cra.contract.dto.BulkStatusRequest;
+import com.cra.contract.dto.BulkStatusResult;
+import com.cra.contract.dto.ContentMatch;
+import com.cra.contract.dto.ContractFacets;
+import com.cra.contract.dto.ContractFilter;
+import com.cra.contract.dto.ContractSearchHit;
+import com.cra.contract.dto.ContractSuggestion;
+import com.cra.contract.dto.ContractSummary;
+import com.cra.contract.dto.KeysetPage;
 import com.cra.contract.entity.ContractMain;
 import com.cra.contract.entity.ContractVersion;
+import com.cra.contract.search.ContractSearchIndexer;
 import com.cra.contract.service.ContractService;
+import com.cra.contract.stats.ContractStatService;
+import com.cra.contract.storage.ContractFileDownloader;
 import com.cra.common.model.Response;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,7 +29,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +43,15 @@ public class ContractController {
     @Autowired
     private ContractService contractService;
     
+    @Autowired
+    private ContractSearchIndexer contractSearchIndexer;
+    
+    @Autowired
+    private ContractStatService contractStatService;
+    
+    @Autowired
+    private ContractFileDownloader contractFileDownloader;
+    
     // 合同基本操作 - 创建一张合同
     @PostMapping
     public Response<ContractMain> createContract(@RequestBody ContractMain contract, 
@@ -41,7 +68,7 @@ public class ContractController {
 
     // 批量上传合同
     @PostMapping("/upload/batch")
-    public Response<List<ContractMain>> uploadBatchContracts(@RequestParam(value = "files", required = false) MultipartFile[] files) {
+    public Response<BatchUploadResult> uploadBatchContracts(@RequestParam(value = "files", required = false) MultipartFile[] files) {
         if (files == null || files.length == 0) {
             return Response.fail(400, "请选择至少一个文件");
         }
@@ -72,6 +99,12 @@ public class ContractController {
         return contractService.getContractById(id);
     }
 
+    // 按id批量获取合同信息, 一次请求代替逐个查询
+    @PostMapping("/batch-get")
+    public Response<List<ContractMain>> batchGetContracts(@RequestBody List<Long> ids) {
+        return contractService.batchGetContracts(ids);
+    }
+
     // 通过合同编号获取合同信息
     @GetMapping("/number/{number}")
     public Response<ContractMain> getContractByNumber(@PathVariable String number) {
@@ -89,6 +122,28 @@ public class ContractController {
         return contractService.getAllContracts(pageable);
     }
     
+    // 合同列表条件查询, 游标分页: 下一页传入上一页返回的 cursor; 过滤条件见 ContractFilter
+    @GetMapping("/list")
+    public Response<KeysetPage<ContractSummary>> listContracts(ContractFilter filter, 
+                                                             @RequestParam(required = false) String cursor, 
+                                                             @RequestParam(defaultValue = "createTime") String sortBy, 
+                                                             @RequestParam(defaultValue = "desc") String sortDir, 
+                                                             @RequestParam(required = false) Integer size, 
+                                                             @RequestParam(defaultValue = "none") String count) {
+        return contractService.listContracts(filter, cursor, sortBy, sortDir, size, count);
+    }
+    
+    // 合同多条件查询, 条件以 JSON 传入 (含开始 / 结束日期和金额范围), 分页参数与 /list 相同
+    @PostMapping("/query")
+    public Response<KeysetPage<ContractSummary>> queryContracts(@RequestBody ContractFilter filter, 
+                                                              @RequestParam(required = false) String cursor, 
+                                                              @RequestParam(defaultValue = "createTime") String sortBy, 
+                                                              @RequestParam(defaultValue = "desc") String sortDir, 
+                                                              @RequestParam(required = false) Integer size, 
+                                                              @RequestParam(defaultValue = "none") String count) {
+        return contractService.listContracts(filter, cursor, sortBy, sortDir, size, count);
+    }
+    
     @GetMapping("/search")
     public Response<Page<ContractMain>> searchContracts(@RequestParam String keyword, 
                                                        @RequestParam(defaultValue = "0") int page, 
@@ -97,6 +152,14 @@ public class ContractController {
         return contractService.searchContracts(keyword, pageable);
     }
     
+    // 输入联想, 按名称或编号返回前 limit 条, 不分页不计数
+    @GetMapping("/suggest")
+    public Response<List<ContractSuggestion>> suggestContracts(@RequestParam String keyword, 
+                                                              @RequestParam(required = false) Integer limit) {
+        return contractService.suggestContracts(keyword, limit);
+    }
+    
+    // 以下按单一条件查询的接口返回全部结果, 新代码请使用 /list
     @GetMapping("/status/{status}")
     public Response<List<ContractMain>> getContractsByStatus(@PathVariable Integer status) {
         return contractService.getContractsByStatus(status);
@@ -140,6 +203,12 @@ public class ContractController {
         return contractService.getContractVersion(id, version);
     }
     
+    // 重新提取版本正文: 提取失败或任务投递丢失时使用
+    @PostMapping("/{id}/versions/{version}/extract")
+    public Response<ContractVersion> reextractContractVersion(@PathVariable Long id, @PathVariable Integer version) {
+        return contractService.reextractContractVersion(id, version);
+    }
+    
     @GetMapping("/{id}/versions/latest")
     public Response<ContractVersion> getLatestContractVersion(@PathVariable Long id) {
         return contractService.getLatestContractVersion(id);
@@ -171,18 +240,44 @@ public class ContractController {
         return contractService.getContractHtmlContent(id, version);
     }
     
+    // 渲染后的 HTML 直接写入响应 (text/html), 大合同不经过 JSON 包装
+    @GetMapping("/{id}/html/stream")
+    public ResponseEntity<StreamingResponseBody> streamContractHtml(@PathVariable Long id, 
+                                                                   @RequestParam(value = "version", required = false) Integer version) {
+        StreamingResponseBody body = contractService.streamContractHtml(id, version).getData();
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new org.springframework.http.MediaType(org.springframework.http.MediaType.TEXT_HTML, StandardCharsets.UTF_8));
+        
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    // 按分块读取正文, 大合同不必一次加载全文
+    @GetMapping("/{id}/content/chunks/{chunkIndex}")
+    public Response<Map<String, Object>> getContractContentChunk(@PathVariable Long id, 
+                                                                @PathVariable Integer chunkIndex, 
+                                                                @RequestParam(value = "version", required = false) Integer version) {
+        return contractService.getContractContentChunk(id, version, chunkIndex);
+    }
+    
     // 合同状态管理
     @PutMapping("/{id}/status/{status}")
     public Response<ContractMain> updateContractStatus(@PathVariable Long id, @PathVariable Integer status) {
         return contractService.updateContractStatus(id, status);
     }
     
+    // 批量状态变更 (如批量审核通过), 只变更当前状态为 expectedStatus 的合同
+    @PostMapping("/status/batch")
+    public Response<BulkStatusResult> bulkUpdateContractStatus(@RequestBody BulkStatusRequest request) {
+        return contractService.bulkUpdateContractStatus(request);
+    }
+    
     // 合同导出
     @GetMapping("/{id}/export")
-    public ResponseEntity<byte[]> exportContract(@PathVariable Long id, 
-                                                @RequestParam(value = "version", required = false) Integer version, 
-                                                @RequestParam(value = "format", defaultValue = "txt") String format) {
-        byte[] content = contractService.exportContract(id, version, format).getData();
+    public ResponseEntity<StreamingResponseBody> exportContract(@PathVariable Long id, 
+                                                               @RequestParam(value = "version", required = false) Integer version, 
+                                                               @RequestParam(value = "format", defaultValue = "txt") String format) {
+        StreamingResponseBody content = contractService.exportContract(id, version, format).getData();
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(org.springframework.http.MediaType.APPLICATION_OCTET_STREAM);
@@ -191,15 +286,48 @@ public class ContractController {
         return new ResponseEntity<>(content, headers, HttpStatus.OK);
     }
     
+    // 下载原始文件 (PDF 预览), 支持 Range 请求; 不指定版本时为最新版本
+    @GetMapping("/{id}/file")
+    public void downloadContractFile(@PathVariable Long id, 
+                                     @RequestParam(value = "version", required = false) Integer version, 
+                                     HttpServletRequest request, 
+                                     HttpServletResponse response) throws IOException {
+        ContractVersion contractVersion = version == null
+                ? contractService.getLatestContractVersion(id).getData()
+                : contractService.getContractVersion(id, version).getData();
+        contractFileDownloader.download(contractVersion, request, response);
+    }
+    
     // 合同内容搜索
     @GetMapping("/{id}/search")
-    public Response<List<Map<String, Object>>> searchContractContent(@PathVariable Long id, 
-                                                                   @RequestParam String keyword) {
+    public Response<List<ContentMatch>> searchContractContent(@PathVariable Long id, 
+                                                            @RequestParam String keyword) {
         return contractService.searchContractContent(id, keyword);
     }
     
+    // 全局全文搜索, 按相关度排序
     @GetMapping("/content/search")
-    public Response<List<Map<String, Object>>> searchAllContractContent(@RequestParam String keyword) {
-        return contractService.searchAllContractContent(keyword);
+    public Response<Page<ContractSearchHit>> searchAllContractContent(@RequestParam String keyword, 
+                                                                     @RequestParam(defaultValue = "0") int page, 
+                                                                     @RequestParam(defaultValue = "10") int size) {
+        return contractService.searchAllContractContent(keyword, PageRequest.of(page, size));
+    }
+    
+    // 重建全文搜索索引 (首次部署或索引数据丢失后使用)
+    @PostMapping("/search/reindex")
+    public Response<Long> reindexContracts() {
+        return Response.success("搜索索引重建完成", contractSearchIndexer.reindexAll());
+    }
+    
+    // 合同统计: 按状态 / 类型 / 部门 / 创建月份的合同数, 读取预先维护的计数
+    @GetMapping("/stats/facets")
+    public Response<ContractFacets> getContractFacets() {
+        return Response.success(contractStatService.getFacets());
+    }
+    
+    // 按合同表重新计算统计计数, 返回校正的行数 (首次部署后或数据修复后使用)
+    @PostMapping("/stats/reconcile")
+    public Response<Integer> reconcileContractStats() {
+        return Response.success("统计计数校正完成", contractStatService.reconcile());
     }
 }
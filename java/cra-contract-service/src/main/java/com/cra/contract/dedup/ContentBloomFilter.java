@@ -0,0 +1,171 @@
+package com.cra.contract.dedup;
+
+import com.cra.contract.entity.ContractBlob;
+import com.cra.contract.repository.ContractBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 内容哈希布隆过滤器
+ * 判定"一定不存在"的新文件跳过数据库查重, 判定"可能存在"时再查库
+ * 启动完成后在维护线程中从 contract_blob 重建, 之后每次写入 blob 时加入; 只在本实例内存中, 其它实例新写入的哈希可能漏判,
+ * 所以最终一致性仍由数据库唯一索引保证
+ * 重建完成前 (或重建失败) 一律返回"可能存在", 查重退回数据库查询
+ */
+@Component
+public class ContentBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentBloomFilter.class);
+
+    @Value("${contract.dedup.bloom.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${contract.dedup.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${contract.dedup.bloom.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    @Autowired
+    private ContractBlobRepository contractBlobRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("contractMaintenanceExecutor")
+    private Executor maintenanceExecutor;
+
+    private AtomicLongArray bits;
+
+    private long bitCount;
+
+    private int hashCount;
+
+    private volatile boolean ready;
+
+    private Counter negativeCounter;
+
+    private Counter positiveCounter;
+
+    @PostConstruct
+    public void init() {
+        // m = -n * ln(p) / (ln2)^2, k = m / n * ln2
+        bitCount = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        negativeCounter = Counter.builder("contract.dedup.bloom")
+                .tag("result", "negative")
+                .description("布隆过滤器判定新文件(跳过查库)次数")
+                .register(meterRegistry);
+        positiveCounter = Counter.builder("contract.dedup.bloom")
+                .tag("result", "positive")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 分页扫描整个 contract_blob, 不占用启动线程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRebuild() {
+        maintenanceExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.error("内容哈希布隆过滤器重建失败, 查重全部走数据库", e);
+            }
+        });
+    }
+
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        long count = 0;
+        while (true) {
+            List<ContractBlob> blobs = contractBlobRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, rebuildBatchSize));
+            if (blobs.isEmpty()) {
+                break;
+            }
+            for (ContractBlob blob : blobs) {
+                put(blob.getContentHash());
+                lastId = blob.getId();
+            }
+            count += blobs.size();
+        }
+        ready = true;
+        if (count > expectedInsertions) {
+            logger.warn("布隆过滤器元素数 {} 超过预期 {}, 误判率会升高, 请调大 contract.dedup.bloom.expected-insertions",
+                    count, expectedInsertions);
+        }
+        logger.info("内容哈希布隆过滤器重建完成: {} 条, {} bits, {} 个哈希函数, 耗时 {} ms",
+                count, bitCount, hashCount, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return false 表示一定不存在
+     */
+    public boolean mightContain(String contentHash) {
+        if (!ready) {
+            return true;
+        }
+        long[] hashes = baseHashes(contentHash);
+        for (int i = 0; i < hashCount; i++) {
+            long index = indexOf(hashes, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                negativeCounter.increment();
+                return false;
+            }
+        }
+        positiveCounter.increment();
+        return true;
+    }
+
+    public void put(String contentHash) {
+        long[] hashes = baseHashes(contentHash);
+        for (int i = 0; i < hashCount; i++) {
+            long index = indexOf(hashes, i);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 内容哈希本身是均匀分布的, 直接取前 16 字节作为两个基础哈希, 再用 h1 + i * h2 生成 k 个位置
+     */
+    private long[] baseHashes(String contentHash) {
+        byte[] bytes = HexFormat.of().parseHex(contentHash);
+        long h1 = 0;
+        long h2 = 0;
+        for (int i = 0; i < 8; i++) {
+            h1 = (h1 << 8) | (bytes[i] & 0xFF);
+            h2 = (h2 << 8) | (bytes[i + 8] & 0xFF);
+        }
+        return new long[]{h1, h2 | 1};
+    }
+
+    private long indexOf(long[] hashes, int i) {
+        return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+    }
+}
@@ -0,0 +1,164 @@
+package com.cra.contract.dedup;
+
+import com.cra.contract.repository.ContractBlobRepository;
+import com.cra.contract.repository.ContractVersionRepository;
+import com.cra.contract.storage.ContractFileStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 按内容寻址的文件引用计数
+ * 上传时文件已经写入存储(哈希要读完整个流才能得到), 再按哈希登记:
+ * 新内容保留刚写入的文件, 已有内容引用计数 +1 并删除刚写入的副本, 版本记录指向共享文件
+ * 删除版本时引用计数 -1, 归零后事务提交时删除物理文件
+ * 必须在调用方事务内调用, 引用计数与版本记录一起提交或回滚
+ */
+@Service
+public class ContractBlobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractBlobService.class);
+
+    @Autowired
+    private ContractBlobRepository contractBlobRepository;
+
+    @Autowired
+    private ContractVersionRepository contractVersionRepository;
+
+    @Autowired
+    private ContentBloomFilter contentBloomFilter;
+
+    @Autowired
+    private ContractFileStorage contractFileStorage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        hitCounter = Counter.builder("contract.dedup.blob")
+                .tag("result", "hit")
+                .description("上传文件与已有内容相同(共享存储)次数")
+                .register(meterRegistry);
+        missCounter = Counter.builder("contract.dedup.blob")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 同一合同下是否已有相同内容的版本, 布隆过滤器判定为新内容时不查库
+     */
+    public boolean existsInContract(Long contractId, String contentHash) {
+        return contentBloomFilter.mightContain(contentHash)
+                && contractVersionRepository.existsByContractIdAndContentHash(contractId, contentHash);
+    }
+
+    /**
+     * 登记刚写入存储的文件
+     * @param contentHash 内容哈希
+     * @param storagePath 刚写入的文件
+     * @param fileSize 文件大小
+     * @return 版本应指向的存储路径 (内容已存在时为共享文件路径)
+     */
+    @Transactional
+    public String acquire(String contentHash, String storagePath, Long fileSize) {
+        String sharedPath;
+        if (contentBloomFilter.mightContain(contentHash)) {
+            // 可能已存在: 先尝试引用已有文件
+            sharedPath = contractBlobRepository.incrementRefCount(contentHash) == 1
+                    ? findStoragePath(contentHash)
+                    : insertOrReference(contentHash, storagePath, fileSize);
+        } else {
+            sharedPath = insertOrReference(contentHash, storagePath, fileSize);
+        }
+        contentBloomFilter.put(contentHash);
+
+        if (sharedPath.equals(storagePath)) {
+            missCounter.increment();
+            // 事务回滚时 blob 记录不存在, 刚写入的文件也要删除
+            deleteAfterCompletion(false, storagePath);
+        } else {
+            hitCounter.increment();
+            contractFileStorage.delete(storagePath);
+            logger.info("文件内容已存在, 共享存储: {} -> {}", contentHash, sharedPath);
+        }
+        return sharedPath;
+    }
+
+    /**
+     * 释放版本对文件的引用, 引用归零时在事务提交后删除物理文件
+     * 没有 blob 记录的历史版本直接删除文件
+     */
+    @Transactional
+    public void release(String contentHash, String storagePath) {
+        if (contractBlobRepository.decrementRefCount(contentHash) == 0) {
+            deleteAfterCompletion(true, storagePath);
+            return;
+        }
+        if (contractBlobRepository.deleteUnreferenced(contentHash) == 1) {
+            deleteAfterCompletion(true, storagePath);
+        }
+    }
+
+    /**
+     * 文件迁移到新的存储路径 (本地降级文件补传), 共享该文件的版本一起改写
+     * @return 改写的版本数, 为 0 表示文件已无版本引用
+     */
+    @Transactional
+    public int relocate(String oldPath, String newPath) {
+        contractBlobRepository.updateStoragePath(oldPath, newPath);
+        return contractVersionRepository.updateStoragePathByPath(oldPath, newPath);
+    }
+
+    private String insertOrReference(String contentHash, String storagePath, Long fileSize) {
+        if (contractBlobRepository.insertIfAbsent(contentHash, storagePath, fileSize) == 1) {
+            return storagePath;
+        }
+        // 并发上传了相同内容, 对方已插入; 插入冲突时会等待对方事务结束, 此时记录已可见
+        if (contractBlobRepository.incrementRefCount(contentHash) == 1) {
+            return findStoragePath(contentHash);
+        }
+        // 对方回滚或记录已被删除, 再插入一次
+        if (contractBlobRepository.insertIfAbsent(contentHash, storagePath, fileSize) == 1) {
+            return storagePath;
+        }
+        throw new IllegalStateException("登记文件内容失败: " + contentHash);
+    }
+
+    private String findStoragePath(String contentHash) {
+        return contractBlobRepository.findStoragePathByContentHash(contentHash)
+                .orElseThrow(() -> new IllegalStateException("文件内容记录不存在: " + contentHash));
+    }
+
+    /**
+     * @param onCommit true 事务提交后删除, false 事务回滚后删除
+     */
+    private void deleteAfterCompletion(boolean onCommit, String storagePath) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit) {
+                contractFileStorage.delete(storagePath);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                int expected = onCommit ? STATUS_COMMITTED : STATUS_ROLLED_BACK;
+                if (status == expected) {
+                    contractFileStorage.delete(storagePath);
+                }
+            }
+        });
+    }
+}
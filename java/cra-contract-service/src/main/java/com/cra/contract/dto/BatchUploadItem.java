@@ -0,0 +1,39 @@
+package com.cra.contract.dto;
+
+import com.cra.contract.entity.ContractMain;
+import lombok.Data;
+
+/**
+ * 批量上传中单个文件的处理结果
+ */
+@Data
+public class BatchUploadItem {
+
+    private int index; // 文件在请求中的序号
+
+    private String fileName; // 原始文件名
+
+    private boolean success; // 是否成功
+
+    private ContractMain contract; // 成功时创建的合同
+
+    private String error; // 失败原因
+
+    public static BatchUploadItem success(int index, String fileName, ContractMain contract) {
+        BatchUploadItem item = new BatchUploadItem();
+        item.setIndex(index);
+        item.setFileName(fileName);
+        item.setSuccess(true);
+        item.setContract(contract);
+        return item;
+    }
+
+    public static BatchUploadItem fail(int index, String fileName, String error) {
+        BatchUploadItem item = new BatchUploadItem();
+        item.setIndex(index);
+        item.setFileName(fileName);
+        item.setSuccess(false);
+        item.setError(error);
+        return item;
+    }
+}
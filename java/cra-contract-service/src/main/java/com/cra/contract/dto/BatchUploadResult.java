@@ -0,0 +1,27 @@
+package com.cra.contract.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量上传结果, items 与请求中的文件顺序一致
+ */
+@Data
+public class BatchUploadResult {
+
+    private int total; // 文件总数
+
+    private int successCount; // 成功数
+
+    private int failureCount; // 失败数
+
+    private List<BatchUploadItem> items; // 每个文件的处理结果
+
+    public BatchUploadResult(List<BatchUploadItem> items) {
+        this.items = items;
+        this.total = items.size();
+        this.successCount = (int) items.stream().filter(BatchUploadItem::isSuccess).count();
+        this.failureCount = total - successCount;
+    }
+}
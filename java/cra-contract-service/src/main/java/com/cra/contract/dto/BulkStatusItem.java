@@ -0,0 +1,26 @@
+package com.cra.contract.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量状态变更中单个合同的结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusItem {
+
+    public enum Outcome {
+        UPDATED, // 已变更
+        NOT_FOUND, // 合同不存在
+        STATUS_MISMATCH // 当前状态不是期望状态, 未变更
+    }
+
+    private Long contractId; // 合同ID
+
+    private Outcome outcome; // 处理结果
+
+    private Integer currentStatus; // 处理后的状态, 合同不存在时为空
+}
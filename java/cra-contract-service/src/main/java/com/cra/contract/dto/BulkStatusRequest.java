@@ -0,0 +1,18 @@
+package com.cra.contract.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量状态变更请求: 只有当前状态为 expectedStatus 的合同才会改为 targetStatus
+ */
+@Data
+public class BulkStatusRequest {
+
+    private List<Long> ids; // 合同ID
+
+    private Integer expectedStatus; // 期望的当前状态
+
+    private Integer targetStatus; // 目标状态
+}
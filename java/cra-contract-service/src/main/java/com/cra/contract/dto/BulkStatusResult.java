@@ -0,0 +1,24 @@
+package com.cra.contract.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量状态变更结果, items 与请求中的合同ID顺序一致 (重复ID只保留第一次)
+ */
+@Data
+public class BulkStatusResult {
+
+    private int total; // 合同数
+
+    private int updatedCount; // 变更成功数
+
+    private List<BulkStatusItem> items; // 每个合同的处理结果
+
+    public BulkStatusResult(List<BulkStatusItem> items) {
+        this.items = items;
+        this.total = items.size();
+        this.updatedCount = (int) items.stream().filter(item -> item.getOutcome() == BulkStatusItem.Outcome.UPDATED).count();
+    }
+}
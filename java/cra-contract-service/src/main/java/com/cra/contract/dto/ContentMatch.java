@@ -0,0 +1,28 @@
+package com.cra.contract.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 合同内搜索结果: 一个包含关键词的正文片段, 相邻的命中合并在同一片段中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentMatch {
+
+    private String keyword; // 搜索词
+
+    private int position; // 片段中第一个命中的位置
+
+    private int start; // 片段在正文中的起始位置
+
+    private int end; // 片段在正文中的结束位置 (不含)
+
+    private int[] offsets; // 片段内全部命中位置, 按 [起始, 结束, 起始, 结束...] 排列
+
+    private String context; // 片段文本 (已转义), 命中处用 <mark> 标记
+
+    private Integer version; // 版本号
+}
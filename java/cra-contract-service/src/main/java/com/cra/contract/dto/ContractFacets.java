@@ -0,0 +1,23 @@
+package com.cra.contract.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 合同统计 (看板与列表页筛选项的计数), 取值为空的合同计在空字符串下
+ */
+@Data
+public class ContractFacets {
+
+    private long total; // 合同总数
+
+    private Map<String, Long> byStatus = new TreeMap<>(); // 按状态
+
+    private Map<String, Long> byCategory = new TreeMap<>(); // 按合同类型
+
+    private Map<String, Long> byDepartment = new TreeMap<>(); // 按部门
+
+    private Map<String, Long> byMonth = new TreeMap<>(); // 按创建月份 (yyyy-MM)
+}
@@ -0,0 +1,41 @@
+package com.cra.contract.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 合同列表过滤条件, 为空的条件不参与过滤, 多个条件之间为 AND
+ * 范围条件两端都是闭区间, 可只给一端
+ */
+@Data
+public class ContractFilter {
+
+    private Integer status; // 合同状态
+
+    private String creatorId; // 创建人ID
+
+    private Long partyId; // 甲方或乙方ID
+
+    private String category; // 合同类型
+
+    private String department; // 所属部门
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateFrom; // 开始日期下限
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateTo; // 开始日期上限
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDateFrom; // 结束日期下限
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDateTo; // 结束日期上限
+
+    private BigDecimal amountMin; // 金额下限
+
+    private BigDecimal amountMax; // 金额上限
+}
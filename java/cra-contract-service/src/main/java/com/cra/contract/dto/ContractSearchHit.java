@@ -0,0 +1,32 @@
+package com.cra.contract.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 全文搜索结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractSearchHit {
+
+    private Long contractId; // 合同ID
+
+    private String contractName; // 合同名称
+
+    private String contractNumber; // 合同编号
+
+    private String category; // 合同类型
+
+    private String department; // 所属部门
+
+    private Integer versionNumber; // 命中的版本号 (最新版本)
+
+    private float score; // 相关度得分
+
+    private List<String> highlights; // 高亮片段, 关键词用 <mark> 标记
+}
@@ -0,0 +1,24 @@
+package com.cra.contract.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 合同名称 / 编号输入联想结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractSuggestion {
+
+    private Long contractId; // 合同ID
+
+    private String contractName; // 合同名称
+
+    private String contractNumber; // 合同编号
+
+    private Integer status; // 合同状态
+
+    private float score; // 排序得分: 编号完全相同 > 前缀匹配 > 包含, 同类中关键词占字段比例越高越靠前
+}
@@ -0,0 +1,35 @@
+package com.cra.contract.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 合同列表行, 只包含列表页展示的字段, 由查询直接投影生成, 不加载实体
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContractSummary {
+
+    private Long id; // 合同ID
+
+    private String contractNumber; // 合同编号
+
+    private String contractName; // 合同名称
+
+    private Integer status; // 合同状态
+
+    private String category; // 合同类型
+
+    private String department; // 所属部门
+
+    private BigDecimal amount; // 合同金额
+
+    private String creatorId; // 创建人ID
+
+    private LocalDateTime createTime; // 创建时间
+}
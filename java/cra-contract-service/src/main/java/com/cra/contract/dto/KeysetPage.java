@@ -0,0 +1,26 @@
+package com.cra.contract.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 下一页把 nextCursor 原样传回; 没有下一页时 nextCursor 为空
+ * total 只在请求计数时返回, totalExact 为 false 表示记录数超过计数上限, total 只是下限
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    private List<T> items; // 本页数据
+
+    private String nextCursor; // 下一页游标
+
+    private Long total; // 总数
+
+    private boolean totalExact; // total 是否精确
+}
@@ -0,0 +1,34 @@
+package com.cra.contract.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 合同原始文件 (按内容寻址)
+ * 内容相同的版本共享同一份物理文件, ref_count 为引用该文件的版本数, 归零时删除物理文件
+ */
+@Entity
+@Table(name = "contract_blob")
+@Data
+public class ContractBlob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash; // 内容哈希 (SHA-256)
+    
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath; // 存储路径
+    
+    @Column(name = "file_size")
+    private Long fileSize; // 文件大小
+    
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount; // 引用次数
+    
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime; // 创建时间
+}
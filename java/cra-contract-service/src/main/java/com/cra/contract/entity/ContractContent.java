@@ -1,11 +1,13 @@
 package com.cra.contract.entity;
 
 import lombok.Data;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 // mongodb
 @Document(collection = "contract_content")
+@CompoundIndex(name = "uk_content_contract_version", def = "{'contractId': 1, 'versionId': 1}", unique = true)
 @Data
 public class ContractContent {
     private String id;
@@ -14,11 +16,19 @@ public class ContractContent {
     
     private Long versionId; // 关联版本ID
     
+    private String contentHash; // 原文件内容哈希, 同版本的 contentHash, 用作 HTML 渲染缓存的键
+    
     private String content; // 合同全文内容
     
-    private String plainTextContent; // 纯文本内容（用于搜索）
+    private String plainTextContent; // 纯文本内容（用于搜索）, 仅历史数据, 新提取的正文存储在 contract_content_chunk
+    
+    private String htmlContent; // HTML格式内容（用于展示）, 仅历史数据, 不再读取, 由纯文本渲染
+    
+    private Integer chunkCount; // 正文分块数, 为空表示正文在 plainTextContent / htmlContent 中
+    
+    private Long charCount; // 正文字符数
     
-    private String htmlContent; // HTML格式内容（用于展示）
+    private Integer pageCount; // 页数 (不分页的文档为 0)
     
     private String extractedClauses; // 提取的条款（JSON格式）
     
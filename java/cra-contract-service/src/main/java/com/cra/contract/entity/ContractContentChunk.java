@@ -0,0 +1,35 @@
+package com.cra.contract.entity;
+
+import lombok.Data;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// mongodb 合同正文分块, 大合同的正文按页切分存储, 避免单个文档超过 16MB 限制
+@Document(collection = "contract_content_chunk")
+@CompoundIndex(name = "uk_chunk_contract_version_index", def = "{'contractId': 1, 'versionId': 1, 'chunkIndex': 1}", unique = true)
+@Data
+public class ContractContentChunk {
+    private String id;
+    
+    private Long contractId; // 关联合同ID
+    
+    private Long versionId; // 关联版本ID
+    
+    private Integer chunkIndex; // 分块序号, 从 0 开始
+    
+    private Integer pageStart; // 起始页 (不分页的文档为 0)
+    
+    private Integer pageEnd; // 结束页
+    
+    private String plainText; // 纯文本内容, 超过压缩阈值时为空, 存在 plainTextDeflate 中
+    
+    private byte[] plainTextDeflate; // 压缩后的纯文本 (UTF-8 + deflate, 见 TextCompression)
+    
+    private String htmlContent; // HTML格式内容, 仅历史数据, 现在读取时由纯文本渲染 (见 HtmlRenderer)
+    
+    private byte[] htmlContentDeflate; // 压缩后的 HTML, 仅历史数据
+    
+    private LocalDateTime createTime; // 创建时间
+}
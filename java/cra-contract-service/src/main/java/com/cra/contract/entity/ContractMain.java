@@ -8,7 +8,21 @@ import java.time.LocalDateTime;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "contract_main")
+// 列表查询按 (过滤列, create_time, id) 走索引, 排序和游标翻页都不需要额外排序
+@Table(name = "contract_main", indexes = {
+        @Index(name = "idx_contract_main_create_time", columnList = "create_time, id"),
+        @Index(name = "idx_contract_main_status", columnList = "status, create_time, id"),
+        @Index(name = "idx_contract_main_creator", columnList = "creator_id, create_time, id"),
+        @Index(name = "idx_contract_main_category", columnList = "category, create_time, id"),
+        @Index(name = "idx_contract_main_department", columnList = "department, create_time, id"),
+        @Index(name = "idx_contract_main_party_a", columnList = "party_a_id, create_time, id"),
+        @Index(name = "idx_contract_main_party_b", columnList = "party_b_id, create_time, id"),
+        @Index(name = "idx_contract_main_dept_status", columnList = "department, status, create_time, id"),
+        @Index(name = "idx_contract_main_category_status", columnList = "category, status, create_time, id"),
+        @Index(name = "idx_contract_main_start_date", columnList = "start_date"),
+        @Index(name = "idx_contract_main_end_date", columnList = "end_date"),
+        @Index(name = "idx_contract_main_amount", columnList = "amount")
+})
 @Data
 public class ContractMain {
     @Id
@@ -56,4 +70,17 @@ public class ContractMain {
     
     @Column(name = "remark")
     private String remark; // 备注
+    
+    @Column(name = "latest_version_id")
+    private Long latestVersionId; // 最新版本ID, 与 latestVersionNumber 在新建版本时一起更新
+    
+    @Column(name = "latest_version_number")
+    private Integer latestVersionNumber; // 最新版本号, 新版本号由此加一得到
+    
+    @Column(name = "latest_content_id")
+    private String latestContentId; // 最新版本正文 (MongoDB contract_content) 的文档ID, 提取完成前为空
+    
+    @Version
+    @Column(name = "lock_version")
+    private Long lockVersion; // 乐观锁版本号, 修改合同或新建版本时加一
 }
@@ -0,0 +1,33 @@
+package com.cra.contract.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 合同统计计数, 每个 (维度, 取值) 一行
+ * 随合同增删改在同一事务内增量更新, 定时按 GROUP BY 校正 (见 ContractStatService)
+ */
+@Entity
+@Table(name = "contract_stat", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_contract_stat_dimension_key", columnNames = {"dimension", "dim_key"})
+})
+@Data
+public class ContractStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "dimension", nullable = false, length = 32)
+    private String dimension; // 统计维度: STATUS / CATEGORY / DEPARTMENT / MONTH
+    
+    @Column(name = "dim_key", nullable = false)
+    private String dimKey; // 维度取值, 空值记为空字符串; MONTH 为创建时间的 yyyy-MM
+    
+    @Column(name = "stat_count", nullable = false)
+    private Long statCount; // 合同数
+    
+    @Column(name = "update_time")
+    private LocalDateTime updateTime; // 更新时间
+}
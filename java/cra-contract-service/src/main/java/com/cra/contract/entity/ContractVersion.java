@@ -6,9 +6,20 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "contract_version")
+@Table(name = "contract_version",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_contract_version_contract_hash", columnNames = {"contract_id", "content_hash"}),
+                @UniqueConstraint(name = "uk_contract_version_number", columnNames = {"contract_id", "version_number"})
+        },
+        indexes = @Index(name = "idx_contract_version_storage_path", columnList = "storage_path"))
 @Data
 public class ContractVersion {
+    // 文本提取状态
+    public static final int EXTRACT_PENDING = 0; // 待提取
+    public static final int EXTRACT_PROCESSING = 1; // 提取中
+    public static final int EXTRACT_DONE = 2; // 提取完成
+    public static final int EXTRACT_FAILED = 3; // 提取失败
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -20,10 +31,10 @@ public class ContractVersion {
     private Integer versionNumber; // 版本号
     
     @Column(name = "content_hash", nullable = false)
-    private String contentHash; // 内容哈希
+    private String contentHash; // 内容哈希 (SHA-256, 历史数据为 MD5)
     
     @Column(name = "storage_path", nullable = false)
-    private String storagePath; // 存储路径
+    private String storagePath; // 存储路径 (内容相同的版本共享同一文件, 见 contract_blob)
     
     @Column(name = "file_name", nullable = false)
     private String fileName; // 文件名
@@ -40,6 +51,15 @@ public class ContractVersion {
     @Column(name = "remark")
     private String remark; // 版本说明
     
+    @Column(name = "extract_status")
+    private Integer extractStatus; // 文本提取状态 0:待提取 1:提取中 2:提取完成 3:提取失败 (历史数据为空, 视为已完成)
+    
+    @Column(name = "extract_error", length = 1000)
+    private String extractError; // 提取失败原因
+    
+    @Column(name = "extract_start_time")
+    private LocalDateTime extractStartTime; // 本次提取开始时间 (认领时写入), 提取中超时后可由其它消费者接管
+    
     @Column(name = "create_time", nullable = false)
     private LocalDateTime createTime; // 创建时间
 }
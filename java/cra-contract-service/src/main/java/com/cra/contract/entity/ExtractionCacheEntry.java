@@ -0,0 +1,23 @@
+package com.cra.contract.entity;
+
+import com.cra.contract.extraction.ContentChunk;
+import lombok.Data;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// mongodb 文本提取结果缓存 (持久层), id 为 提取器版本:内容哈希
+@Document(collection = "extraction_cache")
+@Data
+public class ExtractionCacheEntry {
+    private String id;
+    
+    private List<ContentChunk> chunks; // 按页切分的正文
+    
+    private Integer pageCount; // 页数
+    
+    private String metadata; // 文档元数据（JSON格式）
+    
+    private LocalDateTime createTime; // 创建时间
+}
@@ -0,0 +1,18 @@
+package com.cra.contract.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一批合同的同类变更 (如批量状态变更), 监听方可以批量处理, 不必逐个处理 ContractChangeEvent
+ */
+@Data
+@AllArgsConstructor
+public class ContractBatchChangeEvent {
+
+    private List<Long> contractIds; // 合同ID
+
+    private ContractChangeEvent.Type type; // 变更类型
+}
@@ -0,0 +1,25 @@
+package com.cra.contract.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 合同变更事件
+ * 合同信息、版本或正文发生变化时发布, 搜索索引等派生数据监听此事件在事务提交后更新
+ */
+@Data
+@AllArgsConstructor
+public class ContractChangeEvent {
+
+    public enum Type {
+        CONTRACT_SAVED, // 合同基本信息新增或修改
+        STATUS_CHANGED, // 只有状态 (及更新时间) 变化, 如批量状态流转
+        VERSION_CREATED, // 新版本入库 (同步提取模式下正文已就绪)
+        CONTENT_EXTRACTED, // 异步提取完成, 正文已就绪
+        CONTRACT_DELETED // 合同及全部版本已删除
+    }
+
+    private Long contractId; // 合同ID
+
+    private Type type; // 变更类型
+}
@@ -0,0 +1,20 @@
+package com.cra.contract.extraction;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一段连续的正文文本, 按页切分, 页码从 1 开始, 不分页的文档 (如 DOCX) 页码为 0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentChunk {
+
+    private String text; // 文本内容
+
+    private int pageStart; // 起始页
+
+    private int pageEnd; // 结束页
+}
@@ -0,0 +1,222 @@
+package com.cra.contract.extraction;
+
+import com.cra.contract.entity.ContractContent;
+import com.cra.contract.entity.ContractContentChunk;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * 合同正文集合的索引维护
+ * - 启动时按实体上的 @CompoundIndex / @Indexed 创建索引 (未开启 auto-index-creation);
+ *   唯一索引因历史重复数据建不起来时, 默认只记录重复的键, 不建该索引;
+ *   开启 contract.content.index.remove-duplicates 后每组重复记录只保留最新一条再重建 (会删除数据, 须先备份)
+ * - 删除已不再使用的 n-gram 词元索引, 启动完成后在后台分批清除历史文档上残留的词元数组
+ */
+@Component
+public class ContentIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentIndexInitializer.class);
+
+    private static final int REMOVE_BATCH_SIZE = 1000;
+
+    // 记录到日志的重复键数量上限
+    private static final int MAX_REPORTED_DUPLICATES = 20;
+
+    // 已废弃的 n-gram 词元索引
+    private static final List<String> OBSOLETE_INDEXES = List.of("idx_content_ngram", "idx_chunk_ngram");
+
+    @Value("${contract.content.index.remove-duplicates:false}")
+    private boolean removeDuplicates;
+
+    @Value("${contract.content.ngram.cleanup:true}")
+    private boolean cleanupEnabled;
+
+    @Value("${contract.content.ngram.batch-size:200}")
+    private int batchSize;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+
+    @Autowired
+    @Qualifier("contractMaintenanceExecutor")
+    private Executor maintenanceExecutor;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        ensureIndexes(resolver, ContractContent.class, "contractId", "versionId");
+        ensureIndexes(resolver, ContractContentChunk.class, "contractId", "versionId", "chunkIndex");
+        dropObsoleteIndexes(ContractContent.class);
+        dropObsoleteIndexes(ContractContentChunk.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cleanupNgramTokens() {
+        if (!cleanupEnabled) {
+            return;
+        }
+        maintenanceExecutor.execute(() -> {
+            long chunks = unsetTokens(ContractContentChunk.class);
+            long contents = unsetTokens(ContractContent.class);
+            if (chunks > 0 || contents > 0) {
+                logger.info("已清除残留的 n-gram 词元: 分块 {} 条, 合同内容 {} 条", chunks, contents);
+            }
+        });
+    }
+
+    private void ensureIndexes(IndexResolver resolver, Class<?> type, String... uniqueKey) {
+        IndexOperations indexOps = mongoTemplate.indexOps(type);
+        for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+            try {
+                indexOps.ensureIndex(index);
+            } catch (DuplicateKeyException e) {
+                if (!removeDuplicates) {
+                    logger.error("{} 存在重复记录, 唯一索引未创建, 请人工处理 (或备份后开启 contract.content.index.remove-duplicates): {}",
+                            type.getSimpleName(), e.getMessage());
+                    reportDuplicates(type, uniqueKey);
+                    continue;
+                }
+                logger.warn("{} 存在重复记录, 按配置清理后重建唯一索引: {}", type.getSimpleName(), e.getMessage());
+                removeDuplicates(type, uniqueKey);
+                indexOps.ensureIndex(index);
+            }
+        }
+    }
+
+    private void dropObsoleteIndexes(Class<?> type) {
+        IndexOperations indexOps = mongoTemplate.indexOps(type);
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            if (OBSOLETE_INDEXES.contains(index.getName())) {
+                indexOps.dropIndex(index.getName());
+                logger.info("已删除不再使用的索引: {}.{}", mongoTemplate.getCollectionName(type), index.getName());
+            }
+        }
+    }
+
+    /**
+     * 按唯一键排序扫描, 记录重复的键 (最多 MAX_REPORTED_DUPLICATES 个) 和重复记录总数, 不修改数据
+     */
+    private void reportDuplicates(Class<?> type, String... keys) {
+        List<Object> reported = new ArrayList<>();
+        long[] redundant = {0};
+        scanDuplicates(type, keys, (key, id) -> {
+            redundant[0]++;
+            if (reported.size() < MAX_REPORTED_DUPLICATES && !reported.contains(Arrays.asList(key))) {
+                reported.add(Arrays.asList(key));
+            }
+        });
+        logger.error("{} 重复记录 {} 条, 重复的键 {}: {}", mongoTemplate.getCollectionName(type), redundant[0],
+                Arrays.toString(keys), reported);
+    }
+
+    /**
+     * 按唯一键分组, 每组只保留 _id 最大 (最近写入) 的一条
+     */
+    private void removeDuplicates(Class<?> type, String... keys) {
+        String collection = mongoTemplate.getCollectionName(type);
+        List<Object> redundant = new ArrayList<>();
+        long[] removed = {0};
+        scanDuplicates(type, keys, (key, id) -> {
+            logger.warn("删除重复记录: {} {}={} _id={}", collection, Arrays.toString(keys), Arrays.toString(key), id);
+            redundant.add(id);
+            if (redundant.size() >= REMOVE_BATCH_SIZE) {
+                removed[0] += remove(collection, redundant);
+            }
+        });
+        removed[0] += remove(collection, redundant);
+        logger.warn("{} 已清理重复记录 {} 条", collection, removed[0]);
+    }
+
+    /**
+     * 按唯一键、_id 倒序扫描, 每组第一条 (最新) 之外的记录交给 consumer
+     */
+    private void scanDuplicates(Class<?> type, String[] keys, DuplicateConsumer consumer) {
+        String collection = mongoTemplate.getCollectionName(type);
+        Query query = new Query().with(Sort.by(keys).and(Sort.by(Sort.Direction.DESC, "_id")));
+        query.fields().include(keys);
+
+        Object[] previous = null;
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                Object[] key = new Object[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    key[i] = document.get(keys[i]);
+                }
+                if (previous != null && Arrays.equals(previous, key)) {
+                    consumer.accept(key, document.get("_id"));
+                } else {
+                    previous = key;
+                }
+            }
+        }
+    }
+
+    private int remove(String collection, List<Object> ids) {
+        int count = ids.size();
+        if (count > 0) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), collection);
+            ids.clear();
+        }
+        return count;
+    }
+
+    /**
+     * 分批清除词元数组, 清除后的文档不再满足查询条件, 每批都从头取; 某一批失败时记录日志后停止, 下次启动继续
+     * 只删除字段, 文档只会变小
+     */
+    private long unsetTokens(Class<?> type) {
+        String collection = mongoTemplate.getCollectionName(type);
+        long total = 0;
+        while (true) {
+            try {
+                Query query = Query.query(Criteria.where("ngramTokens").exists(true)).limit(batchSize);
+                query.fields().include("_id");
+                List<Object> ids = mongoTemplate.find(query, Document.class, collection).stream()
+                        .map(document -> document.get("_id"))
+                        .toList();
+                if (ids.isEmpty()) {
+                    return total;
+                }
+                mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), new Update().unset("ngramTokens"), collection);
+                total += ids.size();
+            } catch (RuntimeException e) {
+                logger.error("清除 {} 的 n-gram 词元失败, 已清除 {} 条, 下次启动继续: {}", collection, total, e.getMessage());
+                return total;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface DuplicateConsumer {
+        void accept(Object[] key, Object id);
+    }
+}
@@ -0,0 +1,203 @@
+package com.cra.contract.extraction;
+
+import com.cra.contract.entity.ContractContent;
+import com.cra.contract.entity.ContractContentChunk;
+import com.cra.contract.repository.ContractContentChunkRepository;
+import com.cra.contract.repository.ContractContentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 读取合同正文
+ * 新提取的正文分块存储在 contract_content_chunk, 历史数据整篇存在 ContractContent 中, 这里统一两种格式
+ * ContractContent 的查询只带元数据, 正文按需要的表示方式 (纯文本 / 原始内容) 单独投影读取, 不多读其它表示
+ * 分块按序号用游标逐块读取并解压, 需要全文时才拼接; 导出等写入响应流的场景用 write* 方法逐块写出, 不拼接全文
+ * HTML 不再存储, 读取时由纯文本渲染 (HtmlRenderer), 历史数据中存储的 HTML 不再使用 (未转义)
+ */
+@Component
+public class ContractContentReader {
+
+    @Autowired
+    private ContractContentChunkRepository contractContentChunkRepository;
+
+    @Autowired
+    private ContractContentRepository contractContentRepository;
+
+    @Autowired
+    private RenderedHtmlCache renderedHtmlCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public String readPlainText(ContractContent content) {
+        return timed("plain", () -> isChunked(content)
+                ? join(content, contractContentChunkRepository::streamPlainText,
+                        chunk -> TextCompression.decode(chunk.getPlainText(), chunk.getPlainTextDeflate()))
+                : readLegacy(content, contractContentRepository::findLegacyPlainText, ContractContent::getPlainTextContent));
+    }
+
+    /**
+     * 纯文本直接写入输出, 分块正文逐块解压写出
+     */
+    public void writePlainText(ContractContent content, Writer out) throws IOException {
+        if (!isChunked(content)) {
+            writeNullable(readPlainText(content), out);
+            return;
+        }
+        forEachPlainTextChunk(content, out::write);
+    }
+
+    /**
+     * 原始内容直接写入输出, 见 readRaw
+     */
+    public void writeRaw(ContractContent content, Writer out) throws IOException {
+        if (isChunked(content)) {
+            writePlainText(content, out);
+            return;
+        }
+        writeNullable(readRaw(content), out);
+    }
+
+    /**
+     * 渲染后的 HTML 全文, 内容哈希相同的正文共用缓存的渲染结果
+     */
+    public String readHtml(ContractContent content) {
+        return timed("html", () -> renderedHtmlCache.accepts(content.getContentHash(), content.getCharCount())
+                ? renderedHtmlCache.get(content.getContentHash(), () -> HtmlRenderer.render(readPlainText(content)))
+                : HtmlRenderer.render(readPlainText(content)));
+    }
+
+    /**
+     * 渲染 HTML 并直接写入输出, 不缓存的大文档逐块渲染, 不拼接全文
+     */
+    public void writeHtml(ContractContent content, Writer out) throws IOException {
+        if (!isChunked(content) || renderedHtmlCache.accepts(content.getContentHash(), content.getCharCount())) {
+            writeNullable(readHtml(content), out);
+            return;
+        }
+        forEachPlainTextChunk(content, text -> HtmlRenderer.render(text, out));
+    }
+
+    /**
+     * 原始内容: 历史数据中的 content 字段, 分块存储的正文没有单独的原始内容, 返回纯文本
+     */
+    public String readRaw(ContractContent content) {
+        if (isChunked(content)) {
+            return readPlainText(content);
+        }
+        return timed("raw", () -> readLegacy(content, contractContentRepository::findLegacyContent, ContractContent::getContent));
+    }
+
+    /**
+     * 读取单个分块 (纯文本已解压, HTML 由纯文本渲染), 历史数据视为只有一个分块
+     */
+    public Optional<ContractContentChunk> readChunk(ContractContent content, int chunkIndex) {
+        if (isChunked(content)) {
+            return contractContentChunkRepository
+                    .findByContractIdAndVersionIdAndChunkIndex(content.getContractId(), content.getVersionId(), chunkIndex)
+                    .map(ContractContentReader::decoded);
+        }
+        if (chunkIndex != 0) {
+            return Optional.empty();
+        }
+        ContractContentChunk chunk = legacyChunk(content);
+        chunk.setPlainText(readPlainText(content));
+        chunk.setHtmlContent(HtmlRenderer.render(chunk.getPlainText()));
+        return Optional.of(chunk);
+    }
+
+    /**
+     * 只读取单个分块的纯文本 (搜索高亮等只需要纯文本的场景)
+     */
+    public Optional<String> readChunkPlainText(ContractContent content, int chunkIndex) {
+        if (isChunked(content)) {
+            return contractContentChunkRepository
+                    .findPlainTextChunk(content.getContractId(), content.getVersionId(), chunkIndex)
+                    .map(chunk -> TextCompression.decode(chunk.getPlainText(), chunk.getPlainTextDeflate()));
+        }
+        return chunkIndex == 0 ? Optional.ofNullable(readPlainText(content)) : Optional.empty();
+    }
+
+    public int chunkCountOf(ContractContent content) {
+        return isChunked(content) ? content.getChunkCount() : 1;
+    }
+
+    private void forEachPlainTextChunk(ContractContent content, ChunkTextConsumer consumer) throws IOException {
+        try (Stream<ContractContentChunk> chunks = contractContentChunkRepository
+                .streamPlainText(content.getContractId(), content.getVersionId())) {
+            chunks.forEach(chunk -> {
+                try {
+                    consumer.accept(TextCompression.decode(chunk.getPlainText(), chunk.getPlainTextDeflate()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeNullable(String text, Writer out) throws IOException {
+        if (text != null) {
+            out.write(text);
+        }
+    }
+
+    private String join(ContractContent content, BiFunction<Long, Long, Stream<ContractContentChunk>> query,
+                        Function<ContractContentChunk, String> field) {
+        StringBuilder text = new StringBuilder(content.getCharCount() == null ? 16 : (int) Math.min(Integer.MAX_VALUE - 8, content.getCharCount()));
+        try (Stream<ContractContentChunk> chunks = query.apply(content.getContractId(), content.getVersionId())) {
+            chunks.forEach(chunk -> text.append(field.apply(chunk)));
+        }
+        return text.toString();
+    }
+
+    private String readLegacy(ContractContent content, Function<String, Optional<ContractContent>> query,
+                              Function<ContractContent, String> field) {
+        return query.apply(content.getId()).map(field).orElse(null);
+    }
+
+    private String timed(String representation, Supplier<String> read) {
+        Timer timer = Timer.builder("contract.content.read")
+                .tag("representation", representation)
+                .register(meterRegistry);
+        return timer.record(read);
+    }
+
+    private static ContractContentChunk decoded(ContractContentChunk chunk) {
+        chunk.setPlainText(TextCompression.decode(chunk.getPlainText(), chunk.getPlainTextDeflate()));
+        chunk.setHtmlContent(HtmlRenderer.render(chunk.getPlainText()));
+        chunk.setPlainTextDeflate(null);
+        return chunk;
+    }
+
+    private static ContractContentChunk legacyChunk(ContractContent content) {
+        ContractContentChunk chunk = new ContractContentChunk();
+        chunk.setContractId(content.getContractId());
+        chunk.setVersionId(content.getVersionId());
+        chunk.setChunkIndex(0);
+        chunk.setPageStart(0);
+        chunk.setPageEnd(0);
+        return chunk;
+    }
+
+    private boolean isChunked(ContractContent content) {
+        return content.getChunkCount() != null;
+    }
+
+    @FunctionalInterface
+    private interface ChunkTextConsumer {
+        void accept(String text) throws IOException;
+    }
+}
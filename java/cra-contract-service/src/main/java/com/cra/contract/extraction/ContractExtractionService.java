@@ -0,0 +1,342 @@
+package com.cra.contract.extraction;
+
+import com.cra.common.exception.BusinessException;
+import com.cra.contract.cache.ContractMetadataCache;
+import com.cra.contract.entity.ContractContent;
+import com.cra.contract.entity.ContractContentChunk;
+import com.cra.contract.entity.ContractVersion;
+import com.cra.contract.event.ContractChangeEvent;
+import com.cra.contract.repository.ContractContentChunkRepository;
+import com.cra.contract.repository.ContractMainRepository;
+import com.cra.contract.repository.ContractVersionRepository;
+import com.cra.contract.storage.ContractFileStorage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 合同文本提取: Tika 解析、ContractContent 持久化
+ * 正文按页分块存储在 contract_content_chunk, ContractContent 只保留元数据和分块数
+ * 只存储纯文本, 超过阈值的分块压缩存储 (TextCompression); HTML 在读取时渲染 (HtmlRenderer)
+ * 提取结果按内容哈希缓存 (ExtractionCache), 相同文件只解析一次
+ * 异步模式下由 MQ 消费者调用, 同步模式下由上传接口在版本提交后直接调用
+ */
+@Service
+public class ContractExtractionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractExtractionService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Value("${contract.extraction.chunk.target-chars:32768}")
+    private int targetChunkChars;
+
+    @Value("${contract.extraction.chunk.max-chars:131072}")
+    private int maxChunkChars;
+
+    // 提取中超过此时长视为处理方已退出 (进程崩溃等), 重复投递或重新提取时可接管; 须大于解析超时加写入正文的时间
+    @Value("${contract.extraction.stale-after:1800000}")
+    private long staleAfterMillis;
+
+    @Value("${contract.content.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${contract.content.compression.min-chars:1024}")
+    private int compressionMinChars;
+
+    @Autowired
+    private ContractVersionRepository contractVersionRepository;
+
+    @Autowired
+    private ContractContentChunkRepository contractContentChunkRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ContractMainRepository contractMainRepository;
+
+    @Autowired
+    private ContractFileStorage contractFileStorage;
+
+    @Autowired
+    private ExtractionCache extractionCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TikaParseEngine tikaParseEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ContractMetadataCache contractMetadataCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 从存储读回原文件, 提取文本并保存合同内容
+     * 消息可能重复投递, 已完成或正由其它消费者提取的版本直接跳过
+     */
+    public void extract(Long versionId) {
+        ContractVersion version = contractVersionRepository.findById(versionId).orElse(null);
+        if (version == null) {
+            // 合同在提取前已被删除
+            logger.warn("版本不存在，跳过文本提取: versionId={}", versionId);
+            return;
+        }
+        // 缓存命中时不需要从存储读回原文件
+        extract(version, () -> contractFileStorage.openRead(version.getStoragePath()));
+    }
+
+    /**
+     * 提取版本正文并更新提取状态, 失败时记录为提取失败并抛出 BusinessException
+     * 同步提取模式下由上传接口在版本记录提交后直接调用, 不占用数据库事务
+     * 开始前用条件更新认领版本 (待提取 / 提取失败 / 提取中已超时 -> 提取中), 同一版本同时只有一个提取在写分块
+     * @param source 原文件, 只在缓存未命中时打开
+     */
+    public void extract(ContractVersion version, InputStreamSource source) {
+        Long versionId = version.getId();
+        if (Integer.valueOf(ContractVersion.EXTRACT_DONE).equals(version.getExtractStatus())) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (contractVersionRepository.claimExtraction(versionId, now, now.minusNanos(staleAfterMillis * 1_000_000)) == 0) {
+            logger.info("版本已提取完成或正由其它消费者提取, 跳过: versionId={}", versionId);
+            return;
+        }
+        // 提取状态只在这里更新, 不发布合同变更事件, 直接让缓存的版本列表失效
+        contractMetadataCache.invalidate(List.of(version.getContractId()));
+        try {
+            extractContent(version, source);
+            contractVersionRepository.updateExtractStatus(versionId, ContractVersion.EXTRACT_DONE, null);
+            eventPublisher.publishEvent(new ContractChangeEvent(version.getContractId(), ContractChangeEvent.Type.CONTENT_EXTRACTED));
+            logger.info("合同文本提取完成: contractId={}, versionId={}", version.getContractId(), versionId);
+        } catch (IOException | TikaException e) {
+            logger.error("合同文本提取失败: versionId={} - {}", versionId, e.getMessage(), e);
+            markFailed(version, e);
+            throw new BusinessException(500, "合同文本提取失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // MongoDB / 数据库等异常, 不能让版本一直停留在提取中
+            logger.error("合同文本提取异常: versionId={} - {}", versionId, e.getMessage(), e);
+            markFailed(version, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 提取中且已超过 stale-after, 处理方视为已退出
+     */
+    public boolean isStale(ContractVersion version) {
+        return version.getExtractStartTime() == null
+                || version.getExtractStartTime().isBefore(LocalDateTime.now().minusNanos(staleAfterMillis * 1_000_000));
+    }
+
+    /**
+     * 记录为提取失败; 状态更新本身失败时 (数据库不可用) 只记日志, 不覆盖原始异常
+     */
+    private void markFailed(ContractVersion version, Exception cause) {
+        try {
+            contractVersionRepository.updateExtractStatus(version.getId(), ContractVersion.EXTRACT_FAILED, truncate(cause.getMessage()));
+        } catch (RuntimeException e) {
+            logger.error("提取失败状态更新失败: versionId={} - {}", version.getId(), e.getMessage());
+        }
+        contractMetadataCache.invalidate(List.of(version.getContractId()));
+    }
+
+    /**
+     * 提取版本正文并保存合同内容 (MongoDB)
+     * 正文边解析边按页分块写入 contract_content_chunk, 不在内存中拼接全文
+     * 按内容哈希查询提取缓存, 命中时不解析, 也不打开文件
+     * @param source 原文件, 只在缓存未命中时打开
+     */
+    public ContractContent extractContent(ContractVersion version, InputStreamSource source) throws IOException, TikaException {
+        // 重复提取(消息重投、失败重试)时先清掉上次写入的分块
+        contractContentChunkRepository.deleteByContractIdAndVersionId(version.getContractId(), version.getId());
+        ChunkWriter writer = new ChunkWriter(version);
+
+        ExtractionResult cached = extractionCache.get(version.getContentHash(), fileSizeOf(version));
+        if (cached != null) {
+            logger.info("命中文本提取缓存, 跳过解析: {}", version.getContentHash());
+            cached.getChunks().forEach(writer::write);
+            return saveContent(version, writer, cached.getPageCount(), cached.getMetadata());
+        }
+
+        PageChunkingHandler handler = new PageChunkingHandler(targetChunkChars, maxChunkChars, writer::write);
+        Metadata metadata;
+        boolean parsed = false;
+        try (InputStream is = source.getInputStream()) {
+            metadata = tikaParseEngine.parse(is, version.getFileName(), handler);
+            handler.finish();
+            parsed = true;
+        } catch (SAXException e) {
+            throw new TikaException("文档内容解析失败: " + e.getMessage(), e);
+        } finally {
+            if (!parsed) {
+                // 超时的解析线程可能还在运行, 之后它输出的分块不能再写入
+                writer.cancel();
+            }
+        }
+        String metadataJson = toJson(metadata);
+        if (writer.collected != null) {
+            extractionCache.put(version.getContentHash(), new ExtractionResult(writer.collected, handler.getPageCount(), metadataJson));
+        }
+        return saveContent(version, writer, handler.getPageCount(), metadataJson);
+    }
+
+    /**
+     * 保存合同内容摘要, 正文在分块集合中, 同一版本重复提取时覆盖原记录
+     * 按 (contractId, versionId) upsert, 只设置这里负责的字段: 提取的条款等其它写入方的字段保持不变,
+     * 历史数据整篇存储的正文显式清除 (正文只存分块)
+     */
+    private ContractContent saveContent(ContractVersion version, ChunkWriter writer, int pageCount, String metadata) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("contractId").is(version.getContractId())
+                .and("versionId").is(version.getId()));
+        query.fields().exclude("ngramTokens", "content", "plainTextContent", "htmlContent", "extractedClauses");
+        Update update = new Update()
+                .set("contentHash", version.getContentHash())
+                .set("chunkCount", writer.chunkIndex)
+                .set("charCount", writer.charCount)
+                .set("pageCount", pageCount)
+                .set("metadata", metadata)
+                .set("creatorId", version.getCreatorId())
+                .set("updateTime", now)
+                .setOnInsert("createTime", now)
+                .unset("plainTextContent")
+                .unset("htmlContent");
+
+        ContractContent saved = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), ContractContent.class);
+        // 仍是最新版本时记录正文文档ID, 读取最新正文时一次主键查询
+        contractMainRepository.updateLatestContentId(version.getContractId(), version.getId(), saved.getId());
+        return saved;
+    }
+
+    /**
+     * 逐块写入 MongoDB, 文本总量不超过缓存单条上限时顺带收集起来写入提取缓存
+     * 解析超时或失败后取消: 解析线程不响应中断时仍会继续输出分块, 取消后一律拒绝写入,
+     * 不会在版本已标记为失败、或重新提取已开始之后再写入分块
+     */
+    private class ChunkWriter {
+
+        private final ContractVersion version;
+
+        private List<ContentChunk> collected = new ArrayList<>();
+
+        private int chunkIndex;
+
+        private long charCount;
+
+        private boolean cancelled;
+
+        private ChunkWriter(ContractVersion version) {
+            this.version = version;
+        }
+
+        private synchronized void write(ContentChunk chunk) {
+            if (cancelled) {
+                // 在解析线程中抛出, 同时让还在运行的解析尽快结束
+                throw new CancellationException("合同文本提取已取消, 不再写入分块: versionId=" + version.getId());
+            }
+            ContractContentChunk document = new ContractContentChunk();
+            document.setContractId(version.getContractId());
+            document.setVersionId(version.getId());
+            document.setChunkIndex(chunkIndex++);
+            document.setPageStart(chunk.getPageStart());
+            document.setPageEnd(chunk.getPageEnd());
+            if (shouldCompress(chunk.getText())) {
+                document.setPlainTextDeflate(TextCompression.deflate(chunk.getText()));
+            } else {
+                document.setPlainText(chunk.getText());
+            }
+            recordStoredBytes(chunk.getText(), document);
+            document.setCreateTime(LocalDateTime.now());
+            contractContentChunkRepository.save(document);
+
+            charCount += chunk.getText().length();
+            if (collected != null) {
+                if (extractionCache.accepts(charCount)) {
+                    collected.add(chunk);
+                } else {
+                    collected = null;
+                }
+            }
+        }
+
+        /**
+         * 等正在写入的分块完成后返回, 此后的写入都被拒绝
+         */
+        private synchronized void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private boolean shouldCompress(String text) {
+        return compressionEnabled && text.length() >= compressionMinChars;
+    }
+
+    /**
+     * 压缩前后的正文字节数, 两个计数器之比即为存储压缩率
+     */
+    private void recordStoredBytes(String text, ContractContentChunk document) {
+        long raw = text.getBytes(StandardCharsets.UTF_8).length;
+        long stored = document.getPlainTextDeflate() == null ? raw : document.getPlainTextDeflate().length;
+        Counter.builder("contract.content.stored.bytes").tag("form", "raw").register(meterRegistry).increment(raw);
+        Counter.builder("contract.content.stored.bytes").tag("form", "stored").register(meterRegistry).increment(stored);
+    }
+
+    private String toJson(Metadata metadata) {
+        Map<String, String> values = new TreeMap<>();
+        for (String name : metadata.names()) {
+            values.put(name, metadata.get(name));
+        }
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            logger.warn("文档元数据序列化失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private long fileSizeOf(ContractVersion version) {
+        return version.getFileSize() == null ? 0L : version.getFileSize();
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
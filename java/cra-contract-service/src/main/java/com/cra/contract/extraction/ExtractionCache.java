@@ -0,0 +1,169 @@
+package com.cra.contract.extraction;
+
+import com.cra.contract.entity.ExtractionCacheEntry;
+import com.cra.contract.repository.ExtractionCacheRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文本提取结果缓存, 按内容哈希索引
+ * 同一份模板文件在不同合同中反复上传时, 直接复用已有的提取结果, 不再走 Tika 解析
+ * 两级: 进程内 Caffeine (按估算字节数淘汰) + 可选的 MongoDB extraction_cache 集合 (实例间共享, 重启后仍有效)
+ * 提取逻辑有变化时调大 EXTRACTOR_VERSION, 旧缓存自然失效
+ */
+@Component
+public class ExtractionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCache.class);
+
+    // 提取逻辑版本号, 作为缓存键前缀
+    static final int EXTRACTOR_VERSION = 3;
+
+    @Value("${contract.extraction.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${contract.extraction.cache.max-memory-mb:256}")
+    private long maxMemoryMb;
+
+    // 单条缓存的最大字符数, 超出的大文档不缓存 (MongoDB 单个文档不能超过 16MB)
+    @Value("${contract.extraction.cache.max-entry-chars:2000000}")
+    private long maxEntryChars;
+
+    @Value("${contract.extraction.cache.persistent:true}")
+    private boolean persistent;
+
+    @Autowired
+    private ExtractionCacheRepository extractionCacheRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, ExtractionResult> memoryCache;
+
+    private Counter memoryHitCounter;
+
+    private Counter persistentHitCounter;
+
+    private Counter missCounter;
+
+    private Counter bytesSavedCounter;
+
+    @PostConstruct
+    public void init() {
+        memoryCache = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryMb * 1024 * 1024)
+                .weigher((String key, ExtractionResult value) -> (int) Math.min(Integer.MAX_VALUE, value.estimatedBytes()))
+                .build();
+
+        memoryHitCounter = Counter.builder("contract.extraction.cache")
+                .tag("result", "hit").tag("tier", "memory")
+                .description("文本提取缓存查询次数")
+                .register(meterRegistry);
+        persistentHitCounter = Counter.builder("contract.extraction.cache")
+                .tag("result", "hit").tag("tier", "mongo")
+                .register(meterRegistry);
+        missCounter = Counter.builder("contract.extraction.cache")
+                .tag("result", "miss").tag("tier", "none")
+                .register(meterRegistry);
+        bytesSavedCounter = Counter.builder("contract.extraction.cache.bytes.saved")
+                .baseUnit("bytes")
+                .description("命中缓存而跳过解析的原始文件字节数")
+                .register(meterRegistry);
+        Gauge.builder("contract.extraction.cache.hit.ratio", this, ExtractionCache::hitRatio)
+                .description("文本提取缓存命中率")
+                .register(meterRegistry);
+        Gauge.builder("contract.extraction.cache.memory.size", memoryCache, Cache::estimatedSize)
+                .description("进程内缓存条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询缓存, 未命中返回 null
+     * @param fileSize 原始文件大小, 命中时计入节省的字节数
+     */
+    public ExtractionResult get(String contentHash, long fileSize) {
+        if (!enabled) {
+            return null;
+        }
+        String key = keyOf(contentHash);
+        ExtractionResult result = memoryCache.getIfPresent(key);
+        if (result != null) {
+            memoryHitCounter.increment();
+            bytesSavedCounter.increment(fileSize);
+            return result;
+        }
+        if (persistent) {
+            result = loadPersistent(key);
+            if (result != null) {
+                memoryCache.put(key, result);
+                persistentHitCounter.increment();
+                bytesSavedCounter.increment(fileSize);
+                return result;
+            }
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 文本总量为 chars 的文档是否可以缓存
+     */
+    public boolean accepts(long chars) {
+        return enabled && chars <= maxEntryChars;
+    }
+
+    public void put(String contentHash, ExtractionResult result) {
+        if (!enabled) {
+            return;
+        }
+        String key = keyOf(contentHash);
+        memoryCache.put(key, result);
+        if (persistent) {
+            try {
+                ExtractionCacheEntry entry = new ExtractionCacheEntry();
+                entry.setId(key);
+                entry.setChunks(result.getChunks());
+                entry.setPageCount(result.getPageCount());
+                entry.setMetadata(result.getMetadata());
+                entry.setCreateTime(LocalDateTime.now());
+                extractionCacheRepository.save(entry);
+            } catch (Exception e) {
+                // 持久层只是缓存, 写入失败不影响提取结果
+                logger.warn("文本提取结果写入缓存失败: {} - {}", contentHash, e.getMessage());
+            }
+        }
+    }
+
+    private ExtractionResult loadPersistent(String key) {
+        try {
+            return extractionCacheRepository.findById(key)
+                    .map(entry -> new ExtractionResult(entry.getChunks(),
+                            entry.getPageCount() == null ? 0 : entry.getPageCount(), entry.getMetadata()))
+                    .orElse(null);
+        } catch (Exception e) {
+            logger.warn("读取文本提取缓存失败: {} - {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private double hitRatio() {
+        double hits = memoryHitCounter.count() + persistentHitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private String keyOf(String contentHash) {
+        return EXTRACTOR_VERSION + ":" + contentHash;
+    }
+}
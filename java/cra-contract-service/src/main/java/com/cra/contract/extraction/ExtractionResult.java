@@ -0,0 +1,33 @@
+package com.cra.contract.extraction;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 文本提取结果, 只与文件内容有关, 按内容哈希缓存
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionResult {
+
+    private List<ContentChunk> chunks; // 按页切分的正文
+
+    private int pageCount; // 页数 (不分页的文档为 0)
+
+    private String metadata; // 文档元数据 (JSON格式)
+
+    /**
+     * 内存占用估算 (字节), 用于缓存按容量淘汰
+     */
+    public long estimatedBytes() {
+        long chars = metadata == null ? 0 : metadata.length();
+        for (ContentChunk chunk : chunks) {
+            chars += chunk.getText().length();
+        }
+        return 2L * chars;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cra.contract.extraction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 正文纯文本渲染为展示用 HTML
+ * 单次遍历: 转义 HTML 特殊字符, 换行转为 &lt;br&gt;, 制表符转为 4 个 &amp;nbsp;, 其余字符按原样成段写出
+ * 不再在提取时生成并存储 HTML, 读取时按需渲染, 结果按 (内容哈希, 渲染版本) 缓存 (见 RenderedHtmlCache)
+ */
+public final class HtmlRenderer {
+
+    // 渲染规则版本号, 作为缓存键的一部分; 输出有变化时调大, 旧缓存自然失效
+    public static final int VERSION = 1;
+
+    private static final String TAB = "&nbsp;&nbsp;&nbsp;&nbsp;";
+
+    private HtmlRenderer() {
+    }
+
+    public static String render(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder html = new StringBuilder(text.length() + text.length() / 8 + 16);
+        try {
+            render(text, html);
+        } catch (IOException e) {
+            // StringBuilder 不会抛出 IOException
+            throw new UncheckedIOException(e);
+        }
+        return html.toString();
+    }
+
+    /**
+     * 渲染并直接写入输出 (响应流或缓冲区), 不在内存中生成中间字符串
+     */
+    public static void render(CharSequence text, Appendable out) throws IOException {
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '&' -> replacement = "&amp;";
+                case '<' -> replacement = "&lt;";
+                case '>' -> replacement = "&gt;";
+                case '"' -> replacement = "&quot;";
+                case '\'' -> replacement = "&#39;";
+                case '\t' -> replacement = TAB;
+                case '\n' -> replacement = "<br>";
+                case '\r' -> {
+                    // \r\n 只换一行
+                    if (i + 1 < length && text.charAt(i + 1) == '\n') {
+                        replacement = "";
+                    } else {
+                        replacement = "<br>";
+                    }
+                }
+                default -> replacement = null;
+            }
+            if (replacement != null) {
+                out.append(text, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, length);
+    }
+}
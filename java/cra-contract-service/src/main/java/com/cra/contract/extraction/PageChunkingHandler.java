@@ -0,0 +1,115 @@
+package com.cra.contract.extraction;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * 按页切分正文的 SAX 处理器
+ * Tika 解析 PDF 时每页输出一个 &lt;div class="page"&gt;, 页结束时累计文本达到 targetChunkChars 就输出一个分块;
+ * 不分页的格式或单页过长时, 累计到 maxChunkChars 强制切分. 内存中最多只保留一个分块的文本
+ * 输出的文本与 Tika 纯文本输出一致 (characters + ignorableWhitespace)
+ */
+public class PageChunkingHandler extends DefaultHandler {
+
+    private final int targetChunkChars;
+
+    private final int maxChunkChars;
+
+    private final Consumer<ContentChunk> listener;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    // 记录每层 div 是否为页面 div, 用于匹配页面结束标签
+    private final Deque<Boolean> divStack = new ArrayDeque<>();
+
+    private int pageCount;
+
+    private int chunkStartPage;
+
+    public PageChunkingHandler(int targetChunkChars, int maxChunkChars, Consumer<ContentChunk> listener) {
+        this.targetChunkChars = targetChunkChars;
+        this.maxChunkChars = Math.max(targetChunkChars, maxChunkChars);
+        this.listener = listener;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if ("div".equals(localName)) {
+            boolean page = "page".equals(attributes.getValue("class"));
+            divStack.push(page);
+            if (page) {
+                pageCount++;
+                if (buffer.length() == 0) {
+                    chunkStartPage = pageCount;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if ("div".equals(localName) && !divStack.isEmpty() && divStack.pop() && buffer.length() >= targetChunkChars) {
+            flush(buffer.length());
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        append(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        append(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        finish();
+    }
+
+    /**
+     * 输出剩余文本, 可重复调用
+     */
+    public void finish() throws SAXException {
+        if (buffer.length() > 0) {
+            flush(buffer.length());
+        }
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    private void append(char[] ch, int start, int length) throws SAXException {
+        int offset = start;
+        int remaining = length;
+        while (remaining > 0) {
+            int count = Math.min(remaining, maxChunkChars - buffer.length());
+            buffer.append(ch, offset, count);
+            offset += count;
+            remaining -= count;
+            if (buffer.length() >= maxChunkChars) {
+                // 不在代理对中间切开
+                int end = Character.isHighSurrogate(buffer.charAt(buffer.length() - 1)) ? buffer.length() - 1 : buffer.length();
+                flush(end);
+            }
+        }
+    }
+
+    private void flush(int end) throws SAXException {
+        // 解析超时后解析线程会被中断, 不再继续写入分块
+        if (Thread.currentThread().isInterrupted()) {
+            throw new SAXException("文档解析已取消");
+        }
+        listener.accept(new ContentChunk(buffer.substring(0, end), chunkStartPage, pageCount));
+        buffer.delete(0, end);
+        // 强制切分时后续文本仍属于当前页; 在页结束时切分的, 下一页开始时会重新设置
+        chunkStartPage = pageCount;
+    }
+}
@@ -0,0 +1,89 @@
+package com.cra.contract.extraction;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * 正文 HTML 渲染结果缓存, 按 (内容哈希, 渲染版本) 索引
+ * 内容相同的文件渲染结果相同, 多个合同 / 版本共用一条; 渲染规则变化时只需调大 HtmlRenderer.VERSION
+ * 只在进程内缓存 (按估算字节数淘汰), 渲染本身是单次遍历, 未命中的代价只是读取正文
+ */
+@Component
+public class RenderedHtmlCache {
+
+    @Value("${contract.content.html.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${contract.content.html.cache.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    // 单条缓存的最大字符数, 更大的文档每次直接流式渲染到响应
+    @Value("${contract.content.html.cache.max-entry-chars:1000000}")
+    private long maxEntryChars;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, String> cache;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryMb * 1024 * 1024)
+                .weigher((String key, String value) -> (int) Math.min(Integer.MAX_VALUE, 2L * value.length()))
+                .build();
+
+        hitCounter = Counter.builder("contract.content.html.cache")
+                .tag("result", "hit")
+                .description("正文 HTML 渲染缓存查询次数")
+                .register(meterRegistry);
+        missCounter = Counter.builder("contract.content.html.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("contract.content.html.cache.size", cache, Cache::estimatedSize)
+                .description("正文 HTML 渲染缓存条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 正文长度是否适合缓存; 没有内容哈希 (历史数据) 时不缓存
+     */
+    public boolean accepts(String contentHash, Long charCount) {
+        return enabled && contentHash != null && (charCount == null || charCount <= maxEntryChars);
+    }
+
+    /**
+     * 查询缓存, 未命中时渲染并写入
+     */
+    public String get(String contentHash, Supplier<String> render) {
+        String key = keyOf(contentHash);
+        String html = cache.getIfPresent(key);
+        if (html != null) {
+            hitCounter.increment();
+            return html;
+        }
+        missCounter.increment();
+        html = render.get();
+        if (html != null) {
+            cache.put(key, html);
+        }
+        return html;
+    }
+
+    private String keyOf(String contentHash) {
+        return "v" + HtmlRenderer.VERSION + ":" + contentHash;
+    }
+}
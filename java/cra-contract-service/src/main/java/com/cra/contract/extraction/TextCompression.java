@@ -0,0 +1,64 @@
+package com.cra.contract.extraction;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 正文分块的文本压缩 (zlib deflate, JDK 自带, 不引入额外依赖)
+ * 超过阈值的文本以 UTF-8 编码后压缩存为二进制字段, 读取时由 ContractContentReader 解压, 调用方看到的仍是字符串
+ */
+public final class TextCompression {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private TextCompression() {
+    }
+
+    public static byte[] deflate(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 3));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("压缩正文数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("压缩正文数据损坏: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 压缩存储的文本优先, 否则为原文 (阈值以下或压缩前写入的数据)
+     */
+    public static String decode(String text, byte[] deflated) {
+        return deflated != null ? inflate(deflated) : text;
+    }
+}
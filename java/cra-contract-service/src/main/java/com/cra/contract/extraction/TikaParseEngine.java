@@ -0,0 +1,197 @@
+package com.cra.contract.extraction;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.microsoft.ooxml.OOXMLParser;
+import org.apache.tika.parser.pdf.PDFParser;
+import org.apache.tika.parser.pdf.PDFParserConfig;
+import org.apache.tika.sax.BodyContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tika 解析引擎
+ * - 解析在 contractParseExecutor 线程池中执行, 单个文档超时后放弃等待并中断解析线程;
+ *   Tika / PDFBox 基本不响应中断, 超时的解析会继续占用一个解析线程直到自行结束, 调用方须在超时后拒绝它的输出
+ *   (见 ContractExtractionService.ChunkWriter); 需要真正终止卡死的解析时开启 fork.enabled, 超时后子进程被销毁
+ * - 正文不在这里拼接, 由调用方的 ContentHandler 边解析边处理 (见 PageChunkingHandler); PDF 解析占用的内存有上限
+ * - PDF / DOCX 直接使用启动时创建好的 PDFParser / OOXMLParser, 不再逐个文件自动检测类型, 其它类型才走 AutoDetectParser
+ * - 可选 ForkParser: 在子 JVM 中解析, 畸形文件导致的 OOM 或死循环不影响主进程
+ * 解析耗时按 MIME 类型和结果记录到 contract.extraction.parse
+ */
+@Component
+public class TikaParseEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TikaParseEngine.class);
+
+    private static final String MIME_PDF = "application/pdf";
+
+    private static final String MIME_DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
+    private static final String MIME_OTHER = "other";
+
+    @Value("${contract.extraction.parser.timeout:60000}")
+    private long timeoutMillis;
+
+    @Value("${contract.extraction.parser.pdf-max-memory-mb:256}")
+    private long pdfMaxMemoryMb;
+
+    @Value("${contract.extraction.parser.fork.enabled:false}")
+    private boolean forkEnabled;
+
+    @Value("${contract.extraction.parser.fork.pool-size:2}")
+    private int forkPoolSize;
+
+    @Autowired
+    @Qualifier("contractParseExecutor")
+    private AsyncTaskExecutor parseExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Parser pdfParser;
+
+    private Parser docxParser;
+
+    private Parser autoDetectParser;
+
+    private PDFParserConfig pdfParserConfig;
+
+    private ForkParser forkParser;
+
+    @PostConstruct
+    public void init() {
+        // 解析器本身无状态, 可以在线程间共享
+        pdfParser = new PDFParser();
+        docxParser = new OOXMLParser();
+        autoDetectParser = new AutoDetectParser();
+
+        pdfParserConfig = new PDFParserConfig();
+        pdfParserConfig.setMaxMainMemoryBytes(pdfMaxMemoryMb * 1024 * 1024);
+        pdfParserConfig.setExtractInlineImages(false);
+
+        if (forkEnabled) {
+            forkParser = new ForkParser(TikaParseEngine.class.getClassLoader(), autoDetectParser);
+            forkParser.setPoolSize(forkPoolSize);
+            forkParser.setServerParseTimeoutMillis(timeoutMillis);
+            logger.info("文档解析使用子进程隔离, 进程数: {}", forkPoolSize);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (forkParser != null) {
+            forkParser.close();
+        }
+    }
+
+    /**
+     * 解析文档, 正文以 SAX 事件输出到 contentHandler, 不负责关闭输入流
+     * @return 文档元数据
+     */
+    public Metadata parse(InputStream is, String fileName, ContentHandler contentHandler) throws IOException, TikaException {
+        String mimeType = mimeTypeOf(fileName);
+        Parser parser = forkParser != null ? forkParser : parserOf(mimeType);
+
+        Metadata metadata = new Metadata();
+        metadata.set("resourceName", fileName);
+        BodyContentHandler handler = new BodyContentHandler(contentHandler);
+        // 不设置 Parser.class, 嵌入文档(附件、OLE对象)不解析
+        ParseContext context = new ParseContext();
+        context.set(PDFParserConfig.class, pdfParserConfig);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        Future<?> future = null;
+        try {
+            future = parseExecutor.submit(() -> {
+                parser.parse(is, handler, metadata, context);
+                return null;
+            });
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            outcome = "success";
+        } catch (TaskRejectedException e) {
+            outcome = "rejected";
+            throw new TikaException("解析任务过多，请稍后重试", e);
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            future.cancel(true);
+            throw new TikaException("文档解析超时(" + timeoutMillis + "ms): " + fileName);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new TikaException("文档解析被中断: " + fileName, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw asTikaException(cause);
+        } finally {
+            sample.stop(Timer.builder("contract.extraction.parse")
+                    .tag("mime", mimeType)
+                    .tag("outcome", outcome)
+                    .description("文档解析耗时")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        return metadata;
+    }
+
+    private Parser parserOf(String mimeType) {
+        switch (mimeType) {
+            case MIME_PDF:
+                return pdfParser;
+            case MIME_DOCX:
+                return docxParser;
+            default:
+                return autoDetectParser;
+        }
+    }
+
+    private String mimeTypeOf(String fileName) {
+        String lowerName = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (lowerName.endsWith(".pdf")) {
+            return MIME_PDF;
+        }
+        if (lowerName.endsWith(".docx")) {
+            return MIME_DOCX;
+        }
+        return MIME_OTHER;
+    }
+
+    private TikaException asTikaException(Throwable cause) {
+        if (cause instanceof TikaException tikaException) {
+            return tikaException;
+        }
+        if (cause instanceof SAXException) {
+            return new TikaException("文档内容解析失败: " + cause.getMessage(), cause);
+        }
+        // 解析器内部的运行时异常统一包装
+        return new TikaException("文档解析异常: " + cause, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package com.cra.contract.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 流式读取上传文件后的结果
+ */
+@Data
+@AllArgsConstructor
+public class IngestResult {
+
+    private String contentHash; // 内容哈希
+
+    private String storagePath; // 存储路径
+
+    private long fileSize; // 实际读取的字节数
+}
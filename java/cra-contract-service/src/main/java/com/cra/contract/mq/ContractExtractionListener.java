@@ -0,0 +1,24 @@
+package com.cra.contract.mq;
+
+import com.cra.contract.extraction.ContractExtractionService;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文本提取消费者 (竞争消费, 多实例/多线程共享同一个队列)
+ * contract.extraction.consumer-enabled=false 时不启动, 可以让 API 实例只负责接收上传, 提取交给单独部署的 worker
+ */
+@Component
+public class ContractExtractionListener {
+
+    @Autowired
+    private ContractExtractionService contractExtractionService;
+
+    @RabbitListener(queues = "${contract.extraction.queue}",
+            autoStartup = "${contract.extraction.consumer-enabled:true}")
+    public void onExtractionTask(ExtractionTask task) {
+        // 抛出异常会触发重试, 重试用尽后进入死信队列
+        contractExtractionService.extract(task.getVersionId());
+    }
+}
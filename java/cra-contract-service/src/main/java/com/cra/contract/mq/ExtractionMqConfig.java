@@ -0,0 +1,75 @@
+package com.cra.contract.mq;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文本提取队列配置
+ * 提取队列消费失败且重试次数用尽后, 消息被拒绝并转入死信队列, 便于人工排查后重新投递
+ * 消费者并发数 / prefetch / 重试策略见 application.yml 中 spring.rabbitmq.listener.simple
+ */
+@Configuration
+public class ExtractionMqConfig {
+
+    @Value("${contract.extraction.exchange}")
+    private String exchange;
+
+    @Value("${contract.extraction.queue}")
+    private String queue;
+
+    @Value("${contract.extraction.routing-key}")
+    private String routingKey;
+
+    @Value("${contract.extraction.dead-letter-exchange}")
+    private String deadLetterExchange;
+
+    @Value("${contract.extraction.dead-letter-queue}")
+    private String deadLetterQueue;
+
+    @Bean
+    public DirectExchange extractionExchange() {
+        return new DirectExchange(exchange, true, false);
+    }
+
+    @Bean
+    public Queue extractionQueue() {
+        return QueueBuilder.durable(queue)
+                .deadLetterExchange(deadLetterExchange)
+                .deadLetterRoutingKey(routingKey)
+                .build();
+    }
+
+    @Bean
+    public Binding extractionBinding() {
+        return BindingBuilder.bind(extractionQueue()).to(extractionExchange()).with(routingKey);
+    }
+
+    @Bean
+    public DirectExchange extractionDeadLetterExchange() {
+        return new DirectExchange(deadLetterExchange, true, false);
+    }
+
+    @Bean
+    public Queue extractionDeadLetterQueue() {
+        return QueueBuilder.durable(deadLetterQueue).build();
+    }
+
+    @Bean
+    public Binding extractionDeadLetterBinding() {
+        return BindingBuilder.bind(extractionDeadLetterQueue()).to(extractionDeadLetterExchange()).with(routingKey);
+    }
+
+    // 消息体使用 JSON, RabbitTemplate 和监听容器会自动使用该转换器
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
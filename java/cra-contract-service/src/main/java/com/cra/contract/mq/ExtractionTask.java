@@ -0,0 +1,18 @@
+package com.cra.contract.mq;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文本提取任务消息: 上传接口落盘入库后投递, 由提取消费者处理
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionTask {
+
+    private Long contractId; // 合同ID
+
+    private Long versionId; // 版本ID
+}
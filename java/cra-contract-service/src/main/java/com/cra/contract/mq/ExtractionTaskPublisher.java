@@ -0,0 +1,55 @@
+package com.cra.contract.mq;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 投递文本提取任务
+ */
+@Component
+public class ExtractionTaskPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionTaskPublisher.class);
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Value("${contract.extraction.exchange}")
+    private String exchange;
+
+    @Value("${contract.extraction.routing-key}")
+    private String routingKey;
+
+    /**
+     * 在当前事务提交后投递, 避免消费者先于版本记录提交而查不到数据
+     * 没有事务时直接投递
+     */
+    public void publishAfterCommit(ExtractionTask task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(task);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(task);
+            }
+        });
+    }
+
+    public void publish(ExtractionTask task) {
+        try {
+            rabbitTemplate.convertAndSend(exchange, routingKey, task);
+            logger.info("已投递文本提取任务: contractId={}, versionId={}", task.getContractId(), task.getVersionId());
+        } catch (Exception e) {
+            // 版本记录已提交, 这里只记录日志, 版本会停留在待提取状态
+            logger.error("投递文本提取任务失败: versionId={} - {}", task.getVersionId(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.entity.ContractBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ContractBlobRepository extends JpaRepository<ContractBlob, Long> {
+    
+    @Query("SELECT b.storagePath FROM ContractBlob b WHERE b.contentHash = :contentHash")
+    Optional<String> findStoragePathByContentHash(@Param("contentHash") String contentHash);
+    
+    // 按 id 顺序分批扫描 (启动时重建布隆过滤器)
+    List<ContractBlob> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // 内容哈希已存在时不插入, 返回 0 (依赖 content_hash 唯一索引, 并发上传同一文件时只有一个能插入成功)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO contract_blob (content_hash, storage_path, file_size, ref_count, create_time) "
+            + "VALUES (:contentHash, :storagePath, :fileSize, 1, now()) ON CONFLICT (content_hash) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("contentHash") String contentHash, @Param("storagePath") String storagePath, @Param("fileSize") Long fileSize);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractBlob b SET b.refCount = b.refCount + 1 WHERE b.contentHash = :contentHash")
+    int incrementRefCount(@Param("contentHash") String contentHash);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractBlob b SET b.refCount = b.refCount - 1 WHERE b.contentHash = :contentHash")
+    int decrementRefCount(@Param("contentHash") String contentHash);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ContractBlob b WHERE b.contentHash = :contentHash AND b.refCount <= 0")
+    int deleteUnreferenced(@Param("contentHash") String contentHash);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractBlob b SET b.storagePath = :newPath WHERE b.storagePath = :oldPath")
+    int updateStoragePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+}
@@ -0,0 +1,24 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.entity.ContractContentChunk;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ContractContentChunkRepository extends MongoRepository<ContractContentChunk, String> {
+    
+    // 不读取历史数据残留的字段
+    @Query(value = "{ 'contractId': ?0, 'versionId': ?1, 'chunkIndex': ?2 }", fields = "{ 'ngramTokens': 0, 'htmlContent': 0, 'htmlContentDeflate': 0 }")
+    Optional<ContractContentChunk> findByContractIdAndVersionIdAndChunkIndex(Long contractId, Long versionId, Integer chunkIndex);
+    
+    // 游标方式逐块读取, 调用方负责关闭; 只读取纯文本 (原文和压缩后的二进制二者之一有值)
+    @Query(value = "{ 'contractId': ?0, 'versionId': ?1 }", fields = "{ 'chunkIndex': 1, 'plainText': 1, 'plainTextDeflate': 1 }", sort = "{ 'chunkIndex': 1 }")
+    Stream<ContractContentChunk> streamPlainText(Long contractId, Long versionId);
+    
+    @Query(value = "{ 'contractId': ?0, 'versionId': ?1, 'chunkIndex': ?2 }", fields = "{ 'chunkIndex': 1, 'plainText': 1, 'plainTextDeflate': 1 }")
+    Optional<ContractContentChunk> findPlainTextChunk(Long contractId, Long versionId, Integer chunkIndex);
+    
+    void deleteByContractIdAndVersionId(Long contractId, Long versionId);
+}
@@ -9,17 +9,33 @@ import java.util.Optional;
 
 public interface ContractContentRepository extends MongoRepository<ContractContent, String> {
     
+    // 查询只返回元数据 (分块数、页数等), 不读取历史数据整篇存储的正文字段和残留的 n-gram 词元 (后台清除中);
+    // 正文由 ContractContentReader 按需要的表示方式单独读取
+    String HEADER_FIELDS = "{ 'ngramTokens': 0, 'content': 0, 'plainTextContent': 0, 'htmlContent': 0, 'extractedClauses': 0 }";
+    
+    // 走 (contractId, versionId) 唯一索引
+    @Query(value = "{ 'contractId': ?0, 'versionId': ?1 }", fields = HEADER_FIELDS)
     Optional<ContractContent> findByContractIdAndVersionId(Long contractId, Long versionId);
     
+    // 按合同上记录的最新正文文档ID读取, 一次主键查询
+    @Query(value = "{ '_id': ?0 }", fields = HEADER_FIELDS)
+    Optional<ContractContent> findContentById(String id);
+    
+    @Query(value = "{ 'contractId': ?0 }", fields = HEADER_FIELDS)
     List<ContractContent> findByContractId(Long contractId);
     
     List<ContractContent> findByVersionId(Long versionId);
     
-    @Query("{ 'plainTextContent': { $regex: ?0, $options: 'i' } }")
-    List<ContractContent> findByPlainTextContentContaining(String keyword);
+    // 补齐合同的最新正文文档ID, 只取关联字段
+    @Query(value = "{ 'versionId': { $in: ?0 } }", fields = "{ 'contractId': 1, 'versionId': 1 }")
+    List<ContractContent> findIdsByVersionIdIn(List<Long> versionIds);
+    
+    // 历史数据整篇存储的正文, 每次只读取一个字段
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'plainTextContent': 1 }")
+    Optional<ContractContent> findLegacyPlainText(String id);
     
-    @Query("{ $and: [ { 'contractId': ?0 }, { 'plainTextContent': { $regex: ?1, $options: 'i' } } ] }")
-    List<ContractContent> findByContractIdAndPlainTextContentContaining(Long contractId, String keyword);
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'content': 1 }")
+    Optional<ContractContent> findLegacyContent(String id);
     
     void deleteByContractIdAndVersionId(Long contractId, Long versionId);
 }
@@ -0,0 +1,63 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.dto.ContractSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 游标分页位置: 按 (sortBy, id) 排序, 从 (lastValue, lastId) 之后开始取; lastId 为空表示第一页
+ * 对外以游标字符串传递 (Base64url 编码的 "sortBy|asc|lastId|lastValue"), 排序方式跟随游标, 翻页过程中不会变
+ */
+@Data
+@AllArgsConstructor
+public class ContractKeyset {
+
+    private static final String SEPARATOR = "|";
+
+    private String sortBy; // 排序属性, 必须在 ContractMainRepositoryCustom.SORTABLE 中
+
+    private boolean ascending; // 是否升序, id 与 sortBy 同向
+
+    private Comparable<?> lastValue; // 上一页最后一行的排序属性值
+
+    private Long lastId; // 上一页最后一行的 id
+
+    public static ContractKeyset first(String sortBy, boolean ascending) {
+        return new ContractKeyset(sortBy, ascending, null, null);
+    }
+
+    /**
+     * 以 last 为上一页末行生成下一页游标
+     */
+    public String nextCursor(ContractSummary last) {
+        String value = switch (sortBy) {
+            case "createTime" -> last.getCreateTime().toString();
+            case "contractNumber" -> last.getContractNumber();
+            default -> "";
+        };
+        String raw = sortBy + SEPARATOR + ascending + SEPARATOR + last.getId() + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标, 格式不正确时抛出 IllegalArgumentException
+     */
+    public static ContractKeyset fromCursor(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        // 合同编号中可能含有分隔符, 只切前三段
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length != 4 || !ContractMainRepositoryCustom.SORTABLE.contains(parts[0])) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        Comparable<?> lastValue = switch (parts[0]) {
+            case "createTime" -> LocalDateTime.parse(parts[3]);
+            case "contractNumber" -> parts[3];
+            default -> null;
+        };
+        return new ContractKeyset(parts[0], Boolean.parseBoolean(parts[1]), lastValue, Long.valueOf(parts[2]));
+    }
+}
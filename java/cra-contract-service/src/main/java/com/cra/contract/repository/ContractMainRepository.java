@@ -4,14 +4,19 @@ import com.cra.contract.entity.ContractMain;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ContractMainRepository extends JpaRepository<ContractMain, Long> {
+public interface ContractMainRepository extends JpaRepository<ContractMain, Long>, ContractMainRepositoryCustom {
     
     Optional<ContractMain> findByContractNumber(String contractNumber);
     
@@ -27,9 +32,57 @@ public interface ContractMainRepository extends JpaRepository<ContractMain, Long
     
     Page<ContractMain> findByContractNameContainingOrContractNumberContaining(String contractName, String contractNumber, Pageable pageable);
     
+    // 批量状态变更: 每行为 [id, status]
+    @Query("SELECT c.id, c.status FROM ContractMain c WHERE c.id IN :ids")
+    List<Object[]> findStatusByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // 只改当前状态为 expected 的合同, 返回实际变更行数
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ContractMain c SET c.status = :target, c.updateTime = :now, c.lockVersion = c.lockVersion + 1 "
+            + "WHERE c.id IN :ids AND c.status = :expected")
+    int updateStatusIfMatches(@Param("ids") Collection<Long> ids, @Param("expected") Integer expected,
+                              @Param("target") Integer target, @Param("now") LocalDateTime now);
+    
+    // 新建版本: 每行为 [lockVersion, latestVersionNumber]
+    @Query("SELECT c.lockVersion, c.latestVersionNumber FROM ContractMain c WHERE c.id = :id")
+    List<Object[]> findVersionState(@Param("id") Long id);
+    
+    // 按乐观锁版本号领取新版本号, 返回 0 表示期间合同已被修改 (并发上传等), 需重新读取后重试
+    // 成功后本事务持有该行的行锁直到提交, 同一合同的其它上传在此等待
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ContractMain c SET c.latestVersionNumber = :number, c.latestVersionId = null, c.latestContentId = null, "
+            + "c.lockVersion = c.lockVersion + 1 WHERE c.id = :id AND c.lockVersion = :lockVersion")
+    int claimVersionNumber(@Param("id") Long id, @Param("lockVersion") Long lockVersion, @Param("number") Integer number);
+    
+    // 领取版本号后写入新版本ID, 行锁已在本事务中
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ContractMain c SET c.latestVersionId = :versionId WHERE c.id = :id AND c.latestVersionNumber = :number")
+    int updateLatestVersionId(@Param("id") Long id, @Param("number") Integer number, @Param("versionId") Long versionId);
+    
+    // 正文提取完成后记录正文文档ID, 期间已有更新的版本时不覆盖; 派生字段, 不改乐观锁版本号
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractMain c SET c.latestContentId = :contentId WHERE c.id = :id AND c.latestVersionId = :versionId")
+    int updateLatestContentId(@Param("id") Long id, @Param("versionId") Long versionId, @Param("contentId") String contentId);
+    
+    // 统计校正 (ContractStatService), 每行为 [取值, 数量]
+    @Query("SELECT c.status, COUNT(c) FROM ContractMain c GROUP BY c.status")
+    List<Object[]> countGroupByStatus();
+    
+    @Query("SELECT c.category, COUNT(c) FROM ContractMain c GROUP BY c.category")
+    List<Object[]> countGroupByCategory();
+    
+    @Query("SELECT c.department, COUNT(c) FROM ContractMain c GROUP BY c.department")
+    List<Object[]> countGroupByDepartment();
+    
+    // 每行为 [年, 月, 数量]
+    @Query("SELECT YEAR(c.createTime), MONTH(c.createTime), COUNT(c) FROM ContractMain c "
+            + "GROUP BY YEAR(c.createTime), MONTH(c.createTime)")
+    List<Object[]> countGroupByCreateMonth();
+    
     @Query("SELECT c FROM ContractMain c WHERE c.startDate BETWEEN :startDate AND :endDate")
-    List<ContractMain> findByStartDateBetween(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+    List<ContractMain> findByStartDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
     @Query("SELECT c FROM ContractMain c WHERE c.amount BETWEEN :minAmount AND :maxAmount")
-    List<ContractMain> findByAmountBetween(@Param("minAmount") Double minAmount, @Param("maxAmount") Double maxAmount);
+    List<ContractMain> findByAmountBetween(@Param("minAmount") BigDecimal minAmount, @Param("maxAmount") BigDecimal maxAmount);
 }
@@ -0,0 +1,28 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.dto.ContractFilter;
+import com.cra.contract.dto.ContractSummary;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 合同列表的条件查询, 由 ContractMainRepositoryImpl 以 Criteria API 实现
+ */
+public interface ContractMainRepositoryCustom {
+
+    // 可排序属性, 都有 (属性, id) 或唯一索引支撑
+    Set<String> SORTABLE = Set.of("createTime", "contractNumber", "id");
+
+    /**
+     * 按游标位置取一页列表行
+     */
+    List<ContractSummary> findSummaries(ContractFilter filter, ContractKeyset keyset, int limit);
+
+    /**
+     * 计数, 最多数到 cap + 1 条即停止
+     */
+    long countCapped(ContractFilter filter, int cap);
+
+    long count(ContractFilter filter);
+}
@@ -0,0 +1,130 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.dto.ContractFilter;
+import com.cra.contract.dto.ContractSummary;
+import com.cra.contract.entity.ContractMain;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ContractMainRepositoryCustom 的实现
+ * 列表查询直接投影为 ContractSummary, 排序固定为 (sortBy, id), 翻页用 WHERE (sortBy, id) > (上一页末行) 代替 OFFSET,
+ * 第 N 页和第一页的代价相同
+ *
+ * 常用条件组合与索引 (见 ContractMain 上的 @Table indexes, 按 create_time 排序时):
+ * - 无条件 / 只有范围条件: idx_contract_main_create_time 按序扫描, 范围条件逐行过滤, 取满一页即停
+ * - 单个等值条件 (status / creatorId / category / department): 对应的 (列, create_time, id) 索引, 无需排序
+ * - department + status / category + status: idx_contract_main_dept_status / idx_contract_main_category_status
+ * - partyId: party_a / party_b 两个索引 BitmapOr 后排序, 单个相对方的合同数通常不大
+ * - 选择性高的范围条件 (较窄的开始 / 结束日期、金额区间) 可由规划器改走 start_date / end_date / amount 索引
+ * 等值条件组合和金额区间的索引选择由 ContractMainQueryPlanTest 在 H2 上检查
+ */
+public class ContractMainRepositoryImpl implements ContractMainRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ContractSummary> findSummaries(ContractFilter filter, ContractKeyset keyset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ContractSummary> query = cb.createQuery(ContractSummary.class);
+        Root<ContractMain> root = query.from(ContractMain.class);
+        query.select(cb.construct(ContractSummary.class,
+                root.get("id"), root.get("contractNumber"), root.get("contractName"), root.get("status"),
+                root.get("category"), root.get("department"), root.get("amount"), root.get("creatorId"),
+                root.get("createTime")));
+
+        List<Predicate> predicates = predicatesOf(cb, root, filter);
+        Path<Comparable<Object>> sortPath = root.get(keyset.getSortBy());
+        Path<Long> idPath = root.get("id");
+        if (keyset.getLastId() != null) {
+            predicates.add(after(cb, sortPath, idPath, keyset));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        if ("id".equals(keyset.getSortBy())) {
+            query.orderBy(keyset.isAscending() ? cb.asc(idPath) : cb.desc(idPath));
+        } else {
+            query.orderBy(keyset.isAscending() ? cb.asc(sortPath) : cb.desc(sortPath),
+                    keyset.isAscending() ? cb.asc(idPath) : cb.desc(idPath));
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countCapped(ContractFilter filter, int cap) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<ContractMain> root = query.from(ContractMain.class);
+        query.select(root.get("id")).where(predicatesOf(cb, root, filter).toArray(new Predicate[0]));
+        // 只取 id, 数到上限即停, 不做全表 COUNT(*)
+        return entityManager.createQuery(query).setMaxResults(cap + 1).getResultList().size();
+    }
+
+    @Override
+    public long count(ContractFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<ContractMain> root = query.from(ContractMain.class);
+        query.select(cb.count(root)).where(predicatesOf(cb, root, filter).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<Predicate> predicatesOf(CriteriaBuilder cb, Root<ContractMain> root, ContractFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+        }
+        if (filter.getCreatorId() != null) {
+            predicates.add(cb.equal(root.get("creatorId"), filter.getCreatorId()));
+        }
+        if (filter.getPartyId() != null) {
+            predicates.add(cb.or(cb.equal(root.get("partyAId"), filter.getPartyId()),
+                    cb.equal(root.get("partyBId"), filter.getPartyId())));
+        }
+        if (filter.getCategory() != null) {
+            predicates.add(cb.equal(root.get("category"), filter.getCategory()));
+        }
+        if (filter.getDepartment() != null) {
+            predicates.add(cb.equal(root.get("department"), filter.getDepartment()));
+        }
+        addRange(cb, predicates, root.get("startDate"), filter.getStartDateFrom(), filter.getStartDateTo());
+        addRange(cb, predicates, root.get("endDate"), filter.getEndDateFrom(), filter.getEndDateTo());
+        addRange(cb, predicates, root.get("amount"), filter.getAmountMin(), filter.getAmountMax());
+        return predicates;
+    }
+
+    private <Y extends Comparable<? super Y>> void addRange(CriteriaBuilder cb, List<Predicate> predicates,
+                                                           Expression<? extends Y> path, Y from, Y to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(path, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThanOrEqualTo(path, to));
+        }
+    }
+
+    /**
+     * (sortBy, id) 在上一页末行之后: sortBy > v OR (sortBy = v AND id > lastId), 降序时比较方向相反
+     */
+    @SuppressWarnings("unchecked")
+    private Predicate after(CriteriaBuilder cb, Path<Comparable<Object>> sortPath, Path<Long> idPath, ContractKeyset keyset) {
+        boolean ascending = keyset.isAscending();
+        Predicate idAfter = ascending ? cb.greaterThan(idPath, keyset.getLastId()) : cb.lessThan(idPath, keyset.getLastId());
+        if ("id".equals(keyset.getSortBy())) {
+            return idAfter;
+        }
+        Comparable<Object> lastValue = (Comparable<Object>) keyset.getLastValue();
+        Expression<Comparable<Object>> sortValue = sortPath;
+        Predicate valueAfter = ascending ? cb.greaterThan(sortValue, lastValue) : cb.lessThan(sortValue, lastValue);
+        return cb.or(valueAfter, cb.and(cb.equal(sortPath, lastValue), idAfter));
+    }
+}
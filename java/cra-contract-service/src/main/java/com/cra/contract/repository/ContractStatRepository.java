@@ -0,0 +1,28 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.entity.ContractStat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ContractStatRepository extends JpaRepository<ContractStat, Long> {
+    
+    // 计数行不存在时插入 (依赖 (dimension, dim_key) 唯一约束), 存在时累加
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO contract_stat (dimension, dim_key, stat_count, update_time) VALUES (:dimension, :dimKey, :delta, now()) "
+            + "ON CONFLICT (dimension, dim_key) DO UPDATE SET stat_count = contract_stat.stat_count + EXCLUDED.stat_count, "
+            + "update_time = now()", nativeQuery = true)
+    int increment(@Param("dimension") String dimension, @Param("dimKey") String dimKey, @Param("delta") long delta);
+    
+    // 校正时锁住全部计数行, 期间增量更新等待
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ContractStat s")
+    List<ContractStat> findAllForUpdate();
+}
@@ -1,10 +1,14 @@
 package com.cra.contract.repository;
 
 import com.cra.contract.entity.ContractVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +18,45 @@ public interface ContractVersionRepository extends JpaRepository<ContractVersion
     
     Optional<ContractVersion> findByContractIdAndVersionNumber(Long contractId, Integer versionNumber);
     
-    Optional<ContractVersion> findTopByContractIdOrderByVersionNumberDesc(Long contractId);
+    boolean existsByContractIdAndContentHash(Long contractId, String contentHash);
     
-    Optional<ContractVersion> findByContentHash(String contentHash);
-    
-    @Query("SELECT COUNT(cv) FROM ContractVersion cv WHERE cv.contractId = :contractId")
-    Integer countByContractId(@Param("contractId") Long contractId);
+    // 合同上没有最新版本号 (历史数据) 时由此确定
+    @Query("SELECT COALESCE(MAX(cv.versionNumber), 0) FROM ContractVersion cv WHERE cv.contractId = :contractId")
+    Integer findMaxVersionNumber(@Param("contractId") Long contractId);
     
     List<ContractVersion> findByContractIdAndCreatorId(Long contractId, String creatorId);
+    
+    // 只更新提取状态, 避免整行 save 覆盖其它字段或把已删除的版本重新插入
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractVersion cv SET cv.extractStatus = :status, cv.extractError = :error WHERE cv.id = :id")
+    int updateExtractStatus(@Param("id") Long id, @Param("status") Integer status, @Param("error") String error);
+    
+    // 只在当前提取状态为 expected 时更新, 并发的重新提取请求只有一个生效
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractVersion cv SET cv.extractStatus = :status, cv.extractError = null WHERE cv.id = :id AND cv.extractStatus = :expected")
+    int updateExtractStatusIfMatches(@Param("id") Long id, @Param("expected") Integer expected, @Param("status") Integer status);
+    
+    // 认领提取: 待提取 / 提取失败, 或提取中但开始时间早于 staleBefore (处理方已退出) 时改为提取中;
+    // 返回 0 表示已完成、历史数据或正由其它消费者提取. 状态值见 ContractVersion.EXTRACT_*
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractVersion cv SET cv.extractStatus = 1, cv.extractError = null, cv.extractStartTime = :now "
+            + "WHERE cv.id = :id AND (cv.extractStatus IN (0, 3) "
+            + "OR (cv.extractStatus = 1 AND (cv.extractStartTime IS NULL OR cv.extractStartTime < :staleBefore)))")
+    int claimExtraction(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    // 按 id 顺序分批扫描存储路径不匹配 pattern 的版本 (用于本地降级文件补传FTP)
+    List<ContractVersion> findByStoragePathNotLikeAndIdGreaterThanOrderByIdAsc(String pattern, Long id, Pageable pageable);
+    
+    // 引用某个存储路径的合同 (路径改写后据此让缓存失效)
+    @Query("SELECT DISTINCT cv.contractId FROM ContractVersion cv WHERE cv.storagePath = :storagePath")
+    List<Long> findContractIdsByStoragePath(@Param("storagePath") String storagePath);
+    
+    // 按原路径更新存储路径, 共享同一文件的版本一起改写; 路径已被其它流程修改的版本不覆盖
+    @Transactional
+    @Modifying
+    @Query("UPDATE ContractVersion cv SET cv.storagePath = :newPath WHERE cv.storagePath = :oldPath")
+    int updateStoragePathByPath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
 }
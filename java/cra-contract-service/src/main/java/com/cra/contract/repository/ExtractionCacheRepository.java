@@ -0,0 +1,7 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.entity.ExtractionCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ExtractionCacheRepository extends MongoRepository<ExtractionCacheEntry, String> {
+}
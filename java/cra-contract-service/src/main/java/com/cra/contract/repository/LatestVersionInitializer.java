@@ -0,0 +1,149 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.entity.ContractContent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 合同最新版本指针和乐观锁字段的历史数据补齐
+ * - 启动时 (接收请求前): lock_version 为空的行置 0; 按版本表补齐最新版本ID和版本号;
+ *   同一合同下存在重复版本号时 (ddl-auto 建不起 (contract_id, version_number) 唯一约束) 默认只记录受影响的合同,
+ *   版本号是用户可见的标识, 不自动修改; 开启 contract.version.renumber-duplicates 后按 (版本号, id) 重新编号并补建约束,
+ *   作为一次性迁移执行后应关闭
+ * - 启动完成后: 为已提取完成的最新版本分批补齐正文文档ID
+ * 语句都只处理尚未补齐的行, 重复执行无副作用
+ */
+@Component
+public class LatestVersionInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestVersionInitializer.class);
+
+    private static final String INIT_LOCK_VERSION =
+            "UPDATE contract_main SET lock_version = 0 WHERE lock_version IS NULL";
+
+    private static final String DUPLICATE_CONTRACTS =
+            "SELECT DISTINCT contract_id FROM contract_version GROUP BY contract_id, version_number HAVING COUNT(*) > 1";
+
+    private static final String DUPLICATE_VERSIONS =
+            "SELECT contract_id, version_number, COUNT(*) AS copies FROM contract_version "
+                    + "GROUP BY contract_id, version_number HAVING COUNT(*) > 1 ORDER BY contract_id, version_number";
+
+    // 按 (版本号, id) 排名重新编号, 只改存在重复版本号的合同
+    private static final String RENUMBER_VERSIONS =
+            "UPDATE contract_version SET version_number = (SELECT COUNT(*) FROM contract_version p "
+                    + "WHERE p.contract_id = contract_version.contract_id AND (p.version_number < contract_version.version_number "
+                    + "OR (p.version_number = contract_version.version_number AND p.id <= contract_version.id))) "
+                    + "WHERE contract_id IN (" + DUPLICATE_CONTRACTS + ")";
+
+    private static final String ADD_VERSION_NUMBER_CONSTRAINT =
+            "ALTER TABLE contract_version ADD CONSTRAINT uk_contract_version_number UNIQUE (contract_id, version_number)";
+
+    private static final String FILL_LATEST_NUMBER =
+            "UPDATE contract_main SET latest_version_number = "
+                    + "(SELECT MAX(v.version_number) FROM contract_version v WHERE v.contract_id = contract_main.id) "
+                    + "WHERE latest_version_number IS NULL AND EXISTS (SELECT 1 FROM contract_version v WHERE v.contract_id = contract_main.id)";
+
+    private static final String FILL_LATEST_ID =
+            "UPDATE contract_main SET latest_version_id = (SELECT MAX(v.id) FROM contract_version v "
+                    + "WHERE v.contract_id = contract_main.id AND v.version_number = contract_main.latest_version_number) "
+                    + "WHERE latest_version_id IS NULL AND latest_version_number IS NOT NULL";
+
+    private static final String MISSING_CONTENT_ID =
+            "SELECT id, latest_version_id FROM contract_main WHERE latest_content_id IS NULL AND latest_version_id > ? "
+                    + "ORDER BY latest_version_id LIMIT ?";
+
+    private static final String FILL_CONTENT_ID =
+            "UPDATE contract_main SET latest_content_id = ? WHERE id = ? AND latest_version_id = ?";
+
+    @Value("${contract.version.backfill-batch-size:500}")
+    private int batchSize;
+
+    @Value("${contract.version.renumber-duplicates:false}")
+    private boolean renumberDuplicates;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContractContentRepository contractContentRepository;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.update(INIT_LOCK_VERSION);
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList(DUPLICATE_VERSIONS);
+        if (!duplicates.isEmpty()) {
+            resolveDuplicateVersions(duplicates);
+        }
+        int filled = jdbcTemplate.update(FILL_LATEST_NUMBER);
+        jdbcTemplate.update(FILL_LATEST_ID);
+        if (filled > 0) {
+            logger.info("已为 {} 个合同补齐最新版本指针", filled);
+        }
+    }
+
+    /**
+     * 逐条记录重复的 (合同, 版本号); 开启迁移开关时重新编号并补建唯一约束
+     */
+    private void resolveDuplicateVersions(List<Map<String, Object>> duplicates) {
+        for (Map<String, Object> row : duplicates) {
+            logger.warn("合同版本号重复: contractId={}, versionNumber={}, 重复 {} 条",
+                    row.get("contract_id"), row.get("version_number"), row.get("copies"));
+        }
+        List<Long> contractIds = jdbcTemplate.queryForList(DUPLICATE_CONTRACTS, Long.class);
+        if (!renumberDuplicates) {
+            logger.error("{} 个合同存在重复版本号, 版本号唯一约束未创建; 确认后开启 contract.version.renumber-duplicates 重新编号: {}",
+                    contractIds.size(), contractIds);
+            return;
+        }
+        int renumbered = jdbcTemplate.update(RENUMBER_VERSIONS);
+        logger.warn("已按创建顺序为 {} 个合同重新编号 {} 个版本: {}", contractIds.size(), renumbered, contractIds);
+        try {
+            jdbcTemplate.execute(ADD_VERSION_NUMBER_CONSTRAINT);
+        } catch (DataAccessException e) {
+            logger.warn("合同版本号唯一约束创建失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按 latest_version_id 分批, 正文还没提取的版本留空, 提取完成时由提取流程写入
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillContentIds() {
+        long lastVersionId = 0L;
+        long filled = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(MISSING_CONTENT_ID, lastVersionId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Long> versionIds = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                versionIds.add(((Number) row.get("latest_version_id")).longValue());
+            }
+            lastVersionId = versionIds.get(versionIds.size() - 1);
+            List<Object[]> updates = new ArrayList<>();
+            for (ContractContent content : contractContentRepository.findIdsByVersionIdIn(versionIds)) {
+                updates.add(new Object[]{content.getId(), content.getContractId(), content.getVersionId()});
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(FILL_CONTENT_ID, updates);
+                filled += updates.size();
+            }
+        }
+        if (filled > 0) {
+            logger.info("已为 {} 个合同补齐最新正文文档ID", filled);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.cra.contract.search;
+
+import lombok.Data;
+
+/**
+ * 搜索索引中的合同文档: 合同基本信息 + 最新版本正文, 一个合同一条
+ */
+@Data
+public class ContractSearchDocument {
+
+    private String id; // 文档ID, 与合同ID相同
+
+    private Long contractId; // 合同ID
+
+    private String contractName; // 合同名称
+
+    private String contractNumber; // 合同编号
+
+    private String category; // 合同类型
+
+    private String department; // 所属部门
+
+    private Integer status; // 合同状态
+
+    private Long versionId; // 最新版本ID
+
+    private Integer versionNumber; // 最新版本号
+
+    private String plainText; // 最新版本纯文本, 未提取完成时为空
+
+    private Long updateTime; // 更新时间 (毫秒)
+}
@@ -0,0 +1,41 @@
+package com.cra.contract.search;
+
+import com.cra.contract.dto.ContractSearchHit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 合同全文搜索引擎
+ * 通过 contract.search.engine 选择实现, 索引内容由 ContractSearchIndexer 根据合同变更事件维护
+ */
+public interface ContractSearchEngine {
+
+    /**
+     * 写入或覆盖合同文档
+     */
+    void index(List<ContractSearchDocument> documents);
+
+    /**
+     * 部分更新: 只写入文档中非空的字段, 已索引的其它字段 (如正文) 保持不变; 文档不存在时按这些字段新建
+     * @return false 表示引擎不支持部分更新, 调用方应改为写入包含正文的完整文档
+     */
+    default boolean update(List<ContractSearchDocument> documents) {
+        return false;
+    }
+
+    void delete(Long contractId);
+
+    /**
+     * 按相关度分页搜索
+     */
+    Page<ContractSearchHit> search(String keyword, Pageable pageable);
+
+    /**
+     * 索引是否需要从数据库全量重建 (如本地索引文件不存在), 启动完成后由 ContractSearchIndexer 检查
+     */
+    default boolean needsRebuild() {
+        return false;
+    }
+}
@@ -0,0 +1,325 @@
+package com.cra.contract.search;
+
+import com.cra.contract.entity.ContractContent;
+import com.cra.contract.entity.ContractMain;
+import com.cra.contract.event.ContractBatchChangeEvent;
+import com.cra.contract.event.ContractChangeEvent;
+import com.cra.contract.extraction.ContractContentReader;
+import com.cra.contract.repository.ContractContentRepository;
+import com.cra.contract.repository.ContractMainRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 维护合同搜索索引
+ * 监听合同变更事件, 事务提交后 (没有事务时立即) 只把合同ID登记到待处理集合, 由 contractIndexExecutor 线程合并后批量写入,
+ * 写接口不等待搜索引擎; 同一合同在写入前的多次变更合并为一次, 按变更程度决定写入内容:
+ * - 状态变更 (批量状态流转) 只部分更新状态和更新时间
+ * - 基本信息修改只部分更新名称、编号等字段, 不读取正文
+ * - 新版本入库时正文还没有提取, 清掉上一版本的正文
+ * - 只有正文提取完成 (或引擎不支持部分更新) 时才从 MongoDB 读取正文写入完整文档
+ * 写索引失败只记录日志和指标, 不影响业务操作, 可通过重建索引接口补齐
+ */
+@Component
+public class ContractSearchIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractSearchIndexer.class);
+
+    // 单个文档写入索引的正文上限, 超出部分不参与搜索
+    @Value("${contract.search.index.max-chars:1000000}")
+    private int maxIndexedChars;
+
+    @Value("${contract.search.index.reindex-batch-size:200}")
+    private int reindexBatchSize;
+
+    @Autowired
+    private ContractSearchEngine contractSearchEngine;
+
+    @Autowired
+    private ContractMainRepository contractMainRepository;
+
+    @Autowired
+    private ContractContentRepository contractContentRepository;
+
+    @Autowired
+    private ContractContentReader contractContentReader;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("contractMaintenanceExecutor")
+    private Executor maintenanceExecutor;
+
+    @Autowired
+    @Qualifier("contractIndexExecutor")
+    private Executor indexExecutor;
+
+    // 待写入索引的合同ID -> 合并后的变更程度
+    private final ConcurrentHashMap<Long, Change> pending = new ConcurrentHashMap<>();
+
+    // 是否已有合并任务在排队或执行
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 索引需要更新的程度, 按声明顺序递增, 同一合同的多次变更取最大的一项
+     */
+    private enum Change {
+        STATUS, // 只有状态变化
+        METADATA, // 基本信息修改
+        VERSION, // 新版本入库, 正文还没有提取
+        CONTENT, // 正文提取完成
+        DELETE // 合同已删除
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChange(ContractChangeEvent event) {
+        enqueue(List.of(event.getContractId()), changeOf(event.getType()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractBatchChange(ContractBatchChangeEvent event) {
+        enqueue(event.getContractIds(), changeOf(event.getType()));
+    }
+
+    private Change changeOf(ContractChangeEvent.Type type) {
+        switch (type) {
+            case CONTRACT_DELETED:
+                return Change.DELETE;
+            case CONTENT_EXTRACTED:
+                return Change.CONTENT;
+            case VERSION_CREATED:
+                return Change.VERSION;
+            case STATUS_CHANGED:
+                return Change.STATUS;
+            default:
+                return Change.METADATA;
+        }
+    }
+
+    private void enqueue(List<Long> contractIds, Change change) {
+        if (contractIds.isEmpty()) {
+            return;
+        }
+        for (Long contractId : contractIds) {
+            pending.merge(contractId, change, (previous, current) -> previous.compareTo(current) >= 0 ? previous : current);
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            indexExecutor.execute(this::drain);
+        } catch (RuntimeException e) {
+            // 线程池已关闭 (停机中), 未写入的变更可通过重建索引接口补齐
+            draining.set(false);
+            logger.error("提交搜索索引更新任务失败, {} 个合同待更新: {}", pending.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 每次最多取 reindex-batch-size 个合同, 按变更程度分组批量写入, 直到待处理集合为空
+     */
+    private void drain() {
+        try {
+            while (!pending.isEmpty()) {
+                Map<Change, List<Long>> batch = new EnumMap<>(Change.class);
+                int taken = 0;
+                Iterator<Long> iterator = pending.keySet().iterator();
+                while (iterator.hasNext() && taken < reindexBatchSize) {
+                    Long contractId = iterator.next();
+                    Change change = pending.remove(contractId);
+                    if (change != null) {
+                        batch.computeIfAbsent(change, key -> new ArrayList<>()).add(contractId);
+                        taken++;
+                    }
+                }
+                batch.forEach(this::apply);
+            }
+        } finally {
+            draining.set(false);
+            // 检查为空之后、复位之前登记的变更
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private void apply(Change change, List<Long> contractIds) {
+        try {
+            if (change == Change.DELETE) {
+                for (Long contractId : contractIds) {
+                    contractSearchEngine.delete(contractId);
+                }
+            } else {
+                write(change, contractIds);
+            }
+            meterRegistry.counter("contract.search.index", "result", "success").increment(contractIds.size());
+        } catch (Exception e) {
+            meterRegistry.counter("contract.search.index", "result", "failure").increment(contractIds.size());
+            logger.error("更新合同搜索索引失败: {} 个合同, change={} - {}", contractIds.size(), change, e.getMessage());
+        }
+    }
+
+    private void write(Change change, List<Long> contractIds) {
+        List<ContractMain> contracts = contractMainRepository.findAllById(contractIds);
+        if (contracts.size() < contractIds.size()) {
+            // 登记之后合同被删除
+            Set<Long> found = new HashSet<>();
+            contracts.forEach(contract -> found.add(contract.getId()));
+            for (Long contractId : contractIds) {
+                if (!found.contains(contractId)) {
+                    contractSearchEngine.delete(contractId);
+                }
+            }
+        }
+        if (change != Change.CONTENT) {
+            List<ContractSearchDocument> documents = new ArrayList<>(contracts.size());
+            for (ContractMain contract : contracts) {
+                ContractSearchDocument document = change == Change.STATUS ? statusDocument(contract) : baseDocument(contract);
+                if (change == Change.VERSION) {
+                    document.setPlainText("");
+                }
+                documents.add(document);
+            }
+            if (contractSearchEngine.update(documents)) {
+                return;
+            }
+        }
+        List<ContractSearchDocument> documents = new ArrayList<>(contracts.size());
+        for (ContractMain contract : contracts) {
+            documents.add(toDocument(contract));
+        }
+        contractSearchEngine.index(documents);
+    }
+
+    /**
+     * 索引为空时在后台全量重建, 不推迟服务就绪; 重建期间搜索结果不完整, 失败时可通过重建索引接口重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        maintenanceExecutor.execute(() -> {
+            try {
+                if (contractSearchEngine.needsRebuild()) {
+                    logger.info("搜索索引为空, 开始在后台全量重建");
+                    reindexAll();
+                }
+            } catch (Exception e) {
+                meterRegistry.counter("contract.search.reindex", "result", "failure").increment();
+                logger.error("合同搜索索引自动重建失败, 可通过重建索引接口重试: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 按合同ID顺序分批重建全部索引
+     * @return 写入的合同数
+     */
+    public long reindexAll() {
+        long indexed = 0;
+        int pageNumber = 0;
+        Page<ContractMain> page;
+        do {
+            page = contractMainRepository.findAll(PageRequest.of(pageNumber++, reindexBatchSize, Sort.by("id")));
+            List<ContractSearchDocument> documents = new ArrayList<>(page.getNumberOfElements());
+            for (ContractMain contract : page.getContent()) {
+                documents.add(toDocument(contract));
+            }
+            contractSearchEngine.index(documents);
+            indexed += documents.size();
+        } while (page.hasNext());
+        logger.info("合同搜索索引重建完成, 共 {} 个合同", indexed);
+        return indexed;
+    }
+
+    /**
+     * 完整文档: 基本信息 + 最新版本正文
+     */
+    private ContractSearchDocument toDocument(ContractMain contract) {
+        ContractSearchDocument document = baseDocument(contract);
+        if (contract.getLatestVersionId() != null) {
+            // 正文还在提取中时先只索引基本信息, 提取完成后会再次触发; 历史数据的正文文档ID可能还没补齐
+            Optional<ContractContent> content = contract.getLatestContentId() != null
+                    ? contractContentRepository.findContentById(contract.getLatestContentId())
+                    : contractContentRepository.findByContractIdAndVersionId(contract.getId(), contract.getLatestVersionId());
+            content.map(contractContentReader::readPlainText)
+                    .map(this::truncate)
+                    .ifPresent(document::setPlainText);
+        }
+        return document;
+    }
+
+    /**
+     * 只含状态和更新时间, 用于部分更新
+     */
+    private ContractSearchDocument statusDocument(ContractMain contract) {
+        ContractSearchDocument document = new ContractSearchDocument();
+        document.setId(String.valueOf(contract.getId()));
+        document.setContractId(contract.getId());
+        document.setStatus(contract.getStatus());
+        document.setUpdateTime(epochMillis(contract.getUpdateTime()));
+        return document;
+    }
+
+    /**
+     * 合同基本信息, 不读取正文
+     */
+    private ContractSearchDocument baseDocument(ContractMain contract) {
+        ContractSearchDocument document = new ContractSearchDocument();
+        document.setId(String.valueOf(contract.getId()));
+        document.setContractId(contract.getId());
+        document.setContractName(contract.getContractName());
+        document.setContractNumber(contract.getContractNumber());
+        document.setCategory(contract.getCategory());
+        document.setDepartment(contract.getDepartment());
+        document.setStatus(contract.getStatus());
+        document.setUpdateTime(epochMillis(contract.getUpdateTime()));
+
+        document.setVersionId(contract.getLatestVersionId());
+        document.setVersionNumber(contract.getLatestVersionNumber());
+        return document;
+    }
+
+    private Long epochMillis(LocalDateTime time) {
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private String truncate(String text) {
+        if (text.length() <= maxIndexedChars) {
+            return text;
+        }
+        int end = maxIndexedChars;
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+}
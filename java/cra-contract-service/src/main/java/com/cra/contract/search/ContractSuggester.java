@@ -0,0 +1,178 @@
+package com.cra.contract.search;
+
+import com.cra.contract.dto.ContractSuggestion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 合同名称 / 编号输入联想
+ * 候选集分两步取, 每步最多 candidates 条 (编号完全相同的优先), 不做 COUNT:
+ * - 前缀匹配: lower(字段) LIKE 'kw%', 走 text_pattern_ops 表达式索引
+ * - 包含匹配: 字段 ILIKE '%kw%', 走 pg_trgm GIN 索引; 关键词不足 3 个字符时抽不出三元组, 索引帮不上忙, 只做前缀匹配
+ * 候选集在内存中排序后取前 limit 条
+ * 索引在启动完成后创建 (ddl-auto 不管理表达式索引和扩展); 非 PostgreSQL (本地 H2 等) 或没有 pg_trgm 扩展权限时不建索引,
+ * 查询语句不变, 退化为顺序扫描, 只适合数据量很小的环境
+ * 注意: pg_trgm 只把数据库 locale 认定为字母的字符计入三元组, 中文名称需要库的 LC_CTYPE 为 UTF-8 locale (不能是 C)
+ */
+@Component
+public class ContractSuggester {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractSuggester.class);
+
+    private static final int TRIGRAM_MIN_CHARS = 3;
+
+    private static final String COLUMNS = "SELECT id, contract_name, contract_number, status FROM contract_main ";
+
+    // 候选集截断前先排序: 编号完全相同的排最前 (用 CASE 而不是布尔值排序, 编号为空时不会排到前面), 其余名称越短 (关键词占比越高) 越靠前, 保证精确命中不会被 LIMIT 截掉
+    private static final String CANDIDATE_ORDER = " ORDER BY CASE WHEN lower(contract_number) = ? THEN 0 ELSE 1 END, length(contract_name), id DESC LIMIT ?";
+
+    private static final String PREFIX_SQL = COLUMNS
+            + "WHERE lower(contract_number) LIKE ? ESCAPE '\\' OR lower(contract_name) LIKE ? ESCAPE '\\'" + CANDIDATE_ORDER;
+
+    private static final String CONTAINS_SQL = COLUMNS
+            + "WHERE contract_name ILIKE ? ESCAPE '\\' OR contract_number ILIKE ? ESCAPE '\\'" + CANDIDATE_ORDER;
+
+    private static final String[] POSTGRES_INDEXES = {
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contract_main_name_trgm ON contract_main USING gin (contract_name gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contract_main_number_trgm ON contract_main USING gin (contract_number gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contract_main_name_prefix ON contract_main (lower(contract_name) text_pattern_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contract_main_number_prefix ON contract_main (lower(contract_number) text_pattern_ops)"
+    };
+
+    @Value("${contract.search.suggest.limit:10}")
+    private int defaultLimit;
+
+    @Value("${contract.search.suggest.max-limit:50}")
+    private int maxLimit;
+
+    @Value("${contract.search.suggest.candidates:200}")
+    private int candidates;
+
+    @Value("${contract.search.suggest.create-indexes:true}")
+    private boolean createIndexes;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer suggestTimer;
+
+    @PostConstruct
+    public void init() {
+        suggestTimer = Timer.builder("contract.search.suggest")
+                .description("合同输入联想耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按合同名称或编号联想
+     * @param limit 为空时取默认条数, 不超过 max-limit
+     */
+    public List<ContractSuggestion> suggest(String keyword, Integer limit) {
+        String normalized = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int size = limit == null || limit <= 0 ? defaultLimit : Math.min(limit, maxLimit);
+        return suggestTimer.record(() -> {
+            String escaped = escapeLike(normalized);
+            Map<Long, ContractSuggestion> found = new LinkedHashMap<>();
+            query(PREFIX_SQL, escaped + "%", normalized, found);
+            if (normalized.length() >= TRIGRAM_MIN_CHARS) {
+                query(CONTAINS_SQL, "%" + escaped + "%", normalized, found);
+            }
+            List<ContractSuggestion> suggestions = new ArrayList<>(found.values());
+            suggestions.sort(Comparator.comparing(ContractSuggestion::getScore).reversed()
+                    .thenComparing(ContractSuggestion::getContractId, Comparator.reverseOrder()));
+            return suggestions.size() > size ? new ArrayList<>(suggestions.subList(0, size)) : suggestions;
+        });
+    }
+
+    private void query(String sql, String pattern, String keyword, Map<Long, ContractSuggestion> found) {
+        RowMapper<ContractSuggestion> mapper = (rs, rowNum) -> {
+            String name = rs.getString("contract_name");
+            String number = rs.getString("contract_number");
+            float score = Math.max(scoreOf(number, keyword, true), scoreOf(name, keyword, false));
+            return new ContractSuggestion(rs.getLong("id"), name, number, (Integer) rs.getObject("status"), score);
+        };
+        for (ContractSuggestion suggestion : jdbcTemplate.query(sql, mapper, pattern, pattern, keyword, candidates)) {
+            found.putIfAbsent(suggestion.getContractId(), suggestion);
+        }
+    }
+
+    /**
+     * 完全相同 (仅编号) 3 分, 前缀 2 分, 包含 1 分, 再加上关键词长度占字段长度的比例
+     */
+    private float scoreOf(String value, String keyword, boolean exactBonus) {
+        if (value == null || value.isEmpty()) {
+            return 0f;
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        float coverage = (float) keyword.length() / lower.length();
+        if (exactBonus && lower.equals(keyword)) {
+            return 3f + coverage;
+        }
+        if (lower.startsWith(keyword)) {
+            return 2f + coverage;
+        }
+        return lower.contains(keyword) ? 1f + coverage : 0f;
+    }
+
+    /**
+     * 等 ddl-auto 建好表之后再建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        if (!createIndexes) {
+            return;
+        }
+        try {
+            String product = jdbcTemplate.execute((Connection connection) -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                logger.info("数据库 {} 不支持 pg_trgm, 合同联想查询不建索引", product);
+                return;
+            }
+            // CONCURRENTLY 不能在事务中执行, JdbcTemplate 默认自动提交
+            for (String ddl : POSTGRES_INDEXES) {
+                jdbcTemplate.execute(ddl);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("合同联想索引创建失败, 查询将退化为顺序扫描: {}", e.getMessage());
+        }
+    }
+
+    private String escapeLike(String keyword) {
+        StringBuilder sb = new StringBuilder(keyword.length() + 4);
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,219 @@
+package com.cra.contract.search;
+
+import com.cra.contract.dto.ContractSearchHit;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.HighlightQuery;
+import org.springframework.data.elasticsearch.core.query.StringQuery;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.data.elasticsearch.core.query.highlight.Highlight;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightField;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightParameters;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Elasticsearch 全文搜索
+ * 中文字段默认使用 IK 分词 (索引 ik_max_word, 查询 ik_smart), 集群未安装 IK 插件时可改为内置的 cjk / smartcn 分词器
+ * 索引不存在时按 contract.search.elasticsearch.* 配置创建; 正文开启 term_vector, 高亮不必重新分析大文本
+ */
+@Component
+@ConditionalOnProperty(name = "contract.search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+public class ElasticsearchContractSearchEngine implements ContractSearchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchContractSearchEngine.class);
+
+    // 搜索结果不返回正文, 正文只用于匹配和高亮
+    private static final String[] EXCLUDED_FIELDS = {"plainText"};
+
+    private static final TypeReference<Map<String, Object>> FIELDS_TYPE = new TypeReference<>() {
+    };
+
+    @Value("${contract.search.elasticsearch.index:cra_contract}")
+    private String indexName;
+
+    @Value("${contract.search.elasticsearch.analyzer:ik_max_word}")
+    private String analyzer;
+
+    @Value("${contract.search.elasticsearch.search-analyzer:ik_smart}")
+    private String searchAnalyzer;
+
+    @Value("${contract.search.elasticsearch.shards:1}")
+    private int shards;
+
+    @Value("${contract.search.elasticsearch.replicas:1}")
+    private int replicas;
+
+    @Value("${contract.search.highlight.fragment-size:100}")
+    private int fragmentSize;
+
+    @Value("${contract.search.highlight.fragments:3}")
+    private int fragments;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private IndexCoordinates index;
+
+    @PostConstruct
+    public void init() {
+        index = IndexCoordinates.of(indexName);
+        try {
+            IndexOperations indexOperations = elasticsearchOperations.indexOps(index);
+            if (!indexOperations.exists()) {
+                indexOperations.create(settings(), mapping());
+                logger.info("已创建合同搜索索引: {}", indexName);
+            }
+        } catch (Exception e) {
+            // Elasticsearch 暂不可用时不阻止服务启动, 写入索引失败会记录日志, 恢复后可调用重建索引接口
+            logger.error("初始化合同搜索索引失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void index(List<ContractSearchDocument> documents) {
+        if (!documents.isEmpty()) {
+            elasticsearchOperations.save(documents, index);
+        }
+    }
+
+    /**
+     * 一次 bulk 请求批量部分更新, 文档不存在时 (如还未写入过) 按给出的字段新建
+     */
+    @Override
+    public boolean update(List<ContractSearchDocument> documents) {
+        if (documents.isEmpty()) {
+            return true;
+        }
+        List<UpdateQuery> queries = new ArrayList<>(documents.size());
+        for (ContractSearchDocument document : documents) {
+            Map<String, Object> fields = objectMapper.convertValue(document, FIELDS_TYPE);
+            fields.values().removeIf(Objects::isNull);
+            queries.add(UpdateQuery.builder(document.getId())
+                    .withDocument(Document.from(fields))
+                    .withDocAsUpsert(true)
+                    .build());
+        }
+        elasticsearchOperations.bulkUpdate(queries, index);
+        return true;
+    }
+
+    @Override
+    public void delete(Long contractId) {
+        elasticsearchOperations.delete(String.valueOf(contractId), index);
+    }
+
+    @Override
+    public Page<ContractSearchHit> search(String keyword, Pageable pageable) {
+        StringQuery query = new StringQuery(buildQuery(keyword), pageable);
+        query.addSourceFilter(new FetchSourceFilter(null, EXCLUDED_FIELDS));
+        query.setTrackTotalHits(true);
+        HighlightParameters parameters = HighlightParameters.builder()
+                .withPreTags("<mark>")
+                .withPostTags("</mark>")
+                .withEncoder("html")
+                .withFragmentSize(fragmentSize)
+                .withNumberOfFragments(fragments)
+                .build();
+        query.setHighlightQuery(new HighlightQuery(new Highlight(parameters,
+                List.of(new HighlightField("plainText"), new HighlightField("contractName"))), ContractSearchDocument.class));
+
+        SearchHits<ContractSearchDocument> hits = elasticsearchOperations.search(query, ContractSearchDocument.class, index);
+        List<ContractSearchHit> results = new ArrayList<>();
+        for (SearchHit<ContractSearchDocument> hit : hits.getSearchHits()) {
+            ContractSearchDocument document = hit.getContent();
+            List<String> highlights = new ArrayList<>(hit.getHighlightField("plainText"));
+            if (highlights.isEmpty()) {
+                highlights.addAll(hit.getHighlightField("contractName"));
+            }
+            results.add(new ContractSearchHit(document.getContractId(), document.getContractName(),
+                    document.getContractNumber(), document.getCategory(), document.getDepartment(),
+                    document.getVersionNumber(), hit.getScore(), highlights));
+        }
+        return new PageImpl<>(results, pageable, hits.getTotalHits());
+    }
+
+    /**
+     * 用户输入只作为 match 查询的文本, 不拼接进查询语法
+     */
+    private String buildQuery(String keyword) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode bool = root.putObject("bool");
+        ArrayNode should = bool.putArray("should");
+
+        ObjectNode multiMatch = should.addObject().putObject("multi_match");
+        multiMatch.put("query", keyword);
+        multiMatch.putArray("fields")
+                .add("contractName^3")
+                .add("contractNumber.text^3")
+                .add("category^2")
+                .add("department^2")
+                .add("plainText");
+
+        // 合同编号精确命中排在最前
+        ObjectNode term = should.addObject().putObject("term").putObject("contractNumber");
+        term.put("value", keyword);
+        term.put("boost", 10);
+
+        bool.put("minimum_should_match", 1);
+        return root.toString();
+    }
+
+    private Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("number_of_shards", shards);
+        settings.put("number_of_replicas", replicas);
+        return settings;
+    }
+
+    private Document mapping() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("contractId", Map.of("type", "long"));
+        properties.put("contractName", Map.of(
+                "type", "text",
+                "analyzer", analyzer,
+                "search_analyzer", searchAnalyzer,
+                "fields", Map.of("keyword", Map.of("type", "keyword", "ignore_above", 256))));
+        properties.put("contractNumber", Map.of(
+                "type", "keyword",
+                "fields", Map.of("text", Map.of("type", "text", "analyzer", "standard"))));
+        properties.put("category", Map.of("type", "keyword"));
+        properties.put("department", Map.of("type", "keyword"));
+        properties.put("status", Map.of("type", "integer"));
+        properties.put("versionId", Map.of("type", "long"));
+        properties.put("versionNumber", Map.of("type", "integer"));
+        properties.put("plainText", Map.of(
+                "type", "text",
+                "analyzer", analyzer,
+                "search_analyzer", searchAnalyzer,
+                "term_vector", "with_positions_offsets"));
+        properties.put("updateTime", Map.of("type", "date", "format", "epoch_millis"));
+        return Document.from(Map.of("properties", properties));
+    }
+}
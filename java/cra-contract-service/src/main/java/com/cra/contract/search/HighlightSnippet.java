@@ -0,0 +1,20 @@
+package com.cra.contract.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 高亮片段: 原文中的一个窗口及其中的关键词位置
+ */
+@Data
+@AllArgsConstructor
+public class HighlightSnippet {
+
+    private int start; // 窗口起始位置 (含)
+
+    private int end; // 窗口结束位置 (不含)
+
+    private int[] offsets; // 窗口内关键词在原文中的位置, 按 [起始, 结束, 起始, 结束...] 排列, 重叠的匹配已合并
+
+    private String html; // 转义后的窗口文本, 关键词用 <mark> 标记
+}
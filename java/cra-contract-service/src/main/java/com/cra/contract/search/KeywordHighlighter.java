@@ -0,0 +1,156 @@
+package com.cra.contract.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 关键词高亮: KeywordMatcher 一次扫描得到全部匹配, 重叠的匹配合并成区间, 相邻的上下文窗口合并成一个片段
+ * 扫描过程只往一个 int 数组里追加区间, 片段 HTML 直接从原文转义拼接, 不截取子串
+ */
+public final class KeywordHighlighter {
+
+    private KeywordHighlighter() {
+    }
+
+    /**
+     * @param context 关键词前后保留的字符数
+     * @param maxSnippets 最多返回的片段数, 达到后停止扫描
+     */
+    public static List<HighlightSnippet> highlight(KeywordMatcher matcher, String text, int context, int maxSnippets) {
+        if (text == null || text.isEmpty() || matcher.isEmpty() || maxSnippets <= 0) {
+            return List.of();
+        }
+        Ranges ranges = new Ranges();
+        int length = text.length();
+        matcher.scan(text, (start, end, keyword) -> {
+            ranges.add(start, end);
+            // 已经开始第 maxSnippets + 1 个窗口时, 前面的窗口都不会再变化, 停止扫描
+            return ranges.windowsBefore(context, length) <= maxSnippets;
+        });
+        return ranges.snippets(text, context, maxSnippets);
+    }
+
+    /**
+     * 只返回片段 HTML
+     */
+    public static List<String> fragments(KeywordMatcher matcher, String text, int fragmentSize, int maxFragments) {
+        List<HighlightSnippet> snippets = highlight(matcher, text, Math.max(0, fragmentSize / 2), maxFragments);
+        List<String> fragments = new ArrayList<>(snippets.size());
+        for (HighlightSnippet snippet : snippets) {
+            fragments.add(snippet.getHtml());
+        }
+        return fragments;
+    }
+
+    /**
+     * 合并后的匹配区间, 平铺存放 [起始, 结束, 起始, 结束...]
+     */
+    private static final class Ranges {
+
+        private int[] bounds = new int[32];
+
+        private int size; // 区间数
+
+        private int windows; // 已确定的窗口数
+
+        private int windowEnd = -1; // 最后一个已确定窗口的结束位置
+
+        private int counted; // 已计入窗口的区间数
+
+        void add(int start, int end) {
+            // 匹配按结束位置递增到达, 起始位置可能落在前面的区间内, 向前合并
+            while (size > 0 && start <= bounds[2 * size - 1]) {
+                start = Math.min(start, bounds[2 * size - 2]);
+                end = Math.max(end, bounds[2 * size - 1]);
+                size--;
+            }
+            if (2 * size + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length << 1);
+            }
+            bounds[2 * size] = start;
+            bounds[2 * size + 1] = end;
+            size++;
+            if (counted > size - 1) {
+                // 合并了已计数的区间, 重新计数
+                counted = 0;
+                windows = 0;
+                windowEnd = -1;
+            }
+        }
+
+        /**
+         * 除最后一个区间 (还可能与后续匹配合并) 外, 已有区间组成的窗口数
+         */
+        int windowsBefore(int context, int length) {
+            while (counted < size - 1) {
+                int rangeStart = bounds[2 * counted];
+                int rangeEnd = bounds[2 * counted + 1];
+                if (rangeStart - context >= windowEnd || windows == 0) {
+                    windows++;
+                }
+                windowEnd = Math.max(windowEnd, Math.min(length, rangeEnd + context));
+                counted++;
+            }
+            return windows;
+        }
+
+        List<HighlightSnippet> snippets(String text, int context, int maxSnippets) {
+            List<HighlightSnippet> snippets = new ArrayList<>();
+            int first = 0;
+            while (first < size && snippets.size() < maxSnippets) {
+                int start = Math.max(0, bounds[2 * first] - context);
+                int end = Math.min(text.length(), bounds[2 * first + 1] + context);
+                int last = first;
+                // 窗口相交的区间并入同一个片段
+                while (last + 1 < size && bounds[2 * (last + 1)] - context < end) {
+                    last++;
+                    end = Math.min(text.length(), Math.max(end, bounds[2 * last + 1] + context));
+                }
+                snippets.add(new HighlightSnippet(start, end, Arrays.copyOfRange(bounds, 2 * first, 2 * last + 2),
+                        html(text, start, end, first, last)));
+                first = last + 1;
+            }
+            return snippets;
+        }
+
+        private String html(String text, int start, int end, int first, int last) {
+            StringBuilder html = new StringBuilder(end - start + (last - first + 1) * 13 + 16);
+            int cursor = start;
+            for (int i = first; i <= last; i++) {
+                appendEscaped(html, text, cursor, bounds[2 * i]);
+                html.append("<mark>");
+                appendEscaped(html, text, bounds[2 * i], bounds[2 * i + 1]);
+                html.append("</mark>");
+                cursor = bounds[2 * i + 1];
+            }
+            appendEscaped(html, text, cursor, end);
+            return html.toString();
+        }
+    }
+
+    private static void appendEscaped(StringBuilder out, String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                case '\'':
+                    out.append("&#39;");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+}
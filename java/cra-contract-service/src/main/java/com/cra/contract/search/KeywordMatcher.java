@@ -0,0 +1,211 @@
+package com.cra.contract.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 多关键词匹配 (Aho-Corasick 自动机)
+ * 一次扫描找出所有关键词的出现位置, 与关键词个数无关; 关键词按字面匹配, 不是正则
+ * 大小写和全角字母数字在扫描时逐字符折叠, 不生成小写副本, 匹配位置直接对应原文
+ * 构建后只读, 可在线程间共享
+ */
+public final class KeywordMatcher {
+
+    private static final int NO_STATE = -1;
+
+    private final String[] keywords; // 折叠后的关键词, 去重
+
+    // 每个状态的转移: 按字符排序的边, 二分查找
+    private final char[][] edgeChars;
+
+    private final int[][] edgeTargets;
+
+    private final int[] failure;
+
+    private final int[] depth;
+
+    private final int[] keywordAt; // 在此状态结束的关键词序号, 没有为 -1
+
+    private final int[] outputLink; // 沿失败链最近的有关键词结束的状态, 没有为 0
+
+    /**
+     * 匹配回调
+     */
+    @FunctionalInterface
+    public interface MatchSink {
+        /**
+         * @param start 匹配起始位置 (含)
+         * @param end 匹配结束位置 (不含)
+         * @param keyword 关键词序号
+         * @return false 停止扫描
+         */
+        boolean onMatch(int start, int end, int keyword);
+    }
+
+    public static KeywordMatcher of(Collection<String> keywords) {
+        Set<String> folded = new LinkedHashSet<>();
+        for (String keyword : keywords) {
+            if (keyword != null && !keyword.isEmpty()) {
+                folded.add(fold(keyword));
+            }
+        }
+        return new KeywordMatcher(folded.toArray(new String[0]));
+    }
+
+    private KeywordMatcher(String[] keywords) {
+        this.keywords = keywords;
+
+        // 构建字典树
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        children.add(new HashMap<>());
+        depths.add(0);
+        ends.add(-1);
+        for (int k = 0; k < keywords.length; k++) {
+            int state = 0;
+            for (int i = 0; i < keywords[k].length(); i++) {
+                char c = keywords[k].charAt(i);
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(c, next);
+                    children.add(new HashMap<>());
+                    depths.add(i + 1);
+                    ends.add(-1);
+                }
+                state = next;
+            }
+            ends.set(state, k);
+        }
+
+        int stateCount = children.size();
+        edgeChars = new char[stateCount][];
+        edgeTargets = new int[stateCount][];
+        depth = new int[stateCount];
+        keywordAt = new int[stateCount];
+        failure = new int[stateCount];
+        outputLink = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            Map<Character, Integer> edges = children.get(state);
+            char[] chars = new char[edges.size()];
+            int i = 0;
+            for (char c : edges.keySet()) {
+                chars[i++] = c;
+            }
+            Arrays.sort(chars);
+            int[] targets = new int[chars.length];
+            for (i = 0; i < chars.length; i++) {
+                targets[i] = edges.get(chars[i]);
+            }
+            edgeChars[state] = chars;
+            edgeTargets[state] = targets;
+            depth[state] = depths.get(state);
+            keywordAt[state] = ends.get(state);
+        }
+
+        // 按层次计算失败链
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int target = edgeTargets[state][i];
+                int fallback = failure[state];
+                while (fallback != 0 && next(fallback, c) == NO_STATE) {
+                    fallback = failure[fallback];
+                }
+                int fallbackTarget = next(fallback, c);
+                failure[target] = fallbackTarget == NO_STATE || fallbackTarget == target ? 0 : fallbackTarget;
+                outputLink[target] = keywordAt[failure[target]] >= 0 ? failure[target] : outputLink[failure[target]];
+                queue.add(target);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return keywords.length == 0;
+    }
+
+    public int keywordCount() {
+        return keywords.length;
+    }
+
+    /**
+     * 扫描文本, 按结束位置顺序回调每个匹配 (包括相互重叠的匹配)
+     */
+    public void scan(CharSequence text, MatchSink sink) {
+        scan(text, 0, text.length(), sink);
+    }
+
+    public void scan(CharSequence text, int from, int to, MatchSink sink) {
+        if (keywords.length == 0) {
+            return;
+        }
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            char c = fold(text.charAt(i));
+            int target = next(state, c);
+            while (target == NO_STATE && state != 0) {
+                state = failure[state];
+                target = next(state, c);
+            }
+            state = target == NO_STATE ? 0 : target;
+            for (int output = keywordAt[state] >= 0 ? state : outputLink[state]; output != 0; output = outputLink[output]) {
+                if (!sink.onMatch(i + 1 - depth[output], i + 1, keywordAt[output])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 大小写和全角折叠, 一个字符对应一个字符
+     */
+    public static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+        // 中日文字、标点和韩文音节没有大小写, 跳过 Character.toLowerCase 的查表
+        if ((c >= 0x2E80 && c < 0xA640) || (c >= 0xAC00 && c < 0xD800)) {
+            return c;
+        }
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static String fold(String text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    private int next(int state, char c) {
+        char[] chars = edgeChars[state];
+        int index = chars.length < 8 ? linearSearch(chars, c) : Arrays.binarySearch(chars, c);
+        return index < 0 ? NO_STATE : edgeTargets[state][index];
+    }
+
+    private static int linearSearch(char[] chars, char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
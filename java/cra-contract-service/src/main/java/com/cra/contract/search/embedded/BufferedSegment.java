@@ -0,0 +1,195 @@
+package com.cra.contract.search.embedded;
+
+import com.cra.contract.search.ContractSearchDocument;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存段: 接收新写入的文档, 写入后立即可搜索
+ * 达到阈值或定时提交时写成段文件 (MappedSegment)
+ */
+final class BufferedSegment extends IndexSegment {
+
+    private final List<ContractSearchDocument> documents = new ArrayList<>();
+
+    private final IntList[] lengths = new IntList[FIELD_COUNT];
+
+    private final long[] totalLengths = new long[FIELD_COUNT];
+
+    private final List<Map<String, TermPostings>> fields = new ArrayList<>(FIELD_COUNT);
+
+    private long positionCount;
+
+    BufferedSegment(int id) {
+        super(id);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            lengths[field] = new IntList(64);
+            fields.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * @return 新文档的段内文档号
+     */
+    int add(TokenizedDocument tokenized) {
+        int doc = documents.size();
+        documents.add(tokenized.document);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            lengths[field].add(tokenized.lengths[field]);
+            totalLengths[field] += tokenized.lengths[field];
+            Map<String, TermPostings> postings = fields.get(field);
+            for (Map.Entry<String, IntList> entry : tokenized.fields[field].entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new TermPostings()).add(doc, entry.getValue());
+                positionCount += entry.getValue().size();
+            }
+        }
+        return doc;
+    }
+
+    /**
+     * 已写入的词元位置总数, 用来估算内存占用
+     */
+    long positionCount() {
+        return positionCount;
+    }
+
+    @Override
+    int docCount() {
+        return documents.size();
+    }
+
+    @Override
+    long contractId(int doc) {
+        return documents.get(doc).getContractId();
+    }
+
+    @Override
+    long versionId(int doc) {
+        Long versionId = documents.get(doc).getVersionId();
+        return versionId == null ? 0L : versionId;
+    }
+
+    @Override
+    int versionNumber(int doc) {
+        Integer versionNumber = documents.get(doc).getVersionNumber();
+        return versionNumber == null ? 0 : versionNumber;
+    }
+
+    @Override
+    ContractSearchDocument document(int doc) {
+        return documents.get(doc);
+    }
+
+    @Override
+    int fieldLength(int field, int doc) {
+        return lengths[field].get(doc);
+    }
+
+    @Override
+    long totalFieldLength(int field) {
+        return totalLengths[field];
+    }
+
+    @Override
+    int docFreq(int field, String term) {
+        TermPostings postings = fields.get(field).get(term);
+        return postings == null ? 0 : postings.docs.size();
+    }
+
+    @Override
+    PostingsCursor postings(int field, String term) {
+        TermPostings postings = fields.get(field).get(term);
+        return postings == null ? null : postings.cursor();
+    }
+
+    /**
+     * 只在段不再写入后调用 (写段文件时)
+     */
+    @Override
+    TermIterator terms(int field) {
+        Map<String, TermPostings> postings = fields.get(field);
+        byte[][] terms = new byte[postings.size()][];
+        int i = 0;
+        for (String term : postings.keySet()) {
+            terms[i++] = term.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(terms, Arrays::compareUnsigned);
+        return new TermIterator() {
+            private int index = -1;
+
+            @Override
+            public byte[] next() {
+                return ++index < terms.length ? terms[index] : null;
+            }
+
+            @Override
+            public PostingsCursor postings() {
+                return postings.get(new String(terms[index], StandardCharsets.UTF_8)).cursor();
+            }
+        };
+    }
+
+    /**
+     * 单个词项的倒排表: 文档号、词频, 位置平铺存放
+     */
+    private static final class TermPostings {
+
+        private final IntList docs = new IntList(2);
+
+        private final IntList freqs = new IntList(2);
+
+        private final IntList positionStarts = new IntList(2);
+
+        private final IntList positions = new IntList(4);
+
+        void add(int doc, IntList termPositions) {
+            docs.add(doc);
+            freqs.add(termPositions.size());
+            positionStarts.add(positions.size());
+            for (int i = 0; i < termPositions.size(); i++) {
+                positions.add(termPositions.get(i));
+            }
+        }
+
+        PostingsCursor cursor() {
+            return new PostingsCursor() {
+                private int index = -1;
+
+                private int[] buffer = new int[8];
+
+                @Override
+                public int docFreq() {
+                    return docs.size();
+                }
+
+                @Override
+                public int nextDoc() {
+                    return ++index < docs.size() ? docs.get(index) : NO_MORE_DOCS;
+                }
+
+                @Override
+                public int freq() {
+                    return freqs.get(index);
+                }
+
+                @Override
+                public int[] positions() {
+                    int freq = freqs.get(index);
+                    if (buffer.length < freq) {
+                        buffer = new int[freq];
+                    }
+                    int start = positionStarts.get(index);
+                    for (int i = 0; i < freq; i++) {
+                        buffer[i] = positions.get(start + i);
+                    }
+                    return buffer;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.cra.contract.search.embedded;
+
+/**
+ * 分词: 中日韩文字按相邻两字切分 (二元组), 拉丁字母和数字按连续串切分并转小写, 全角字母数字折叠为半角
+ * 每个词元依次分配位置号, 短语查询按位置号连续判断
+ * 孤立的单个汉字 (前后都不是汉字) 作为单字词元索引
+ */
+final class ContractTokenizer {
+
+    // 过长的连续字母数字串 (如编码后的数据) 截断, 避免撑大词典
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    private ContractTokenizer() {
+    }
+
+    @FunctionalInterface
+    interface TokenSink {
+        void accept(String term, int position);
+    }
+
+    /**
+     * @return 词元个数
+     */
+    static int tokenize(String text, TokenSink sink) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int position = 0;
+        StringBuilder word = new StringBuilder();
+        int previousCjk = -1; // 当前汉字串中的上一个字
+        boolean cjkEmitted = false; // 当前汉字串是否已输出过二元组
+        int length = text.length();
+        int i = 0;
+        while (i <= length) {
+            int cp = ' '; // 末尾补一个分隔符, 输出最后一个词元
+            if (i < length) {
+                int raw = text.codePointAt(i);
+                i += Character.charCount(raw);
+                cp = fold(raw);
+            } else {
+                i++;
+            }
+
+            boolean cjk = isCjk(cp);
+            if (!cjk && previousCjk >= 0) {
+                // 汉字串结束, 单字串输出单字
+                if (!cjkEmitted) {
+                    sink.accept(new String(Character.toChars(previousCjk)), position++);
+                }
+                previousCjk = -1;
+                cjkEmitted = false;
+            }
+            if (cjk) {
+                if (word.length() > 0) {
+                    sink.accept(word.toString(), position++);
+                    word.setLength(0);
+                }
+                if (previousCjk >= 0) {
+                    sink.accept(new StringBuilder(4).appendCodePoint(previousCjk).appendCodePoint(cp).toString(), position++);
+                    cjkEmitted = true;
+                }
+                previousCjk = cp;
+            } else if (Character.isLetterOrDigit(cp)) {
+                if (word.length() < MAX_TOKEN_LENGTH) {
+                    word.appendCodePoint(cp);
+                }
+            } else if (word.length() > 0) {
+                sink.accept(word.toString(), position++);
+                word.setLength(0);
+            }
+        }
+        return position;
+    }
+
+    private static int fold(int cp) {
+        // 全角 ASCII
+        if (cp >= 0xFF01 && cp <= 0xFF5E) {
+            cp -= 0xFEE0;
+        }
+        if (cp < 0x80) {
+            return cp >= 'A' && cp <= 'Z' ? cp + 32 : cp;
+        }
+        return Character.toLowerCase(cp);
+    }
+
+    private static boolean isCjk(int cp) {
+        if (cp < 0x2E80) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
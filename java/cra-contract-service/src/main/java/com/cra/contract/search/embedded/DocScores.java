@@ -0,0 +1,114 @@
+package com.cra.contract.search.embedded;
+
+import java.util.Arrays;
+
+/**
+ * 段内命中文档及得分, 文档号升序
+ * 布尔查询的各子句在这里做交集、并集和差集, 得分按 BM25 累加
+ */
+final class DocScores {
+
+    static final DocScores EMPTY = new DocScores(0);
+
+    private int[] docs;
+
+    private float[] scores;
+
+    private int size;
+
+    DocScores(int capacity) {
+        docs = new int[Math.max(1, capacity)];
+        scores = new float[docs.length];
+    }
+
+    /**
+     * 追加命中, 文档号必须递增
+     */
+    void add(int doc, float score) {
+        if (size == docs.length) {
+            int capacity = docs.length + (docs.length >> 1) + 1;
+            docs = Arrays.copyOf(docs, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        docs[size] = doc;
+        scores[size] = score;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int index) {
+        return docs[index];
+    }
+
+    float score(int index) {
+        return scores[index];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    static DocScores union(DocScores a, DocScores b) {
+        if (a.isEmpty()) {
+            return b;
+        }
+        if (b.isEmpty()) {
+            return a;
+        }
+        DocScores result = new DocScores(a.size + b.size);
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.docs[i] < b.docs[j])) {
+                result.add(a.docs[i], a.scores[i]);
+                i++;
+            } else if (i == a.size || b.docs[j] < a.docs[i]) {
+                result.add(b.docs[j], b.scores[j]);
+                j++;
+            } else {
+                result.add(a.docs[i], a.scores[i] + b.scores[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    static DocScores intersect(DocScores a, DocScores b) {
+        DocScores result = new DocScores(Math.min(a.size, b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.docs[i] < b.docs[j]) {
+                i++;
+            } else if (a.docs[i] > b.docs[j]) {
+                j++;
+            } else {
+                result.add(a.docs[i], a.scores[i] + b.scores[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    static DocScores minus(DocScores a, DocScores b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return a;
+        }
+        DocScores result = new DocScores(a.size);
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.docs[j] < a.docs[i]) {
+                j++;
+            }
+            if (j == b.size || b.docs[j] != a.docs[i]) {
+                result.add(a.docs[i], a.scores[i]);
+            }
+        }
+        return result;
+    }
+}
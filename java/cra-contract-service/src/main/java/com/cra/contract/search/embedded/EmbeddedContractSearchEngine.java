@@ -0,0 +1,808 @@
+package com.cra.contract.search.embedded;
+
+import com.cra.common.exception.BusinessException;
+import com.cra.contract.dto.ContractSearchHit;
+import com.cra.contract.entity.ContractContent;
+import com.cra.contract.extraction.ContractContentReader;
+import com.cra.contract.repository.ContractContentRepository;
+import com.cra.contract.search.ContractSearchDocument;
+import com.cra.contract.search.ContractSearchEngine;
+import com.cra.contract.search.KeywordHighlighter;
+import com.cra.contract.search.KeywordMatcher;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内嵌全文搜索引擎, 不依赖 Elasticsearch, 适合单节点部署 (contract.search.engine=embedded)
+ * - 倒排索引: 中文按二元组、字母数字按连续串分词 (ContractTokenizer), 标题和正文两个字段, 倒排表带词元位置
+ * - 新文档写入内存段立即可搜索; 达到阈值或定时提交时写成段文件并内存映射, 段数过多时合并最小的若干段
+ * - 更新或删除只在旧文档所在段标记删除, 删除标记随提交点持久化
+ * - 查询支持 AND / OR / 排除和短语, 按 BM25 排序; 高亮时只读取当前页命中合同的正文分块
+ * 提交点 (manifest) 之后的写入在进程崩溃时丢失, 可调用重建索引接口恢复; 索引目录不存在时启动后自动全量重建
+ * 索引只在本节点, 多实例部署应使用 Elasticsearch
+ */
+@Component
+@ConditionalOnProperty(name = "contract.search.engine", havingValue = "embedded")
+public class EmbeddedContractSearchEngine implements ContractSearchEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedContractSearchEngine.class);
+
+    private static final String MANIFEST = "segments.properties";
+
+    private static final float K1 = 1.2f;
+
+    private static final float B = 0.75f;
+
+    @Value("${contract.search.embedded.path:./data/search-index}")
+    private String indexPath;
+
+    // 内存段文档数或词元位置数达到阈值时写成段文件
+    @Value("${contract.search.embedded.flush-docs:1000}")
+    private int flushDocs;
+
+    @Value("${contract.search.embedded.flush-positions:20000000}")
+    private long flushPositions;
+
+    @Value("${contract.search.embedded.max-segments:10}")
+    private int maxSegments;
+
+    @Value("${contract.search.embedded.title-boost:2.0}")
+    private float titleBoost;
+
+    @Value("${contract.search.embedded.max-result-window:10000}")
+    private int maxResultWindow;
+
+    @Value("${contract.search.highlight.fragment-size:100}")
+    private int fragmentSize;
+
+    @Value("${contract.search.highlight.fragments:3}")
+    private int fragments;
+
+    // 高亮时最多读取的正文分块数
+    @Value("${contract.search.highlight.max-chunks:4}")
+    private int maxHighlightChunks;
+
+    @Autowired
+    private ContractContentRepository contractContentRepository;
+
+    @Autowired
+    private ContractContentReader contractContentReader;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 搜索持读锁; 写入、删除、段替换持写锁
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 写段文件、合并和提交互斥
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    private final List<IndexSegment> segments = new ArrayList<>();
+
+    private final Map<Integer, IndexSegment> segmentsById = new HashMap<>();
+
+    // 合同ID -> 存活文档地址 (段ID << 32 | 段内文档号)
+    private final Map<Long, Long> liveDocs = new HashMap<>();
+
+    private BufferedSegment buffer;
+
+    private int nextSegmentId;
+
+    private Path directory;
+
+    private volatile boolean dirty;
+
+    private boolean rebuildRequired;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Paths.get(indexPath).toAbsolutePath();
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            try {
+                loadCommitPoint(manifest);
+            } catch (IOException | RuntimeException e) {
+                logger.error("加载搜索索引失败, 将重建索引: {}", e.getMessage(), e);
+                segments.clear();
+                segmentsById.clear();
+                rebuildRequired = true;
+            }
+        } else {
+            rebuildRequired = true;
+        }
+
+        buffer = new BufferedSegment(nextSegmentId++);
+        register(buffer);
+        for (IndexSegment segment : segments) {
+            for (int doc = 0; doc < segment.docCount(); doc++) {
+                if (!segment.isDeleted(doc)) {
+                    deleteLive(segment.contractId(doc));
+                    liveDocs.put(segment.contractId(doc), address(segment.id, doc));
+                }
+            }
+        }
+        if (!rebuildRequired) {
+            removeUnreferencedFiles(referencedFiles());
+        }
+
+        Gauge.builder("contract.search.embedded.docs", liveDocs, Map::size)
+                .description("内嵌搜索索引中的合同数")
+                .register(meterRegistry);
+        Gauge.builder("contract.search.embedded.segments", segments, List::size)
+                .description("内嵌搜索索引段数")
+                .register(meterRegistry);
+        logger.info("内嵌搜索索引已加载: {}, {} 个段, {} 个合同", directory, segments.size(), liveDocs.size());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        commit();
+    }
+
+    @Override
+    public boolean needsRebuild() {
+        return rebuildRequired;
+    }
+
+    @Override
+    public void index(List<ContractSearchDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        // 分词不持锁
+        List<TokenizedDocument> tokenized = new ArrayList<>(documents.size());
+        for (ContractSearchDocument document : documents) {
+            tokenized.add(TokenizedDocument.of(document));
+        }
+
+        boolean flush;
+        lock.writeLock().lock();
+        try {
+            for (TokenizedDocument document : tokenized) {
+                long contractId = document.document.getContractId();
+                deleteLive(contractId);
+                liveDocs.put(contractId, address(buffer.id, buffer.add(document)));
+            }
+            dirty = true;
+            flush = buffer.docCount() >= flushDocs || buffer.positionCount() >= flushPositions;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (flush) {
+            commitLock.lock();
+            try {
+                flushBuffer();
+                mergeIfNeeded();
+            } catch (IOException e) {
+                // 内存段仍可搜索, 下次提交时重试
+                logger.error("写入搜索索引段失败: {}", e.getMessage(), e);
+            } finally {
+                commitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 状态和更新时间在这里只存储、不检索也不在结果中返回, 只有这两个字段变化时无需重写文档;
+     * 名称等检索字段变化需要连同正文重新分词, 返回 false 由调用方写入完整文档
+     */
+    @Override
+    public boolean update(List<ContractSearchDocument> documents) {
+        for (ContractSearchDocument document : documents) {
+            if (document.getContractName() != null || document.getContractNumber() != null
+                    || document.getCategory() != null || document.getDepartment() != null
+                    || document.getVersionId() != null || document.getPlainText() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void delete(Long contractId) {
+        lock.writeLock().lock();
+        try {
+            if (deleteLive(contractId)) {
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<ContractSearchHit> search(String keyword, Pageable pageable) {
+        EmbeddedQuery query = EmbeddedQuery.parse(keyword);
+        if (query.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        long window = pageable.getOffset() + pageable.getPageSize();
+        if (window > maxResultWindow) {
+            throw new BusinessException(400, "最多只能查看前 " + maxResultWindow + " 条搜索结果");
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<ContractSearchDocument> documents = new ArrayList<>();
+        List<Float> scores = new ArrayList<>();
+        long total = 0;
+        lock.readLock().lock();
+        try {
+            Statistics statistics = statistics(query);
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(Comparator.comparingDouble(scored -> scored.score));
+            for (IndexSegment segment : segments) {
+                DocScores matches = evaluate(segment, query, statistics);
+                for (int i = 0; i < matches.size(); i++) {
+                    int doc = matches.doc(i);
+                    if (segment.isDeleted(doc)) {
+                        continue;
+                    }
+                    total++;
+                    float score = matches.score(i);
+                    if (top.size() < window) {
+                        top.add(new ScoredDoc(segment, doc, score));
+                    } else if (score > top.peek().score) {
+                        top.poll();
+                        top.add(new ScoredDoc(segment, doc, score));
+                    }
+                }
+            }
+            ScoredDoc[] ranked = top.toArray(new ScoredDoc[0]);
+            Arrays.sort(ranked, (a, b) -> Float.compare(b.score, a.score));
+            for (int i = (int) pageable.getOffset(); i < ranked.length; i++) {
+                documents.add(ranked[i].segment.document(ranked[i].doc));
+                scores.add(ranked[i].score);
+            }
+        } finally {
+            lock.readLock().unlock();
+            sample.stop(Timer.builder("contract.search.embedded.query")
+                    .description("内嵌搜索查询耗时 (不含高亮)")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+
+        // 高亮需要读取正文, 在锁外进行
+        KeywordMatcher matcher = KeywordMatcher.of(query.highlightTexts());
+        List<ContractSearchHit> hits = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            ContractSearchDocument document = documents.get(i);
+            hits.add(new ContractSearchHit(document.getContractId(), document.getContractName(),
+                    document.getContractNumber(), document.getCategory(), document.getDepartment(),
+                    document.getVersionNumber(), scores.get(i), highlight(document, matcher)));
+        }
+        return new PageImpl<>(hits, pageable, total);
+    }
+
+    /**
+     * 定时提交: 内存段落盘, 持久化删除标记, 写入提交点
+     */
+    @Scheduled(fixedDelayString = "${contract.search.embedded.commit-interval:5000}")
+    public void commitIfDirty() {
+        if (dirty) {
+            commit();
+        }
+    }
+
+    private void commit() {
+        commitLock.lock();
+        try {
+            dirty = false;
+            flushBuffer();
+            mergeIfNeeded();
+            writeCommitPoint();
+        } catch (IOException | RuntimeException e) {
+            dirty = true;
+            logger.error("提交搜索索引失败: {}", e.getMessage(), e);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // ---------------- 段管理 ----------------
+
+    /**
+     * 换上新的内存段, 把之前的内存段 (含上次落盘失败的) 写成段文件
+     * 调用方持有 commitLock
+     */
+    private void flushBuffer() throws IOException {
+        List<IndexSegment> frozen = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            if (buffer.docCount() > 0) {
+                buffer = new BufferedSegment(nextSegmentId++);
+                register(buffer);
+            }
+            for (IndexSegment segment : segments) {
+                if (segment instanceof BufferedSegment && segment != buffer) {
+                    frozen.add(segment);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!frozen.isEmpty()) {
+            rewrite(frozen);
+        }
+    }
+
+    /**
+     * 段文件数超过上限时合并存活文档最少的若干段, 每个文档被重写的次数与总文档数成对数关系
+     * 调用方持有 commitLock
+     */
+    private void mergeIfNeeded() throws IOException {
+        List<IndexSegment> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                if (segment instanceof MappedSegment) {
+                    candidates.add(segment);
+                }
+            }
+            if (candidates.size() <= maxSegments) {
+                return;
+            }
+            candidates.sort(Comparator.comparingInt(IndexSegment::liveDocCount));
+        } finally {
+            lock.readLock().unlock();
+        }
+        rewrite(new ArrayList<>(candidates.subList(0, Math.max(2, maxSegments))));
+    }
+
+    /**
+     * 把若干段的存活文档写成一个新段文件并替换原段
+     * 写文件期间原段照常提供搜索, 期间新增的删除标记在替换时转移到新段
+     */
+    private void rewrite(List<IndexSegment> sources) throws IOException {
+        List<BitSet> deletes = new ArrayList<>(sources.size());
+        lock.readLock().lock();
+        try {
+            for (IndexSegment source : sources) {
+                deletes.add(source.deletedSnapshot());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int id = nextSegmentId++;
+        Path file = segmentFile(id);
+        SegmentWriter.Result result = SegmentWriter.write(file, sources, deletes);
+        MappedSegment merged = result.docCount > 0 ? MappedSegment.open(id, file) : null;
+
+        lock.writeLock().lock();
+        try {
+            for (int s = 0; s < sources.size(); s++) {
+                IndexSegment source = sources.get(s);
+                int[] docMap = result.docMap[s];
+                for (int doc = 0; doc < docMap.length; doc++) {
+                    if (docMap[doc] < 0) {
+                        continue;
+                    }
+                    if (source.isDeleted(doc)) {
+                        merged.delete(docMap[doc]);
+                    } else {
+                        liveDocs.put(source.contractId(doc), address(id, docMap[doc]));
+                    }
+                }
+                segments.remove(source);
+                segmentsById.remove(source.id);
+            }
+            if (merged != null) {
+                register(merged);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("搜索索引段 {} 已写入: {} 个文档, 来源 {} 个段", id, result.docCount, sources.size());
+    }
+
+    /**
+     * 持久化删除标记并原子替换提交点, 之后清理不再引用的文件
+     * 调用方持有 commitLock
+     */
+    private void writeCommitPoint() throws IOException {
+        Map<IndexSegment, BitSet> pendingDeletes = new IdentityHashMap<>();
+        List<IndexSegment> committed = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                if (segment instanceof MappedSegment) {
+                    committed.add(segment);
+                    if (segment.hasUnsavedDeletes()) {
+                        pendingDeletes.put(segment, segment.beginSaveDeletes());
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Map<IndexSegment, Integer> generations = new IdentityHashMap<>();
+            for (Map.Entry<IndexSegment, BitSet> entry : pendingDeletes.entrySet()) {
+                IndexSegment segment = entry.getKey();
+                int generation = segment.deleteGeneration + 1;
+                writeDurably(deletesFile(segment.id, generation), entry.getValue().toByteArray());
+                generations.put(segment, generation);
+            }
+
+            StringBuilder list = new StringBuilder();
+            for (IndexSegment segment : committed) {
+                if (list.length() > 0) {
+                    list.append(',');
+                }
+                list.append(segment.id).append(':').append(generations.getOrDefault(segment, segment.deleteGeneration));
+            }
+            Properties manifest = new Properties();
+            manifest.setProperty("segments", list.toString());
+            manifest.setProperty("nextSegmentId", String.valueOf(nextSegmentId));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            manifest.store(bytes, "contract search index commit point");
+            writeDurably(directory.resolve(MANIFEST), bytes.toByteArray());
+
+            generations.forEach((segment, generation) -> segment.deleteGeneration = generation);
+        } catch (IOException | RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDeletes.keySet().forEach(IndexSegment::saveDeletesFailed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        removeUnreferencedFiles(referencedFiles());
+    }
+
+    private void loadCommitPoint(Path manifestFile) throws IOException {
+        Properties manifest = new Properties();
+        try (InputStream is = Files.newInputStream(manifestFile)) {
+            manifest.load(is);
+        }
+        nextSegmentId = Integer.parseInt(manifest.getProperty("nextSegmentId", "0"));
+        String list = manifest.getProperty("segments", "");
+        for (String entry : list.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            int id = Integer.parseInt(parts[0]);
+            int generation = Integer.parseInt(parts[1]);
+            MappedSegment segment = MappedSegment.open(id, segmentFile(id));
+            if (generation > 0) {
+                segment.loadDeletes(BitSet.valueOf(Files.readAllBytes(deletesFile(id, generation))));
+            }
+            segment.deleteGeneration = generation;
+            register(segment);
+        }
+    }
+
+    private Set<Path> referencedFiles() {
+        Set<Path> referenced = new HashSet<>();
+        referenced.add(directory.resolve(MANIFEST));
+        lock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                if (segment instanceof MappedSegment) {
+                    referenced.add(segmentFile(segment.id));
+                    if (segment.deleteGeneration > 0) {
+                        referenced.add(deletesFile(segment.id, segment.deleteGeneration));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return referenced;
+    }
+
+    /**
+     * 删除合并掉的段文件、旧的删除标记文件和未完成的临时文件
+     */
+    private void removeUnreferencedFiles(Set<Path> referenced) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{seg_*,*.tmp}")) {
+            for (Path file : files) {
+                if (!referenced.contains(file)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        logger.warn("清理搜索索引文件失败: {} - {}", file, e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理搜索索引目录失败: {}", e.getMessage());
+        }
+    }
+
+    private void writeDurably(Path file, byte[] content) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = ByteBuffer.wrap(content);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path segmentFile(int id) {
+        return directory.resolve("seg_" + id + ".seg");
+    }
+
+    private Path deletesFile(int id, int generation) {
+        return directory.resolve("seg_" + id + "_" + generation + ".del");
+    }
+
+    private void register(IndexSegment segment) {
+        segments.add(segment);
+        segmentsById.put(segment.id, segment);
+    }
+
+    /**
+     * 标记合同当前存活的文档为删除, 调用方持有写锁
+     */
+    private boolean deleteLive(long contractId) {
+        Long address = liveDocs.remove(contractId);
+        if (address == null) {
+            return false;
+        }
+        IndexSegment segment = segmentsById.get((int) (address >>> 32));
+        if (segment != null) {
+            segment.delete((int) (long) address);
+        }
+        return true;
+    }
+
+    private static long address(int segmentId, int doc) {
+        return ((long) segmentId << 32) | (doc & 0xFFFFFFFFL);
+    }
+
+    // ---------------- 查询 ----------------
+
+    /**
+     * BM25 所需的全局统计: 文档总数、字段平均长度、每个子句在每个字段上的 IDF (短语为各词项之和)
+     * 文档数包含已标记删除但尚未合并掉的文档, 与 Lucene 的处理方式一致
+     */
+    private Statistics statistics(EmbeddedQuery query) {
+        Statistics statistics = new Statistics();
+        long docCount = 0;
+        long[] totalLengths = new long[IndexSegment.FIELD_COUNT];
+        for (IndexSegment segment : segments) {
+            docCount += segment.docCount();
+            for (int field = 0; field < IndexSegment.FIELD_COUNT; field++) {
+                totalLengths[field] += segment.totalFieldLength(field);
+            }
+        }
+        for (int field = 0; field < IndexSegment.FIELD_COUNT; field++) {
+            statistics.averageLengths[field] = docCount == 0 ? 1f : Math.max(1f, (float) totalLengths[field] / docCount);
+        }
+
+        List<EmbeddedQuery.Clause> clauses = new ArrayList<>(query.excluded);
+        query.required.forEach(clauses::addAll);
+        Map<String, long[]> docFreqs = new HashMap<>();
+        for (EmbeddedQuery.Clause clause : clauses) {
+            float[] idf = new float[IndexSegment.FIELD_COUNT];
+            for (int field = 0; field < IndexSegment.FIELD_COUNT; field++) {
+                for (String term : clause.terms) {
+                    long[] freqs = docFreqs.computeIfAbsent(term, key -> new long[IndexSegment.FIELD_COUNT + 1]);
+                    if (freqs[IndexSegment.FIELD_COUNT] == 0) {
+                        // 每个词项只统计一次
+                        for (IndexSegment segment : segments) {
+                            for (int f = 0; f < IndexSegment.FIELD_COUNT; f++) {
+                                freqs[f] += segment.docFreq(f, term);
+                            }
+                        }
+                        freqs[IndexSegment.FIELD_COUNT] = 1;
+                    }
+                    long docFreq = freqs[field];
+                    idf[field] += (float) Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+                }
+            }
+            statistics.idf.put(clause, idf);
+        }
+        return statistics;
+    }
+
+    private DocScores evaluate(IndexSegment segment, EmbeddedQuery query, Statistics statistics) {
+        DocScores result = null;
+        for (List<EmbeddedQuery.Clause> group : query.required) {
+            DocScores groupScores = DocScores.EMPTY;
+            for (EmbeddedQuery.Clause clause : group) {
+                groupScores = DocScores.union(groupScores, clauseScores(segment, clause, statistics));
+            }
+            result = result == null ? groupScores : DocScores.intersect(result, groupScores);
+            if (result.isEmpty()) {
+                return DocScores.EMPTY;
+            }
+        }
+        for (EmbeddedQuery.Clause clause : query.excluded) {
+            result = DocScores.minus(result, clauseScores(segment, clause, statistics));
+        }
+        return result;
+    }
+
+    private DocScores clauseScores(IndexSegment segment, EmbeddedQuery.Clause clause, Statistics statistics) {
+        DocScores scores = DocScores.EMPTY;
+        for (int field = 0; field < IndexSegment.FIELD_COUNT; field++) {
+            float boost = field == IndexSegment.TITLE ? titleBoost : 1f;
+            float idf = statistics.idf.get(clause)[field] * boost;
+            DocScores fieldScores = clause.isPhrase()
+                    ? phraseScores(segment, field, clause, idf, statistics.averageLengths[field])
+                    : termScores(segment, field, clause.terms[0], idf, statistics.averageLengths[field]);
+            scores = DocScores.union(scores, fieldScores);
+        }
+        return scores;
+    }
+
+    private DocScores termScores(IndexSegment segment, int field, String term, float idf, float averageLength) {
+        PostingsCursor postings = segment.postings(field, term);
+        if (postings == null) {
+            return DocScores.EMPTY;
+        }
+        DocScores scores = new DocScores(postings.docFreq());
+        for (int doc = postings.nextDoc(); doc != PostingsCursor.NO_MORE_DOCS; doc = postings.nextDoc()) {
+            scores.add(doc, bm25(idf, postings.freq(), segment.fieldLength(field, doc), averageLength));
+        }
+        return scores;
+    }
+
+    /**
+     * 短语: 各词项倒排表求交, 再按位置判断是否连续出现, 以短语出现次数作为词频
+     */
+    private DocScores phraseScores(IndexSegment segment, int field, EmbeddedQuery.Clause clause,
+                                   float idf, float averageLength) {
+        int count = clause.terms.length;
+        PostingsCursor[] cursors = new PostingsCursor[count];
+        for (int i = 0; i < count; i++) {
+            cursors[i] = segment.postings(field, clause.terms[i]);
+            if (cursors[i] == null) {
+                return DocScores.EMPTY;
+            }
+        }
+        DocScores scores = new DocScores(16);
+        int[] docs = new int[count];
+        for (int i = 0; i < count; i++) {
+            docs[i] = cursors[i].nextDoc();
+        }
+        int[][] positions = new int[count][];
+        while (true) {
+            int target = 0;
+            for (int doc : docs) {
+                target = Math.max(target, doc);
+            }
+            if (target == PostingsCursor.NO_MORE_DOCS) {
+                return scores;
+            }
+            boolean aligned = true;
+            for (int i = 0; i < count; i++) {
+                while (docs[i] < target) {
+                    docs[i] = cursors[i].nextDoc();
+                }
+                aligned &= docs[i] == target;
+            }
+            if (!aligned) {
+                continue;
+            }
+            for (int i = 0; i < count; i++) {
+                positions[i] = cursors[i].positions();
+            }
+            int phraseFreq = phraseFreq(cursors, positions, clause.positions);
+            if (phraseFreq > 0) {
+                scores.add(target, bm25(idf, phraseFreq, segment.fieldLength(field, target), averageLength));
+            }
+            for (int i = 0; i < count; i++) {
+                docs[i] = cursors[i].nextDoc();
+            }
+        }
+    }
+
+    private static int phraseFreq(PostingsCursor[] cursors, int[][] positions, int[] offsets) {
+        int matches = 0;
+        for (int p = 0; p < cursors[0].freq(); p++) {
+            int start = positions[0][p] - offsets[0];
+            boolean match = true;
+            for (int i = 1; i < cursors.length && match; i++) {
+                match = Arrays.binarySearch(positions[i], 0, cursors[i].freq(), start + offsets[i]) >= 0;
+            }
+            if (match) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static float bm25(float idf, int freq, int length, float averageLength) {
+        return idf * freq * (K1 + 1) / (freq + K1 * (1 - B + B * length / averageLength));
+    }
+
+    // ---------------- 高亮 ----------------
+
+    /**
+     * 在命中合同的正文分块中找关键词所在片段, 正文没有命中 (只命中标题) 时高亮合同名称
+     */
+    private List<String> highlight(ContractSearchDocument document, KeywordMatcher matcher) {
+        try {
+            Optional<ContractContent> content = document.getVersionId() == null ? Optional.empty()
+                    : contractContentRepository.findByContractIdAndVersionId(document.getContractId(), document.getVersionId());
+            if (content.isPresent()) {
+                int chunkCount = Math.min(contractContentReader.chunkCountOf(content.get()), maxHighlightChunks);
+                for (int i = 0; i < chunkCount; i++) {
+                    List<String> result = contractContentReader.readChunkPlainText(content.get(), i)
+                            .map(text -> KeywordHighlighter.fragments(matcher, text, fragmentSize, fragments))
+                            .orElse(List.of());
+                    if (!result.isEmpty()) {
+                        return result;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("生成搜索高亮失败: contractId={} - {}", document.getContractId(), e.getMessage());
+        }
+        return KeywordHighlighter.fragments(matcher, document.getContractName(), fragmentSize, fragments);
+    }
+
+    private static final class Statistics {
+
+        private final float[] averageLengths = new float[IndexSegment.FIELD_COUNT];
+
+        private final Map<EmbeddedQuery.Clause, float[]> idf = new IdentityHashMap<>();
+    }
+
+    private static final class ScoredDoc {
+
+        private final IndexSegment segment;
+
+        private final int doc;
+
+        private final float score;
+
+        ScoredDoc(IndexSegment segment, int doc, float score) {
+            this.segment = segment;
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+}
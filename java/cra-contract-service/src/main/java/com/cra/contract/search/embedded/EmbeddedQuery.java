@@ -0,0 +1,150 @@
+package com.cra.contract.search.embedded;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 查询语法
+ * - 空格分隔的多个词默认全部必须命中 (AND), 词之间写 OR 或 | 表示任一命中
+ * - 词前加 - 或 NOT 表示排除
+ * - 双引号 (半角或中文引号) 括起来的是短语, 按词元位置连续匹配
+ * - 分出多个词元的单个词 (如连续的中文) 也按短语匹配
+ */
+final class EmbeddedQuery {
+
+    // 单个查询的子句数上限
+    static final int MAX_CLAUSES = 32;
+
+    /**
+     * 查询子句: 单个词项或短语
+     */
+    static final class Clause {
+
+        final String text; // 原始文本, 高亮时使用
+
+        final String[] terms;
+
+        final int[] positions; // 词元在查询中的相对位置
+
+        private Clause(String text, String[] terms, int[] positions) {
+            this.text = text;
+            this.terms = terms;
+            this.positions = positions;
+        }
+
+        boolean isPhrase() {
+            return terms.length > 1;
+        }
+    }
+
+    final List<List<Clause>> required = new ArrayList<>(); // 每组内任一子句命中即可, 各组都必须命中
+
+    final List<Clause> excluded = new ArrayList<>();
+
+    private EmbeddedQuery() {
+    }
+
+    boolean isEmpty() {
+        return required.isEmpty();
+    }
+
+    /**
+     * 必须命中的子句原文, 用于高亮
+     */
+    List<String> highlightTexts() {
+        List<String> texts = new ArrayList<>();
+        for (List<Clause> group : required) {
+            for (Clause clause : group) {
+                texts.add(clause.text);
+            }
+        }
+        return texts;
+    }
+
+    static EmbeddedQuery parse(String input) {
+        EmbeddedQuery query = new EmbeddedQuery();
+        boolean or = false;
+        boolean not = false;
+        int clauses = 0;
+        int i = 0;
+        int length = input.length();
+        while (i < length && clauses < MAX_CLAUSES) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            boolean negate = not;
+            not = false;
+            if (c == '-' || c == '+') {
+                negate = negate || c == '-';
+                if (++i >= length) {
+                    break;
+                }
+                c = input.charAt(i);
+            }
+
+            String text;
+            if (c == '"' || c == '“') {
+                char close = c == '"' ? '"' : '”';
+                int end = input.indexOf(close, i + 1);
+                end = end < 0 ? length : end;
+                text = input.substring(i + 1, end);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(input.charAt(end))) {
+                    end++;
+                }
+                text = input.substring(i, end);
+                i = end;
+                if (text.equals("OR") || text.equals("|")) {
+                    or = !query.required.isEmpty();
+                    continue;
+                }
+                if (text.equals("AND")) {
+                    continue;
+                }
+                if (text.equals("NOT")) {
+                    not = true;
+                    continue;
+                }
+            }
+
+            Clause clause = clause(text);
+            if (clause == null) {
+                or = false;
+                continue;
+            }
+            clauses++;
+            if (negate) {
+                query.excluded.add(clause);
+            } else if (or) {
+                query.required.get(query.required.size() - 1).add(clause);
+            } else {
+                List<Clause> group = new ArrayList<>(1);
+                group.add(clause);
+                query.required.add(group);
+            }
+            or = false;
+        }
+        return query;
+    }
+
+    private static Clause clause(String text) {
+        List<String> terms = new ArrayList<>();
+        IntList positions = new IntList();
+        ContractTokenizer.tokenize(text, (term, position) -> {
+            terms.add(term);
+            positions.add(position);
+        });
+        if (terms.isEmpty()) {
+            return null;
+        }
+        int[] relative = new int[positions.size()];
+        for (int i = 0; i < relative.length; i++) {
+            relative[i] = positions.get(i);
+        }
+        return new Clause(text.trim(), terms.toArray(new String[0]), relative);
+    }
+}
@@ -0,0 +1,104 @@
+package com.cra.contract.search.embedded;
+
+import com.cra.contract.search.ContractSearchDocument;
+
+import java.util.BitSet;
+
+/**
+ * 索引段: 一批文档的倒排索引
+ * 段内文档号从 0 连续编号; 文档更新或删除时在所属段标记删除, 合并段时物理清除
+ * 两个字段: 标题 (合同名称、编号、类型、部门) 和正文
+ * 删除标记由 EmbeddedContractSearchEngine 的读写锁保护
+ */
+abstract class IndexSegment {
+
+    static final int TITLE = 0;
+
+    static final int BODY = 1;
+
+    static final int FIELD_COUNT = 2;
+
+    final int id;
+
+    private final BitSet deleted = new BitSet();
+
+    private int deletedCount;
+
+    private boolean deletesDirty; // 删除标记有未持久化的变更
+
+    int deleteGeneration; // 已持久化的删除标记文件版本, 0 表示没有
+
+    IndexSegment(int id) {
+        this.id = id;
+    }
+
+    abstract int docCount();
+
+    abstract long contractId(int doc);
+
+    abstract long versionId(int doc);
+
+    abstract int versionNumber(int doc);
+
+    /**
+     * 存储的合同基本信息, 不含正文
+     */
+    abstract ContractSearchDocument document(int doc);
+
+    abstract int fieldLength(int field, int doc);
+
+    abstract long totalFieldLength(int field);
+
+    /**
+     * @return 词项不存在时返回 0
+     */
+    abstract int docFreq(int field, String term);
+
+    /**
+     * @return 词项不存在时返回 null
+     */
+    abstract PostingsCursor postings(int field, String term);
+
+    abstract TermIterator terms(int field);
+
+    boolean isDeleted(int doc) {
+        return deleted.get(doc);
+    }
+
+    void delete(int doc) {
+        if (!deleted.get(doc)) {
+            deleted.set(doc);
+            deletedCount++;
+            deletesDirty = true;
+        }
+    }
+
+    int liveDocCount() {
+        return docCount() - deletedCount;
+    }
+
+    BitSet deletedSnapshot() {
+        return (BitSet) deleted.clone();
+    }
+
+    void loadDeletes(BitSet bits) {
+        deleted.or(bits);
+        deletedCount = deleted.cardinality();
+    }
+
+    boolean hasUnsavedDeletes() {
+        return deletesDirty;
+    }
+
+    /**
+     * 取出待持久化的删除标记; 写入失败时调用 saveDeletesFailed() 恢复未保存状态
+     */
+    BitSet beginSaveDeletes() {
+        deletesDirty = false;
+        return deletedSnapshot();
+    }
+
+    void saveDeletesFailed() {
+        deletesDirty = true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.cra.contract.search.embedded;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的 int 数组, 倒排表在内存中的存储单元, 避免 List<Integer> 的装箱开销
+ */
+final class IntList {
+
+    private int[] values;
+
+    private int size;
+
+    IntList() {
+        this(8);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
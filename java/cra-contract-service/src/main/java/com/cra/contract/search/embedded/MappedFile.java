@@ -0,0 +1,127 @@
+package com.cra.contract.search.embedded;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 只读内存映射文件
+ * 单个 MappedByteBuffer 最大 2GB, 大文件按 1GB 分片映射, 跨分片的读取逐字节拼接
+ * 映射在文件关闭后仍然有效, 由 GC 回收
+ */
+final class MappedFile {
+
+    private static final int CHUNK_SHIFT = 30;
+
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final MappedByteBuffer[] chunks;
+
+    private final long size;
+
+    private MappedFile(MappedByteBuffer[] chunks, long size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    static MappedFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(CHUNK_MASK + 1, size - offset));
+            }
+            return new MappedFile(chunks, size);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte get(long pos) {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].get((int) (pos & CHUNK_MASK));
+    }
+
+    int getInt(long pos) {
+        MappedByteBuffer chunk = chunks[(int) (pos >>> CHUNK_SHIFT)];
+        int offset = (int) (pos & CHUNK_MASK);
+        if (offset + Integer.BYTES <= chunk.limit()) {
+            return chunk.getInt(offset);
+        }
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (get(pos + i) & 0xFF);
+        }
+        return value;
+    }
+
+    long getLong(long pos) {
+        MappedByteBuffer chunk = chunks[(int) (pos >>> CHUNK_SHIFT)];
+        int offset = (int) (pos & CHUNK_MASK);
+        if (offset + Long.BYTES <= chunk.limit()) {
+            return chunk.getLong(offset);
+        }
+        return ((long) getInt(pos) << 32) | (getInt(pos + Integer.BYTES) & 0xFFFFFFFFL);
+    }
+
+    Input input(long pos) {
+        return new Input(pos);
+    }
+
+    /**
+     * 顺序读取游标
+     */
+    final class Input {
+
+        private long pos;
+
+        private Input(long pos) {
+            this.pos = pos;
+        }
+
+        long position() {
+            return pos;
+        }
+
+        void seek(long pos) {
+            this.pos = pos;
+        }
+
+        byte readByte() {
+            return get(pos++);
+        }
+
+        int readVInt() {
+            byte b = get(pos++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = get(pos++);
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+
+        int readInt() {
+            int value = getInt(pos);
+            pos += Integer.BYTES;
+            return value;
+        }
+
+        long readLong() {
+            long value = getLong(pos);
+            pos += Long.BYTES;
+            return value;
+        }
+
+        void readBytes(byte[] target) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] = get(pos++);
+            }
+        }
+    }
+}
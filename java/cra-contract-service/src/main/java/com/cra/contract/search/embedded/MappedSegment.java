@@ -0,0 +1,292 @@
+package com.cra.contract.search.embedded;
+
+import com.cra.contract.search.ContractSearchDocument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * 段文件: 只读, 内存映射后直接在映射区上查词典、读倒排表, 不加载进堆
+ * 文件格式 (见 SegmentWriter):
+ * - 倒排表: 每个文档 [文档号差值, 词频, 位置字节数, 位置差值...], 均为变长整数
+ * - 词典: 按 UTF-8 字节序排列的词项 [长度, 字节, 文档频率, 倒排表偏移], 以及定长的词项偏移表, 查询时二分查找
+ * - 存储字段和定长文档表
+ * - 文件尾: 各区偏移、文档数、每个字段的词项数和总长度
+ */
+final class MappedSegment extends IndexSegment {
+
+    static final int MAGIC = 0x43524153;
+
+    static final int FORMAT_VERSION = 1;
+
+    static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES
+            + FIELD_COUNT * (Long.BYTES + Integer.BYTES + Long.BYTES) + 2 * Integer.BYTES;
+
+    // contractId, versionId, versionNumber, 标题长度, 正文长度, 存储字段偏移
+    static final int DOC_ENTRY_SIZE = 2 * Long.BYTES + 3 * Integer.BYTES + Long.BYTES;
+
+    private final MappedFile file;
+
+    private final long docTableOffset;
+
+    private final int docCount;
+
+    private final long[] termIndexOffsets = new long[FIELD_COUNT];
+
+    private final int[] termCounts = new int[FIELD_COUNT];
+
+    private final long[] totalLengths = new long[FIELD_COUNT];
+
+    private MappedSegment(int id, MappedFile file) throws IOException {
+        super(id);
+        this.file = file;
+        long footer = file.size() - FOOTER_SIZE;
+        if (footer < 0 || file.getInt(file.size() - Integer.BYTES) != MAGIC
+                || file.getInt(file.size() - 2 * Integer.BYTES) != FORMAT_VERSION) {
+            throw new IOException("索引段文件格式不正确: segment " + id);
+        }
+        MappedFile.Input in = file.input(footer);
+        docTableOffset = in.readLong();
+        docCount = in.readInt();
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            termIndexOffsets[field] = in.readLong();
+            termCounts[field] = in.readInt();
+            totalLengths[field] = in.readLong();
+        }
+    }
+
+    static MappedSegment open(int id, Path path) throws IOException {
+        return new MappedSegment(id, MappedFile.open(path));
+    }
+
+    @Override
+    int docCount() {
+        return docCount;
+    }
+
+    @Override
+    long contractId(int doc) {
+        return file.getLong(docEntry(doc));
+    }
+
+    @Override
+    long versionId(int doc) {
+        return file.getLong(docEntry(doc) + Long.BYTES);
+    }
+
+    @Override
+    int versionNumber(int doc) {
+        return file.getInt(docEntry(doc) + 2 * Long.BYTES);
+    }
+
+    @Override
+    int fieldLength(int field, int doc) {
+        return file.getInt(docEntry(doc) + 2 * Long.BYTES + (1 + field) * Integer.BYTES);
+    }
+
+    @Override
+    ContractSearchDocument document(int doc) {
+        long entry = docEntry(doc);
+        MappedFile.Input in = file.input(file.getLong(entry + 2 * Long.BYTES + 3 * Integer.BYTES));
+        ContractSearchDocument document = new ContractSearchDocument();
+        long contractId = contractId(doc);
+        document.setId(String.valueOf(contractId));
+        document.setContractId(contractId);
+        document.setVersionId(versionId(doc));
+        document.setVersionNumber(versionNumber(doc));
+        document.setContractName(readString(in));
+        document.setContractNumber(readString(in));
+        document.setCategory(readString(in));
+        document.setDepartment(readString(in));
+        int status = in.readVInt();
+        document.setStatus(status == 0 ? null : status - 1);
+        return document;
+    }
+
+    @Override
+    long totalFieldLength(int field) {
+        return totalLengths[field];
+    }
+
+    @Override
+    int docFreq(int field, String term) {
+        long entry = findTerm(field, term.getBytes(StandardCharsets.UTF_8));
+        if (entry < 0) {
+            return 0;
+        }
+        MappedFile.Input in = file.input(entry);
+        int length = in.readVInt();
+        in.seek(in.position() + length);
+        return in.readInt();
+    }
+
+    @Override
+    PostingsCursor postings(int field, String term) {
+        long entry = findTerm(field, term.getBytes(StandardCharsets.UTF_8));
+        return entry < 0 ? null : cursorAt(entry, -1);
+    }
+
+    @Override
+    TermIterator terms(int field) {
+        return new TermIterator() {
+            private int index = -1;
+
+            private long entry;
+
+            private int termLength;
+
+            @Override
+            public byte[] next() {
+                if (++index >= termCounts[field]) {
+                    return null;
+                }
+                entry = file.getLong(termIndexOffsets[field] + (long) index * Long.BYTES);
+                MappedFile.Input in = file.input(entry);
+                byte[] term = new byte[in.readVInt()];
+                in.readBytes(term);
+                termLength = term.length;
+                return term;
+            }
+
+            @Override
+            public PostingsCursor postings() {
+                return cursorAt(entry, termLength);
+            }
+        };
+    }
+
+    private long docEntry(int doc) {
+        return docTableOffset + (long) doc * DOC_ENTRY_SIZE;
+    }
+
+    /**
+     * 二分查找词项
+     * @return 词项条目偏移, 不存在时返回 -1
+     */
+    private long findTerm(int field, byte[] term) {
+        int low = 0;
+        int high = termCounts[field] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entry = file.getLong(termIndexOffsets[field] + (long) mid * Long.BYTES);
+            int cmp = compareTerm(entry, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private int compareTerm(long entry, byte[] term) {
+        MappedFile.Input in = file.input(entry);
+        int length = in.readVInt();
+        long start = in.position();
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(file.get(start + i) & 0xFF, term[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, term.length);
+    }
+
+    /**
+     * @param termLength 已知的词项字节长度, 未知时传 -1
+     */
+    private PostingsCursor cursorAt(long entry, int termLength) {
+        MappedFile.Input in = file.input(entry);
+        int length = in.readVInt();
+        if (termLength >= 0 && termLength != length) {
+            throw new IllegalStateException("索引段词典损坏: segment " + id);
+        }
+        in.seek(in.position() + length);
+        int docFreq = in.readInt();
+        return new MappedPostingsCursor(docFreq, in.readLong());
+    }
+
+    private static String readString(MappedFile.Input in) {
+        int length = in.readVInt();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final class MappedPostingsCursor implements PostingsCursor {
+
+        private final int docFreq;
+
+        private final MappedFile.Input in;
+
+        private final MappedFile.Input positionsIn;
+
+        private int remaining;
+
+        private int doc;
+
+        private int freq;
+
+        private long positionsStart;
+
+        private long positionsEnd;
+
+        private int[] buffer = new int[8];
+
+        MappedPostingsCursor(int docFreq, long postingsOffset) {
+            this.docFreq = docFreq;
+            this.remaining = docFreq;
+            this.in = file.input(postingsOffset);
+            this.positionsIn = file.input(postingsOffset);
+            this.positionsEnd = postingsOffset;
+        }
+
+        @Override
+        public int docFreq() {
+            return docFreq;
+        }
+
+        @Override
+        public int nextDoc() {
+            if (remaining == 0) {
+                doc = NO_MORE_DOCS;
+                return doc;
+            }
+            remaining--;
+            // 跳过上一个文档未读取的位置
+            in.seek(positionsEnd);
+            doc += in.readVInt();
+            freq = in.readVInt();
+            int positionBytes = in.readVInt();
+            positionsStart = in.position();
+            positionsEnd = positionsStart + positionBytes;
+            return doc;
+        }
+
+        @Override
+        public int freq() {
+            return freq;
+        }
+
+        @Override
+        public int[] positions() {
+            if (buffer.length < freq) {
+                buffer = new int[freq];
+            }
+            positionsIn.seek(positionsStart);
+            int position = 0;
+            for (int i = 0; i < freq; i++) {
+                position += positionsIn.readVInt();
+                buffer[i] = position;
+            }
+            return buffer;
+        }
+    }
+}
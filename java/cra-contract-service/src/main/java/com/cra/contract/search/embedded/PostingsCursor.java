@@ -0,0 +1,23 @@
+package com.cra.contract.search.embedded;
+
+/**
+ * 单个词项的倒排表游标, 文档号升序; 位置只在调用 positions() 时解码
+ */
+interface PostingsCursor {
+
+    int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    int docFreq();
+
+    /**
+     * @return 下一个文档号, 没有更多文档时返回 NO_MORE_DOCS
+     */
+    int nextDoc();
+
+    int freq();
+
+    /**
+     * 当前文档中的词元位置, 升序, 有效长度为 freq(); 返回的数组在下一次 nextDoc() 后失效
+     */
+    int[] positions();
+}
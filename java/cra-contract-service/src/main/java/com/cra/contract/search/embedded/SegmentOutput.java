@@ -0,0 +1,109 @@
+package com.cra.contract.search.embedded;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 段文件输出: 定长整数 (大端, 与 MappedByteBuffer 默认字节序一致) 和变长整数, 记录当前写入位置
+ */
+final class SegmentOutput implements AutoCloseable {
+
+    private final FileOutputStream file;
+
+    private final OutputStream out;
+
+    private long position;
+
+    SegmentOutput(Path path) throws IOException {
+        file = new FileOutputStream(path.toFile());
+        out = new BufferedOutputStream(file, 1 << 16);
+    }
+
+    long position() {
+        return position;
+    }
+
+    void writeByte(int b) throws IOException {
+        out.write(b);
+        position++;
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        position += length;
+    }
+
+    void writeInt(int value) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.write(value >>> shift);
+        }
+        position += Integer.BYTES;
+    }
+
+    void writeLong(long value) throws IOException {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    void writeVInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    /**
+     * 刷盘后关闭, 段文件在提交点写入前必须已经落盘
+     */
+    void sync() throws IOException {
+        out.flush();
+        file.getChannel().force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * 内存中的变长整数缓冲区, 倒排表先编码到这里, 得到文档频率后再整体写出
+     */
+    static final class Bytes {
+
+        private byte[] buffer = new byte[1024];
+
+        private int length;
+
+        void writeVInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                append((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            append((byte) value);
+        }
+
+        int length() {
+            return length;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        void writeTo(SegmentOutput output) throws IOException {
+            output.writeBytes(buffer, 0, length);
+        }
+
+        private void append(byte b) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+            buffer[length++] = b;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.cra.contract.search.embedded;
+
+import com.cra.contract.search.ContractSearchDocument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 写段文件: 内存段落盘和多个段合并共用
+ * 各来源段的存活文档按来源顺序重新编号, 已删除的文档不写入; 词典按字节序多路归并
+ * 先写临时文件并刷盘, 完成后原子改名
+ */
+final class SegmentWriter {
+
+    private SegmentWriter() {
+    }
+
+    /**
+     * 写段文件结果: 每个来源段的文档号映射 (已删除为 -1) 和新段文档数
+     */
+    static final class Result {
+
+        final int[][] docMap;
+
+        final int docCount;
+
+        Result(int[][] docMap, int docCount) {
+            this.docMap = docMap;
+            this.docCount = docCount;
+        }
+    }
+
+    /**
+     * @param deletes 每个来源段写入时要排除的文档
+     * @return 新段没有存活文档时不写文件, docCount 为 0
+     */
+    static Result write(Path path, List<IndexSegment> sources, List<BitSet> deletes) throws IOException {
+        int[][] docMap = new int[sources.size()][];
+        int docCount = 0;
+        for (int s = 0; s < sources.size(); s++) {
+            int sourceDocs = sources.get(s).docCount();
+            BitSet deleted = deletes.get(s);
+            docMap[s] = new int[sourceDocs];
+            for (int doc = 0; doc < sourceDocs; doc++) {
+                docMap[s][doc] = deleted.get(doc) ? -1 : docCount++;
+            }
+        }
+        Result result = new Result(docMap, docCount);
+        if (docCount == 0) {
+            return result;
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (SegmentOutput out = new SegmentOutput(tmp)) {
+            long[] termIndexOffsets = new long[IndexSegment.FIELD_COUNT];
+            int[] termCounts = new int[IndexSegment.FIELD_COUNT];
+            long[] totalLengths = new long[IndexSegment.FIELD_COUNT];
+            for (int field = 0; field < IndexSegment.FIELD_COUNT; field++) {
+                for (int s = 0; s < sources.size(); s++) {
+                    for (int doc = 0; doc < docMap[s].length; doc++) {
+                        if (docMap[s][doc] >= 0) {
+                            totalLengths[field] += sources.get(s).fieldLength(field, doc);
+                        }
+                    }
+                }
+                TermTable terms = writePostings(out, sources, docMap, field);
+                termCounts[field] = terms.size;
+                termIndexOffsets[field] = terms.writeTo(out);
+            }
+
+            long[] storedOffsets = new long[docCount];
+            for (int s = 0; s < sources.size(); s++) {
+                for (int doc = 0; doc < docMap[s].length; doc++) {
+                    if (docMap[s][doc] >= 0) {
+                        storedOffsets[docMap[s][doc]] = out.position();
+                        writeStored(out, sources.get(s).document(doc));
+                    }
+                }
+            }
+
+            long docTableOffset = out.position();
+            for (int s = 0; s < sources.size(); s++) {
+                IndexSegment source = sources.get(s);
+                for (int doc = 0; doc < docMap[s].length; doc++) {
+                    if (docMap[s][doc] >= 0) {
+                        out.writeLong(source.contractId(doc));
+                        out.writeLong(source.versionId(doc));
+                        out.writeInt(source.versionNumber(doc));
+                        out.writeInt(source.fieldLength(IndexSegment.TITLE, doc));
+                        out.writeInt(source.fieldLength(IndexSegment.BODY, doc));
+                        out.writeLong(storedOffsets[docMap[s][doc]]);
+                    }
+                }
+            }
+
+            out.writeLong(docTableOffset);
+            out.writeInt(docCount);
+            for (int field = 0; field < IndexSegment.FIELD_COUNT; field++) {
+                out.writeLong(termIndexOffsets[field]);
+                out.writeInt(termCounts[field]);
+                out.writeLong(totalLengths[field]);
+            }
+            out.writeInt(MappedSegment.FORMAT_VERSION);
+            out.writeInt(MappedSegment.MAGIC);
+            out.sync();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+        return result;
+    }
+
+    /**
+     * 多路归并各来源段的词典, 逐个词项写出合并后的倒排表
+     */
+    private static TermTable writePostings(SegmentOutput out, List<IndexSegment> sources, int[][] docMap, int field)
+            throws IOException {
+        // 同一词项按来源顺序出队, 保证新文档号递增
+        PriorityQueue<TermSource> queue = new PriorityQueue<>((a, b) -> {
+            int cmp = Arrays.compareUnsigned(a.term, b.term);
+            return cmp != 0 ? cmp : Integer.compare(a.source, b.source);
+        });
+        for (int s = 0; s < sources.size(); s++) {
+            TermIterator iterator = sources.get(s).terms(field);
+            byte[] term = iterator.next();
+            if (term != null) {
+                queue.add(new TermSource(s, iterator, term));
+            }
+        }
+
+        TermTable table = new TermTable();
+        SegmentOutput.Bytes positionBytes = new SegmentOutput.Bytes();
+        List<TermSource> same = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            same.clear();
+            same.add(queue.poll());
+            byte[] term = same.get(0).term;
+            while (!queue.isEmpty() && Arrays.equals(queue.peek().term, term)) {
+                same.add(queue.poll());
+            }
+
+            long postingsOffset = out.position();
+            int docFreq = 0;
+            int previousDoc = 0;
+            for (TermSource source : same) {
+                int[] map = docMap[source.source];
+                PostingsCursor postings = source.iterator.postings();
+                for (int doc = postings.nextDoc(); doc != PostingsCursor.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                    int newDoc = map[doc];
+                    if (newDoc < 0) {
+                        continue;
+                    }
+                    int freq = postings.freq();
+                    int[] positions = postings.positions();
+                    positionBytes.reset();
+                    int previousPosition = 0;
+                    for (int i = 0; i < freq; i++) {
+                        positionBytes.writeVInt(positions[i] - previousPosition);
+                        previousPosition = positions[i];
+                    }
+                    out.writeVInt(newDoc - previousDoc);
+                    out.writeVInt(freq);
+                    out.writeVInt(positionBytes.length());
+                    positionBytes.writeTo(out);
+                    previousDoc = newDoc;
+                    docFreq++;
+                }
+            }
+            // 文档全部已删除的词项不进词典, 已写出的倒排表字节成为无引用的空洞
+            if (docFreq > 0) {
+                table.add(term, docFreq, postingsOffset);
+            }
+
+            for (TermSource source : same) {
+                byte[] next = source.iterator.next();
+                if (next != null) {
+                    source.term = next;
+                    queue.add(source);
+                }
+            }
+        }
+        return table;
+    }
+
+    private static void writeStored(SegmentOutput out, ContractSearchDocument document) throws IOException {
+        writeString(out, document.getContractName());
+        writeString(out, document.getContractNumber());
+        writeString(out, document.getCategory());
+        writeString(out, document.getDepartment());
+        out.writeVInt(document.getStatus() == null ? 0 : document.getStatus() + 1);
+    }
+
+    private static void writeString(SegmentOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeVInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeVInt(bytes.length + 1);
+        out.writeBytes(bytes, 0, bytes.length);
+    }
+
+    private static final class TermSource {
+
+        private final int source;
+
+        private final TermIterator iterator;
+
+        private byte[] term;
+
+        TermSource(int source, TermIterator iterator, byte[] term) {
+            this.source = source;
+            this.iterator = iterator;
+            this.term = term;
+        }
+    }
+
+    /**
+     * 词典: 写完倒排表后统一写出词项条目和偏移表
+     */
+    private static final class TermTable {
+
+        private final List<byte[]> terms = new ArrayList<>();
+
+        private int[] docFreqs = new int[1024];
+
+        private long[] postingsOffsets = new long[1024];
+
+        private int size;
+
+        void add(byte[] term, int docFreq, long postingsOffset) {
+            if (size == docFreqs.length) {
+                docFreqs = Arrays.copyOf(docFreqs, size << 1);
+                postingsOffsets = Arrays.copyOf(postingsOffsets, size << 1);
+            }
+            terms.add(term);
+            docFreqs[size] = docFreq;
+            postingsOffsets[size] = postingsOffset;
+            size++;
+        }
+
+        /**
+         * @return 词项偏移表的位置
+         */
+        long writeTo(SegmentOutput out) throws IOException {
+            long[] entryOffsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                byte[] term = terms.get(i);
+                entryOffsets[i] = out.position();
+                out.writeVInt(term.length);
+                out.writeBytes(term, 0, term.length);
+                out.writeInt(docFreqs[i]);
+                out.writeLong(postingsOffsets[i]);
+            }
+            long indexOffset = out.position();
+            for (long entryOffset : entryOffsets) {
+                out.writeLong(entryOffset);
+            }
+            return indexOffset;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.cra.contract.search.embedded;
+
+/**
+ * 按 UTF-8 字节序遍历字段的词典, 段合并时使用
+ */
+interface TermIterator {
+
+    /**
+     * @return 下一个词项的 UTF-8 字节, 遍历结束返回 null
+     */
+    byte[] next();
+
+    PostingsCursor postings();
+}
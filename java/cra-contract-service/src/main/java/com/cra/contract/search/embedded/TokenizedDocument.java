@@ -0,0 +1,57 @@
+package com.cra.contract.search.embedded;
+
+import com.cra.contract.search.ContractSearchDocument;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分词后的文档: 每个字段的词项及其位置
+ * 分词在索引写锁之外完成, 持锁时只做倒排表追加
+ */
+final class TokenizedDocument {
+
+    final ContractSearchDocument document; // 存储字段, 不含正文
+
+    final Map<String, IntList>[] fields;
+
+    final int[] lengths = new int[IndexSegment.FIELD_COUNT];
+
+    @SuppressWarnings("unchecked")
+    private TokenizedDocument(ContractSearchDocument document) {
+        this.document = document;
+        this.fields = new Map[IndexSegment.FIELD_COUNT];
+    }
+
+    static TokenizedDocument of(ContractSearchDocument source) {
+        ContractSearchDocument stored = new ContractSearchDocument();
+        stored.setId(source.getId());
+        stored.setContractId(source.getContractId());
+        stored.setContractName(source.getContractName());
+        stored.setContractNumber(source.getContractNumber());
+        stored.setCategory(source.getCategory());
+        stored.setDepartment(source.getDepartment());
+        stored.setStatus(source.getStatus());
+        stored.setVersionId(source.getVersionId());
+        stored.setVersionNumber(source.getVersionNumber());
+        stored.setUpdateTime(source.getUpdateTime());
+
+        TokenizedDocument tokenized = new TokenizedDocument(stored);
+        String title = String.join(" ", nullToEmpty(source.getContractName()), nullToEmpty(source.getContractNumber()),
+                nullToEmpty(source.getCategory()), nullToEmpty(source.getDepartment()));
+        tokenized.add(IndexSegment.TITLE, title);
+        tokenized.add(IndexSegment.BODY, source.getPlainText());
+        return tokenized;
+    }
+
+    private void add(int field, String text) {
+        Map<String, IntList> terms = new HashMap<>();
+        lengths[field] = ContractTokenizer.tokenize(text,
+                (term, position) -> terms.computeIfAbsent(term, key -> new IntList(4)).add(position));
+        fields[field] = terms;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -1,11 +1,21 @@
 package com.cra.contract.service;
 
+import com.cra.contract.dto.BatchUploadResult;
+import com.cra.contract.dto.BulkStatusRequest;
+import com.cra.contract.dto.BulkStatusResult;
+import com.cra.contract.dto.ContentMatch;
+import com.cra.contract.dto.ContractFilter;
+import com.cra.contract.dto.ContractSearchHit;
+import com.cra.contract.dto.ContractSuggestion;
+import com.cra.contract.dto.ContractSummary;
+import com.cra.contract.dto.KeysetPage;
 import com.cra.contract.entity.ContractMain;
 import com.cra.contract.entity.ContractVersion;
 import com.cra.common.model.Response;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -18,7 +28,7 @@ public interface ContractService {
     // 文件上传接口
     Response<ContractMain> uploadContractFile(MultipartFile file);
     // 批量文件上传接口
-    Response<List<ContractMain>> batchUploadContractFiles(MultipartFile[] files);
+    Response<BatchUploadResult> batchUploadContractFiles(MultipartFile[] files);
     // 更新合同接口
     Response<ContractMain> updateContract(Long contractId, ContractMain contract);
     // 合同基本操作 - 删除合同
@@ -27,13 +37,22 @@ public interface ContractService {
     Response<ContractMain> reviewContract(ContractMain contract);
     // 通过id获取合同信息
     Response<ContractMain> getContractById(Long contractId);
+    // 按id批量获取合同信息, 结果按请求顺序, 不存在的id不返回
+    Response<List<ContractMain>> batchGetContracts(List<Long> contractIds);
     // 通过合同编号获取合同信息
     Response<ContractMain> getContractByNumber(String contractNumber);
     // 合同列表查询
     Response<Page<ContractMain>> getAllContracts(Pageable pageable);
     
+    // 合同列表条件查询, 游标分页; count 为 none / exact / estimate
+    Response<KeysetPage<ContractSummary>> listContracts(ContractFilter filter, String cursor, String sortBy, String sortDir,
+                                                        Integer size, String count);
+    
     Response<Page<ContractMain>> searchContracts(String keyword, Pageable pageable);
     
+    // 合同名称 / 编号输入联想
+    Response<List<ContractSuggestion>> suggestContracts(String keyword, Integer limit);
+    
     Response<List<ContractMain>> getContractsByStatus(Integer status);
     
     Response<List<ContractMain>> getContractsByCreator(String creatorId);
@@ -53,6 +72,9 @@ public interface ContractService {
     
     Response<ContractVersion> getLatestContractVersion(Long contractId);
     
+    // 重新提取提取失败 (或任务投递丢失仍待提取) 的版本正文
+    Response<ContractVersion> reextractContractVersion(Long contractId, Integer versionNumber);
+    
     Response<Map<String, Object>> compareContractVersions(Long contractId, Integer version1, Integer version2);
     
     // 合同内容管理
@@ -62,14 +84,22 @@ public interface ContractService {
     
     Response<String> getContractHtmlContent(Long contractId, Integer versionNumber);
     
+    // 渲染后的 HTML 直接写入响应流, 不在 JSON 中包装整篇正文
+    Response<StreamingResponseBody> streamContractHtml(Long contractId, Integer versionNumber);
+    
+    Response<Map<String, Object>> getContractContentChunk(Long contractId, Integer versionNumber, Integer chunkIndex);
+    
     // 合同状态管理
     Response<ContractMain> updateContractStatus(Long contractId, Integer status);
     
-    // 合同导出
-    Response<byte[]> exportContract(Long contractId, Integer versionNumber, String format);
+    // 批量状态变更, 逐个返回结果
+    Response<BulkStatusResult> bulkUpdateContractStatus(BulkStatusRequest request);
+    
+    // 合同导出, 正文在写响应时逐块读取
+    Response<StreamingResponseBody> exportContract(Long contractId, Integer versionNumber, String format);
     
     // 合同搜索
-    Response<List<Map<String, Object>>> searchContractContent(Long contractId, String keyword);
+    Response<List<ContentMatch>> searchContractContent(Long contractId, String keyword);
     
-    Response<List<Map<String, Object>>> searchAllContractContent(String keyword);
+    Response<Page<ContractSearchHit>> searchAllContractContent(String keyword, Pageable pageable);
 }
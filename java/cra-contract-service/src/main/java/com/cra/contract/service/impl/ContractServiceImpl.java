@@ -1,44 +1,90 @@
 package com.cra.contract.service.impl;
 
+import com.cra.contract.cache.ContractMetadataCache;
+import com.cra.contract.dedup.ContractBlobService;
+import com.cra.contract.dto.BatchUploadItem;
+import com.cra.contract.dto.BatchUploadResult;
+import com.cra.contract.dto.BulkStatusItem;
+import com.cra.contract.dto.BulkStatusRequest;
+import com.cra.contract.dto.BulkStatusResult;
+import com.cra.contract.dto.ContentMatch;
+import com.cra.contract.dto.ContractFilter;
+import com.cra.contract.dto.ContractSearchHit;
+import com.cra.contract.dto.ContractSuggestion;
+import com.cra.contract.dto.ContractSummary;
+import com.cra.contract.dto.KeysetPage;
 import com.cra.contract.entity.ContractContent;
+import com.cra.contract.entity.ContractContentChunk;
 import com.cra.contract.entity.ContractMain;
 import com.cra.contract.entity.ContractVersion;
+import com.cra.contract.event.ContractBatchChangeEvent;
+import com.cra.contract.event.ContractChangeEvent;
+import com.cra.contract.extraction.ContractExtractionService;
+import com.cra.contract.extraction.ContractContentReader;
+import com.cra.contract.ingest.IngestResult;
+import com.cra.contract.mq.ExtractionTask;
+import com.cra.contract.mq.ExtractionTaskPublisher;
+import com.cra.contract.repository.ContractContentChunkRepository;
 import com.cra.contract.repository.ContractContentRepository;
+import com.cra.contract.repository.ContractKeyset;
 import com.cra.contract.repository.ContractMainRepository;
+import com.cra.contract.repository.ContractMainRepositoryCustom;
 import com.cra.contract.repository.ContractVersionRepository;
+import com.cra.contract.search.ContractSearchEngine;
+import com.cra.contract.search.ContractSuggester;
+import com.cra.contract.search.HighlightSnippet;
+import com.cra.contract.search.KeywordHighlighter;
+import com.cra.contract.search.KeywordMatcher;
 import com.cra.contract.service.ContractService;
+import com.cra.contract.stats.ContractStatKeys;
+import com.cra.contract.stats.ContractStatService;
+import com.cra.contract.storage.ContractFileStorage;
+import com.cra.contract.storage.StoredObject;
 import com.cra.common.exception.BusinessException;
 import com.cra.common.model.Response;
 import cn.dev33.satoken.stp.StpUtil;
-import org.apache.commons.net.ftp.FTP;
-import org.apache.commons.net.ftp.FTPClient;
-import org.apache.tika.Tika;
-import org.apache.tika.exception.TikaException;
-import org.apache.tika.metadata.Metadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.exception.ConstraintViolationException;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.DigestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -49,30 +95,29 @@ import java.util.stream.Collectors;
  * 没有事务的情况（危险） --> A 扣钱成功 -- > 此时程序异常 --> B 没加钱 --> 导致的结果就是数据不一致（钱“消失”了）
  * 有事务的情况（安全） --> 两步作为一个整体执行 任一步失败：全部回滚, 数据恢复到执行前状态
  * 事务的 4 个核心特性（ACID） --> Atomicity（原子性）要么全做，要么全不做 /  Consistency（一致性）数据始终合法 / Isolation（隔离性）多事务互不干扰 / Durability（持久性）提交后永久生效
+ *
+ * 本类不在类上声明事务, 避免数据库连接在文件上传、Tika 解析、MongoDB 写入期间一直被占用:
+ * 上传分三个阶段 -- 文件写入存储 (无事务) -> 短事务只写 contract_version / contract_main -> 文本提取 (无事务)
+ * 只读接口使用 readOnly 事务; 正文读取、导出、搜索只访问 MongoDB / 搜索引擎, 不开启数据库事务
  */
 
 @Service
-@Transactional // 类中所有 public 方法默认都开启事务
 public class ContractServiceImpl implements ContractService {
     
     private static final Logger logger = LoggerFactory.getLogger(ContractServiceImpl.class);
-    // TODO 写到配置文件里面
-    private static final String STORAGE_DIR = "G:\\项目成果打包\\合同审查Agent\\test_cache";
 
-    @Value("${ftp.host}")
-    private String ftpHost;
-
-    @Value("${ftp.port}")
-    private int ftpPort;
-
-    @Value("${ftp.username}")
-    private String ftpUsername;
-
-    @Value("${ftp.password}")
-    private String ftpPassword;
-
-    @Value("${ftp.base-path}")
-    private String ftpBasePath;
+    // 是否异步提取文本: true 上传只落盘入库, 提取交给MQ消费者; false 上传线程内同步提取
+    @Value("${contract.extraction.async:true}")
+    private boolean asyncExtraction;
+    
+    @Value("${contract.query.list.default-size:20}")
+    private int defaultListSize;
+    
+    @Value("${contract.query.list.max-size:200}")
+    private int maxListSize;
+    
+    @Value("${contract.query.list.count-cap:10000}")
+    private int listCountCap;
     
     @Autowired // 用来告诉 Spring：这个对象我不自己 new，你帮我注入。 --> 等价于private ContractMainRepository contractMainRepository = new ContractMainRepository();
     private ContractMainRepository contractMainRepository;
@@ -83,7 +128,99 @@ public class ContractServiceImpl implements ContractService {
     @Autowired
     private ContractContentRepository contractContentRepository;
     
-    private final Tika tika = new Tika();
+    @Autowired
+    private ContractFileStorage contractFileStorage;
+    
+    @Autowired
+    private ContractContentChunkRepository contractContentChunkRepository;
+    
+    @Autowired
+    private ContractContentReader contractContentReader;
+    
+    @Autowired
+    private ContractBlobService contractBlobService;
+    
+    @Autowired
+    private ContractExtractionService contractExtractionService;
+    
+    @Autowired
+    private ExtractionTaskPublisher extractionTaskPublisher;
+    
+    @Autowired
+    private ContractSearchEngine contractSearchEngine;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ContractSuggester contractSuggester;
+    
+    @Autowired
+    private ContractStatService contractStatService;
+    
+    @Autowired
+    private ContractMetadataCache contractMetadataCache;
+    
+    @Autowired
+    @Qualifier("contractUploadExecutor")
+    private Executor contractUploadExecutor;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // 合同内搜索: 关键词前后保留的字符数、最多返回的片段数
+    @Value("${contract.search.content.context:100}")
+    private int contentSearchContext;
+    
+    @Value("${contract.search.content.max-snippets:200}")
+    private int contentSearchMaxSnippets;
+    
+    // 单个批次内同时处理的文件数上限
+    @Value("${contract.upload.batch.max-concurrency-per-batch:4}")
+    private int batchConcurrency;
+    
+    // 批量查询 / 批量状态变更一次请求的合同数上限
+    @Value("${contract.batch.max-ids:1000}")
+    private int batchMaxIds;
+    
+    // 批量状态变更每个 UPDATE 语句 (和事务) 包含的合同数
+    @Value("${contract.batch.status-chunk-size:200}")
+    private int statusChunkSize;
+    
+    // 新建版本时领取版本号的最多尝试次数, 每次冲突说明期间有其它上传或修改已提交
+    @Value("${contract.version.claim-attempts:10}")
+    private int versionClaimAttempts;
+    
+    // 写入阶段的短事务, 只包含 contract_version / contract_main 及其引用计数、统计的写入
+    private TransactionTemplate writeTransaction;
+    
+    // 上传各阶段耗时: 写入存储 / 提交数据库 / 文本提取
+    private Timer storeStageTimer;
+    
+    private Timer commitStageTimer;
+    
+    private Timer extractStageTimer;
+    
+    @PostConstruct
+    public void init() {
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        storeStageTimer = stageTimer("store");
+        commitStageTimer = stageTimer("commit");
+        extractStageTimer = stageTimer("extract");
+    }
+    
+    private Timer stageTimer(String stage) {
+        return Timer.builder("contract.upload.stage")
+                .tag("stage", stage)
+                .description("合同上传各阶段耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+    
     /**
      * 创建合同
      *
@@ -115,15 +252,25 @@ public class ContractServiceImpl implements ContractService {
             contract.setCreateTime(LocalDateTime.now());
             contract.setUpdateTime(LocalDateTime.now());
             
-            // 保存合同基本信息
-            ContractMain savedContract = contractMainRepository.save(contract);
-            
-            // 创建第一个版本
             // TODO 如果是空的话 应该提前校验 抛出异常 不然无法保证数据库的信息同步
-            if (file != null && !file.isEmpty()) {
-                createContractVersion(savedContract.getId(), file, "初始版本");
+            if (file == null || file.isEmpty()) {
+                return Response.success("合同创建成功", commit(status -> insertContract(contract)));
             }
-            return Response.success("合同创建成功", savedContract);
+            // 1. 文件写入存储 (无事务)
+            validateFileType(file);
+            IngestResult ingest = storeFile(file);
+            // 2. 短事务: 保存合同基本信息和第一个版本
+            StagedContract staged = commitIngest(ingest, status -> {
+                String storagePath = acquireBlob(ingest);
+                ContractMain savedContract = insertContract(contract);
+                ContractVersion savedVersion = insertVersion(savedContract.getId(), ingest, storagePath, file, "初始版本", creatorId);
+                return new StagedContract(reloadContract(savedContract.getId()), savedVersion);
+            });
+            // 3. 文本提取 (无事务), 失败时合同和版本已保存, 仍返回成功, 不让客户端重试创建出重复合同
+            if (!extractIfSync(staged.version(), file)) {
+                return Response.success("合同创建成功，内容提取失败，可重新提取", staged.contract());
+            }
+            return Response.success("合同创建成功", staged.contract());
         } catch (Exception e) {
             logger.error("创建合同失败: {}", e.getMessage(), e);
             throw new BusinessException(500, "创建合同失败: " + e.getMessage());
@@ -138,9 +285,15 @@ public class ContractServiceImpl implements ContractService {
      * @return
      */
     @Override
+    @Transactional
     public Response<ContractMain> updateContract(Long contractId, ContractMain contract) {
         ContractMain existingContract = contractMainRepository.findById(contractId)
                 .orElseThrow(() -> new BusinessException(404, "合同不存在"));
+        // 客户端带上读取时的乐观锁版本号时, 期间被修改过 (包括上传了新版本) 则拒绝覆盖
+        if (contract.getLockVersion() != null && !contract.getLockVersion().equals(existingContract.getLockVersion())) {
+            throw new BusinessException(409, "合同已被修改，请刷新后重试");
+        }
+        ContractStatKeys statKeysBefore = ContractStatKeys.of(existingContract);
         
         // 更新合同信息
         existingContract.setContractName(contract.getContractName());
@@ -154,7 +307,10 @@ public class ContractServiceImpl implements ContractService {
         existingContract.setRemark(contract.getRemark());
         existingContract.setUpdateTime(LocalDateTime.now());
         
-        return Response.success("合同更新成功", contractMainRepository.save(existingContract));
+        ContractMain savedContract = saveWithLock(existingContract);
+        contractStatService.recordChange(statKeysBefore, ContractStatKeys.of(savedContract));
+        publishChange(contractId, ContractChangeEvent.Type.CONTRACT_SAVED);
+        return Response.success("合同更新成功", savedContract);
     }
 
     /**
@@ -165,163 +321,158 @@ public class ContractServiceImpl implements ContractService {
     @Override
     public Response<ContractMain> uploadContractFile(MultipartFile file) {
         try {
-            validateFileType(file);
-            // 创建一个草稿合同
-            ContractMain contract = new ContractMain();
-            // 使用文件名作为合同名称（去除扩展名）
-            String fileName = file.getOriginalFilename();
-            String contractName = fileName != null && fileName.contains(".") 
-                    ? fileName.substring(0, fileName.lastIndexOf(".")) 
-                    : fileName;
-            
-            contract.setContractName(contractName);
-            // 生成临时合同编号
-            contract.setContractNumber("DRAFT-" + System.currentTimeMillis() + "-" + new Random().nextInt(1000));
-            contract.setStatus(0); // 草稿
-            
-            // 获取当前登录用户，如果未登录则使用默认系统用户
-            String creatorId = StpUtil.isLogin() ? StpUtil.getLoginIdAsString() : "system_auto";
-            contract.setCreatorId(creatorId);
-            if (!StpUtil.isLogin()) {
-                logger.warn("当前未登录，使用默认用户system_auto创建合同");
-            }
-            
-            contract.setCreateTime(LocalDateTime.now());
-            contract.setUpdateTime(LocalDateTime.now());
-            // 设置默认值防止报错（如果字段是必填的）
-            contract.setPartyAId(0L); // 占位
-            contract.setPartyBId(0L); // 占位
-            
-            ContractMain savedContract = contractMainRepository.save(contract);
-            
-            // 创建初始版本
-            createContractVersion(savedContract.getId(), file, "上传文件自动创建");
+            StagedContract staged = createDraftContract(file, currentUserId());
             logger.info("文件上传成功");
-            return Response.success("文件上传成功，已创建合同草稿", savedContract);
+            if (Integer.valueOf(ContractVersion.EXTRACT_FAILED).equals(staged.version().getExtractStatus())) {
+                return Response.success("文件上传成功，已创建合同草稿，内容提取失败，可重新提取", staged.contract());
+            }
+            return Response.success("文件上传成功，已创建合同草稿", staged.contract());
         } catch (Exception e) {
             logger.error("上传文件失败: {}", e.getMessage(), e);
             throw new BusinessException(500, "上传文件失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 根据上传文件创建合同草稿及初始版本
+     * 文件写入存储和文本提取都在事务之外, 合同和版本在一个短事务中提交
+     * @param creatorId 创建人, 由调用方在请求线程中解析好传入 (工作线程里拿不到登录上下文)
+     */
+    private StagedContract createDraftContract(MultipartFile file, String creatorId) throws IOException {
+        validateFileType(file);
+        // 创建一个草稿合同
+        ContractMain contract = new ContractMain();
+        // 使用文件名作为合同名称（去除扩展名）
+        String fileName = file.getOriginalFilename();
+        String contractName = fileName != null && fileName.contains(".") 
+                ? fileName.substring(0, fileName.lastIndexOf(".")) 
+                : fileName;
+        
+        contract.setContractName(contractName);
+        // 生成临时合同编号
+        contract.setContractNumber("DRAFT-" + System.currentTimeMillis() + "-" + ThreadLocalRandom.current().nextInt(1000));
+        contract.setStatus(0); // 草稿
+        contract.setCreatorId(creatorId);
+        contract.setCreateTime(LocalDateTime.now());
+        contract.setUpdateTime(LocalDateTime.now());
+        // 设置默认值防止报错（如果字段是必填的）
+        contract.setPartyAId(0L); // 占位
+        contract.setPartyBId(0L); // 占位
+        
+        IngestResult ingest = storeFile(file);
+        StagedContract staged = commitIngest(ingest, status -> {
+            String storagePath = acquireBlob(ingest);
+            ContractMain savedContract = insertContract(contract);
+            // 创建初始版本
+            ContractVersion savedVersion = insertVersion(savedContract.getId(), ingest, storagePath, file, "上传文件自动创建", creatorId);
+            return new StagedContract(reloadContract(savedContract.getId()), savedVersion);
+        });
+        extractIfSync(staged.version(), file);
+        return staged;
+    }
+
     /**
      * 批量上传合同文件
+     * 文件分发到有界线程池并行处理, 每个文件在自己的短事务中提交, 单个文件失败不影响其它文件
+     * 批量方法本身不开启事务, 避免整个批次占用一个数据库连接
      * @param files 上传的批量文件 只支持.pdf和.docx格式
-     * @return
+     * @return 每个文件的处理结果
      */
     @Override
-    public Response<List<ContractMain>> batchUploadContractFiles(MultipartFile[] files) {
-        List<ContractMain> createdContracts = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
+    public Response<BatchUploadResult> batchUploadContractFiles(MultipartFile[] files) {
+        String creatorId = currentUserId();
+        // 限制单个批次同时在处理的文件数, 防止一个大批次占满线程池
+        Semaphore permits = new Semaphore(Math.max(1, batchConcurrency));
+        List<CompletableFuture<BatchUploadItem>> futures = new ArrayList<>(files.length);
         
-        for (MultipartFile file : files) {
+        for (int i = 0; i < files.length; i++) {
+            int index = i;
+            MultipartFile file = files[i];
+            if (file.isEmpty()) {
+                futures.add(CompletableFuture.completedFuture(
+                        BatchUploadItem.fail(index, file.getOriginalFilename(), "空文件，已跳过")));
+                continue;
+            }
+            permits.acquireUninterruptibly();
             try {
-                if (file.isEmpty()) continue;
-                Response<ContractMain> response = uploadContractFile(file);
-                if (response.getData() != null) {
-                    createdContracts.add(response.getData());
-                }
-            } catch (Exception e) {
-                String fileName = file.getOriginalFilename();
-                logger.error("批量上传中文件 {} 处理失败: {}", fileName, e.getMessage());
-                errors.add("文件 " + fileName + " 失败: " + e.getMessage());
+                futures.add(CompletableFuture
+                        .supplyAsync(() -> uploadBatchItem(index, file, creatorId), contractUploadExecutor)
+                        .whenComplete((item, e) -> permits.release()));
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
             }
         }
         
-        if (createdContracts.isEmpty() && !errors.isEmpty()) {
-            throw new BusinessException(500, "批量上传全部失败: " + String.join("; ", errors));
+        List<BatchUploadItem> items = futures.stream().map(CompletableFuture::join).toList();
+        BatchUploadResult result = new BatchUploadResult(items);
+        
+        if (result.getSuccessCount() == 0 && result.getFailureCount() > 0) {
+            throw new BusinessException(500, "批量上传全部失败", result);
         }
         
-        if (!errors.isEmpty()) {
+        if (result.getFailureCount() > 0) {
             // 部分成功
-            return Response.success("批量上传部分成功，失败详情: " + String.join("; ", errors), createdContracts);
+            return Response.success("批量上传部分成功，失败 " + result.getFailureCount() + " 个", result);
         }
         
-        return Response.success("批量上传成功", createdContracts);
+        return Response.success("批量上传成功", result);
+    }
+
+    private BatchUploadItem uploadBatchItem(int index, MultipartFile file, String creatorId) {
+        String fileName = file.getOriginalFilename();
+        try {
+            ContractMain contract = createDraftContract(file, creatorId).contract();
+            return BatchUploadItem.success(index, fileName, contract);
+        } catch (Exception e) {
+            logger.error("批量上传中文件 {} 处理失败: {}", fileName, e.getMessage());
+            return BatchUploadItem.fail(index, fileName, e.getMessage());
+        }
     }
 
     /*
     删除合同
+    数据库记录在一个短事务中删除, 事务提交后再删除 MongoDB 中的正文
      */
     @Override
     public Response<String> deleteContract(Long contractId) {
-        ContractMain contract = contractMainRepository.findById(contractId)
-                .orElseThrow(() -> new BusinessException(404, "合同不存在"));
-        
-        // 删除合同所有版本及物理文件
-        List<ContractVersion> versions = contractVersionRepository.findByContractId(contractId);
-        for (ContractVersion version : versions) {
-            // 1. 删除数据库内容
-            contractContentRepository.deleteByContractIdAndVersionId(contractId, version.getId());
+        List<ContractVersion> versions = commit(status -> {
+            ContractMain contract = contractMainRepository.findById(contractId)
+                    .orElseThrow(() -> new BusinessException(404, "合同不存在"));
             
-            // 2. 尝试删除物理文件
-            String storagePath = version.getStoragePath();
-            if (StringUtils.hasText(storagePath)) {
-                try {
-                    deletePhysicalFile(storagePath);
-                } catch (Exception e) {
-                    // 仅记录日志，不阻断数据库删除流程
-                    logger.error("删除物理文件失败: {} - {}", storagePath, e.getMessage());
+            // 删除合同所有版本, 释放物理文件引用, 没有其它版本引用时在事务提交后删除
+            List<ContractVersion> deleted = contractVersionRepository.findByContractId(contractId);
+            for (ContractVersion version : deleted) {
+                String storagePath = version.getStoragePath();
+                if (StringUtils.hasText(storagePath)) {
+                    try {
+                        contractBlobService.release(version.getContentHash(), storagePath);
+                    } catch (Exception e) {
+                        // 仅记录日志，不阻断数据库删除流程
+                        logger.error("删除物理文件失败: {} - {}", storagePath, e.getMessage());
+                    }
                 }
+                contractVersionRepository.delete(version);
             }
             
-            contractVersionRepository.delete(version);
-        }
+            // 删除合同
+            contractMainRepository.delete(contract);
+            contractStatService.recordChange(ContractStatKeys.of(contract), null);
+            publishChange(contractId, ContractChangeEvent.Type.CONTRACT_DELETED);
+            return deleted;
+        });
         
-        // 删除合同
-        contractMainRepository.delete(contract);
-        
-        return Response.success("合同删除成功");
-    }
-
-    /**
-     * 删除物理文件（支持本地和FTP）
-     */
-    private void deletePhysicalFile(String storagePath) {
-        if (storagePath.startsWith("ftp://")) {
-            // FTP文件删除
-            deleteFtpFile(storagePath);
-        } else {
-            // 本地文件删除
+        // 删除正文内容 (MongoDB), 失败只留下无主文档, 不影响合同删除结果
+        for (ContractVersion version : versions) {
             try {
-                Files.deleteIfExists(Paths.get(storagePath));
-                logger.info("本地文件已删除: {}", storagePath);
-            } catch (IOException e) {
-                logger.error("本地文件删除异常: {}", e.getMessage());
+                contractContentRepository.deleteByContractIdAndVersionId(contractId, version.getId());
+                contractContentChunkRepository.deleteByContractIdAndVersionId(contractId, version.getId());
+            } catch (Exception e) {
+                logger.error("删除合同正文失败: contractId={}, versionId={} - {}", contractId, version.getId(), e.getMessage());
             }
         }
-    }
-
-    private void deleteFtpFile(String storagePath) {
-        // 解析文件名: ftp://host:port/basePath/fileName
-        // 简单截取最后一个 '/' 后的部分作为文件名
-        String fileName = storagePath.substring(storagePath.lastIndexOf("/") + 1);
         
-        FTPClient ftpClient = new FTPClient();
-        try {
-            ftpClient.connect(ftpHost, ftpPort);
-            ftpClient.login(ftpUsername, ftpPassword);
-            ftpClient.enterLocalPassiveMode();
-            
-            if (ftpClient.changeWorkingDirectory(ftpBasePath)) {
-                boolean deleted = ftpClient.deleteFile(fileName);
-                if (deleted) {
-                    logger.info("FTP文件已删除: {}", fileName);
-                } else {
-                    logger.warn("FTP文件删除失败或文件不存在: {}", fileName);
-                }
-            }
-        } catch (IOException e) {
-            logger.error("连接FTP删除文件失败: {}", e.getMessage());
-        } finally {
-            try {
-                if (ftpClient.isConnected()) {
-                    ftpClient.logout();
-                    ftpClient.disconnect();
-                }
-            } catch (IOException ex) {
-                // ignore
-            }
-        }
+        return Response.success("合同删除成功");
     }
 
     /**
@@ -336,14 +487,18 @@ public class ContractServiceImpl implements ContractService {
         return Response.success(contract);
     }
 
+    /**
+     * 合同基本信息和版本的单条查询走元数据缓存, 不开启事务 (命中缓存时不占用数据库连接)
+     */
     @Override
     public Response<ContractMain> getContractById(Long contractId) {
-        ContractMain contract = contractMainRepository.findById(contractId)
+        ContractMain contract = contractMetadataCache.getContract(contractId)
                 .orElseThrow(() -> new BusinessException(404, "合同不存在"));
         return Response.success(contract);
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Response<ContractMain> getContractByNumber(String contractNumber) {
         ContractMain contract = contractMainRepository.findByContractNumber(contractNumber)
                 .orElseThrow(() -> new BusinessException(404, "合同不存在"));
@@ -351,37 +506,116 @@ public class ContractServiceImpl implements ContractService {
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Response<Page<ContractMain>> getAllContracts(Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            checkSortable(order.getProperty());
+        }
         return Response.success(contractMainRepository.findAll(pageable));
     }
     
+    /**
+     * 合同列表条件查询
+     * 按 (sortBy, id) 游标翻页, 不使用 OFFSET; 多取一条判断是否还有下一页
+     * 计数可选: exact 为 COUNT(*), estimate 最多数到 count-cap 条, 大数据量下翻页不必每次全量计数
+     */
     @Override
+    @Transactional(readOnly = true)
+    public Response<KeysetPage<ContractSummary>> listContracts(ContractFilter filter, String cursor, String sortBy, String sortDir,
+                                                               Integer size, String count) {
+        checkRange("开始日期", filter.getStartDateFrom(), filter.getStartDateTo());
+        checkRange("结束日期", filter.getEndDateFrom(), filter.getEndDateTo());
+        checkRange("金额", filter.getAmountMin(), filter.getAmountMax());
+        ContractKeyset keyset;
+        if (StringUtils.hasText(cursor)) {
+            try {
+                keyset = ContractKeyset.fromCursor(cursor);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BusinessException(400, "无效的分页游标");
+            }
+        } else {
+            checkSortable(sortBy);
+            keyset = ContractKeyset.first(sortBy, "asc".equalsIgnoreCase(sortDir));
+        }
+        int pageSize = size == null || size <= 0 ? defaultListSize : Math.min(size, maxListSize);
+
+        List<ContractSummary> rows = contractMainRepository.findSummaries(filter, keyset, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            nextCursor = keyset.nextCursor(rows.get(pageSize - 1));
+        }
+
+        Long total = null;
+        boolean totalExact = false;
+        switch (count == null ? "none" : count) {
+            case "none":
+                break;
+            case "exact":
+                total = contractMainRepository.count(filter);
+                totalExact = true;
+                break;
+            case "estimate":
+                long counted = contractMainRepository.countCapped(filter, listCountCap);
+                total = Math.min(counted, listCountCap);
+                totalExact = counted <= listCountCap;
+                break;
+            default:
+                throw new BusinessException(400, "不支持的计数方式: " + count);
+        }
+        return Response.success(new KeysetPage<>(rows, nextCursor, total, totalExact));
+    }
+    
+    private <T extends Comparable<? super T>> void checkRange(String name, T from, T to) {
+        if (from != null && to != null && from.compareTo(to) > 0) {
+            throw new BusinessException(400, name + "范围下限不能大于上限");
+        }
+    }
+    
+    private void checkSortable(String property) {
+        if (!ContractMainRepositoryCustom.SORTABLE.contains(property)) {
+            throw new BusinessException(400, "不支持的排序字段: " + property + ", 可选: " + ContractMainRepositoryCustom.SORTABLE);
+        }
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
     public Response<Page<ContractMain>> searchContracts(String keyword, Pageable pageable) {
         return Response.success(contractMainRepository.findByContractNameContainingOrContractNumberContaining(
                 keyword, keyword, pageable));
     }
     
     @Override
+    public Response<List<ContractSuggestion>> suggestContracts(String keyword, Integer limit) {
+        return Response.success(contractSuggester.suggest(keyword, limit));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
     public Response<List<ContractMain>> getContractsByStatus(Integer status) {
         return Response.success(contractMainRepository.findByStatus(status));
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Response<List<ContractMain>> getContractsByCreator(String creatorId) {
         return Response.success(contractMainRepository.findByCreatorId(creatorId));
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Response<List<ContractMain>> getContractsByParty(Long partyId) {
         return Response.success(contractMainRepository.findByPartyAIdOrPartyBId(partyId, partyId));
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Response<List<ContractMain>> getContractsByCategory(String category) {
         return Response.success(contractMainRepository.findByCategory(category));
     }
     
     @Override
+    @Transactional(readOnly = true)
     public Response<List<ContractMain>> getContractsByDepartment(String department) {
         return Response.success(contractMainRepository.findByDepartment(department));
     }
@@ -391,84 +625,260 @@ public class ContractServiceImpl implements ContractService {
      */
     @Override
     public Response<ContractVersion> createContractVersion(Long contractId, MultipartFile file, String remark) {
+        // 获取当前登录用户，如果未登录则使用默认系统用户
+        // TODO 生产环境需从登录用户获取
+        String creatorId = StpUtil.isLogin() ? StpUtil.getLoginIdAsString() : "system_auto";
+        return createContractVersion(contractId, file, remark, creatorId);
+    }
+    
+    private Response<ContractVersion> createContractVersion(Long contractId, MultipartFile file, String remark, String creatorId) {
         try {
-            // 验证文件类型
+            // 1. 校验并把文件写入存储 (无事务)
             validateFileType(file);
-            // 验证合同存在
-            contractMainRepository.findById(contractId)
-                    .orElseThrow(() -> new BusinessException(404, "合同不存在"));
-            // 读取文件内容用于哈希和文本提取
-            byte[] fileBytes = file.getBytes();
-            String contentHash = DigestUtils.md5DigestAsHex(fileBytes);
-            // 检查是否与现有版本内容重复
-            if (contractVersionRepository.findByContentHash(contentHash).isPresent()) {
+            if (!contractMainRepository.existsById(contractId)) {
+                throw new BusinessException(404, "合同不存在");
+            }
+            IngestResult ingest = storeFile(file);
+            // 检查是否与本合同现有版本内容重复 (哈希要读完整个流才能得到, 重复时删除刚写入的文件)
+            if (contractBlobService.existsInContract(contractId, ingest.getContentHash())) {
+                deleteStoredFileQuietly(ingest.getStoragePath());
                 throw new BusinessException(400, "文件内容与现有版本重复");
             }
-            // 保存文件到磁盘
-            // TODO 生产环境应该统一到服务器操作
-            String storagePath = saveFileToDisk(file);
-            
-            // 提取纯文本
-            String plainText = extractPlainText(fileBytes, file.getOriginalFilename());
-            
-            // 计算新版本号
-            Integer newVersionNumber = contractVersionRepository.countByContractId(contractId) + 1;
-            
-            // 创建版本记录
-            ContractVersion version = new ContractVersion();
-            version.setContractId(contractId);
-            version.setVersionNumber(newVersionNumber);
-            version.setContentHash(contentHash);
-            version.setStoragePath(storagePath); // 设置存储路径
-            version.setFileName(file.getOriginalFilename());
-            version.setFileType(file.getContentType());
-            version.setFileSize(file.getSize());
-            
-            // 获取当前登录用户，如果未登录则使用默认系统用户
-            // TODO 生产环境需从登录用户获取
-            String creatorId = StpUtil.isLogin() ? StpUtil.getLoginIdAsString() : "system_auto";
-            version.setCreatorId(creatorId);
-            
-            version.setRemark(remark);
-            version.setCreateTime(LocalDateTime.now());
-            
-            ContractVersion savedVersion = contractVersionRepository.save(version);
-            
-            // 保存合同内容 (MongoDB)
-            ContractContent contractContent = new ContractContent();
-            contractContent.setContractId(contractId);
-            contractContent.setVersionId(savedVersion.getId());
-            // contractContent.setContent(content); // 不再存储原始文件内容到MongoDB
-            contractContent.setPlainTextContent(plainText);
-            contractContent.setHtmlContent(convertToHtml(plainText));
-            contractContent.setCreatorId(creatorId);
-            contractContent.setCreateTime(LocalDateTime.now());
-            contractContent.setUpdateTime(LocalDateTime.now());
-            
-            contractContentRepository.save(contractContent);
-            
+            // 2. 短事务: 登记文件引用、写入版本记录
+            ContractVersion savedVersion = commitIngest(ingest, status ->
+                    insertVersion(contractId, ingest, acquireBlob(ingest), file, remark, creatorId));
+            if (asyncExtraction) {
+                return Response.success("版本创建成功，内容提取中", savedVersion);
+            }
+            // 3. 同步提取文本 (相同内容命中缓存时不解析), 保存合同内容 (MongoDB); 失败时版本已保存, 记为提取失败返回
+            if (!extractIfSync(savedVersion, file)) {
+                return Response.success("版本创建成功，内容提取失败，可重新提取", savedVersion);
+            }
             return Response.success("版本创建成功", savedVersion);
-        } catch (IOException | TikaException e) {
+        } catch (IOException e) {
             logger.error("创建合同版本失败: {}", e.getMessage(), e);
             throw new BusinessException(500, "创建合同版本失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 保存合同基本信息, 须在写入事务内调用
+     */
+    private ContractMain insertContract(ContractMain contract) {
+        // 版本指针和乐观锁版本号只由服务端维护
+        contract.setLatestVersionId(null);
+        contract.setLatestVersionNumber(null);
+        contract.setLatestContentId(null);
+        contract.setLockVersion(null);
+        ContractMain savedContract = contractMainRepository.save(contract);
+        contractStatService.recordChange(null, ContractStatKeys.of(savedContract));
+        publishChange(savedContract.getId(), ContractChangeEvent.Type.CONTRACT_SAVED);
+        return savedContract;
+    }
+    
+    /**
+     * 按内容登记刚写入的文件, 其它合同已有相同内容时共享已有文件
+     * 须作为写入事务的第一步调用: 之后任一步失败回滚时, 刚写入的文件随之删除
+     */
+    private String acquireBlob(IngestResult ingest) {
+        return contractBlobService.acquire(ingest.getContentHash(), ingest.getStoragePath(), ingest.getFileSize());
+    }
+    
+    private ContractMain reloadContract(Long contractId) {
+        return contractMainRepository.findById(contractId)
+                .orElseThrow(() -> new BusinessException(404, "合同不存在"));
+    }
+    
+    /**
+     * 保存并立即刷新, 乐观锁冲突 (期间被其它请求修改或上传了新版本) 转为 409
+     */
+    private ContractMain saveWithLock(ContractMain contract) {
+        try {
+            return contractMainRepository.saveAndFlush(contract);
+        } catch (OptimisticLockingFailureException e) {
+            throw new BusinessException(409, "合同已被修改，请刷新后重试");
+        }
+    }
+    
+    /**
+     * 领取新版本号: 读取合同的乐观锁版本号和最新版本号, 按乐观锁版本号比较并更新
+     * 并发上传时后到的一方更新 0 行, 重新读取 (已能看到对方提交的版本号) 后重试
+     * 成功后本事务持有合同行锁直到提交, 版本号不会重复; (contract_id, version_number) 唯一约束兜底
+     */
+    private Integer claimVersionNumber(Long contractId) {
+        for (int attempt = 0; attempt < versionClaimAttempts; attempt++) {
+            Object[] state = contractMainRepository.findVersionState(contractId).stream().findFirst()
+                    .orElseThrow(() -> new BusinessException(404, "合同不存在"));
+            Long lockVersion = (Long) state[0];
+            Integer latestNumber = (Integer) state[1];
+            if (latestNumber == null) {
+                // 历史数据没有最新版本号
+                latestNumber = contractVersionRepository.findMaxVersionNumber(contractId);
+            }
+            int newVersionNumber = latestNumber + 1;
+            if (contractMainRepository.claimVersionNumber(contractId, lockVersion, newVersionNumber) == 1) {
+                return newVersionNumber;
+            }
+            meterRegistry.counter("contract.version.claim.conflict").increment();
+        }
+        throw new BusinessException(409, "合同版本并发冲突，请重试");
+    }
+    
+    /**
+     * 写入版本记录, 须在写入事务内调用
+     * 版本先记为待提取, 同步模式下在事务提交后提取, 异步模式下事务提交后投递提取任务
+     * @param storagePath acquireBlob 返回的存储路径
+     */
+    private ContractVersion insertVersion(Long contractId, IngestResult ingest, String storagePath, MultipartFile file,
+                                          String remark, String creatorId) {
+        // 领取新版本号, 同时把合同的最新版本指针指向它
+        Integer newVersionNumber = claimVersionNumber(contractId);
+        
+        // 创建版本记录
+        ContractVersion version = new ContractVersion();
+        version.setContractId(contractId);
+        version.setVersionNumber(newVersionNumber);
+        version.setContentHash(ingest.getContentHash());
+        version.setStoragePath(storagePath); // 设置存储路径
+        version.setFileName(file.getOriginalFilename());
+        version.setFileType(file.getContentType());
+        version.setFileSize(ingest.getFileSize());
+        version.setCreatorId(creatorId);
+        
+        version.setRemark(remark);
+        version.setCreateTime(LocalDateTime.now());
+        version.setExtractStatus(ContractVersion.EXTRACT_PENDING);
+        
+        ContractVersion savedVersion;
+        try {
+            savedVersion = contractVersionRepository.saveAndFlush(version);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && "uk_contract_version_number".equalsIgnoreCase(violation.getConstraintName())) {
+                throw new BusinessException(409, "合同版本并发冲突，请重试");
+            }
+            // 并发上传了相同文件, 由 (contract_id, content_hash) 唯一索引兜底; 事务回滚, 引用计数一并撤销
+            throw new BusinessException(400, "文件内容与现有版本重复");
+        }
+        contractMainRepository.updateLatestVersionId(contractId, newVersionNumber, savedVersion.getId());
+        publishChange(contractId, ContractChangeEvent.Type.VERSION_CREATED);
+        
+        if (asyncExtraction) {
+            // 事务提交后投递提取任务, 接口立即返回
+            extractionTaskPublisher.publishAfterCommit(new ExtractionTask(contractId, savedVersion.getId()));
+        }
+        return savedVersion;
+    }
+    
+    /**
+     * 同步提取模式下, 在版本记录提交后提取正文
+     * 上传文件已由 multipart 暂存在本地, 缓存未命中时从暂存文件再读一遍, 不回读存储
+     * 提取失败时版本保留并记为提取失败 (返回 false), 可通过重新提取接口恢复, 不向调用方抛出
+     */
+    private boolean extractIfSync(ContractVersion version, MultipartFile file) {
+        if (asyncExtraction) {
+            return true;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            contractExtractionService.extract(version, file);
+            version.setExtractStatus(ContractVersion.EXTRACT_DONE);
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("合同文本提取失败, 版本已保存: versionId={} - {}", version.getId(), e.getMessage());
+            version.setExtractStatus(ContractVersion.EXTRACT_FAILED);
+            version.setExtractError(e.getMessage());
+            return false;
+        } finally {
+            sample.stop(extractStageTimer);
+        }
+    }
+    
+    /**
+     * 写入短事务, 文件已写入存储; 事务失败时删除刚写入的文件
+     * (登记引用后回滚时 ContractBlobService 也会删除, 重复删除不报错; 路径是本次上传唯一的文件名, 不会删到共享文件)
+     */
+    private <T> T commitIngest(IngestResult ingest, TransactionCallback<T> action) {
+        try {
+            return commit(action);
+        } catch (RuntimeException e) {
+            deleteStoredFileQuietly(ingest.getStoragePath());
+            throw e;
+        }
+    }
+    
+    /**
+     * 在写入短事务中执行, 事务内不做文件读写和文本解析
+     */
+    private <T> T commit(TransactionCallback<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return writeTransaction.execute(action);
+        } finally {
+            sample.stop(commitStageTimer);
+        }
+    }
+    
+    /**
+     * 写入短事务的结果: 新建的合同及其第一个版本
+     */
+    private record StagedContract(ContractMain contract, ContractVersion version) {
+    }
+    
     @Override
     public Response<ContractVersion> getContractVersion(Long contractId, Integer versionNumber) {
-        ContractVersion version = contractVersionRepository.findByContractIdAndVersionNumber(contractId, versionNumber)
+        ContractVersion version = contractMetadataCache.getVersion(contractId, versionNumber)
                 .orElseThrow(() -> new BusinessException(404, "版本不存在"));
         return Response.success(version);
     }
     
+    /**
+     * 重新提取: 提取失败的版本改回待提取后重新提取; 仍待提取的版本 (任务投递丢失) 或提取中已超时的版本 (处理方已退出) 重新投递
+     * 异步模式下投递提取任务立即返回, 同步模式下从存储读回原文件提取
+     */
+    @Override
+    public Response<ContractVersion> reextractContractVersion(Long contractId, Integer versionNumber) {
+        ContractVersion version = contractVersionRepository.findByContractIdAndVersionNumber(contractId, versionNumber)
+                .orElseThrow(() -> new BusinessException(404, "版本不存在"));
+        Integer extractStatus = version.getExtractStatus();
+        if (extractStatus == null || extractStatus == ContractVersion.EXTRACT_DONE) {
+            throw new BusinessException(400, "版本正文已提取完成");
+        }
+        if (extractStatus == ContractVersion.EXTRACT_PROCESSING && !contractExtractionService.isStale(version)) {
+            throw new BusinessException(409, "合同内容提取中，请稍后重试");
+        }
+        if (extractStatus == ContractVersion.EXTRACT_FAILED
+                && contractVersionRepository.updateExtractStatusIfMatches(version.getId(),
+                        ContractVersion.EXTRACT_FAILED, ContractVersion.EXTRACT_PENDING) == 0) {
+            throw new BusinessException(409, "版本已在重新提取，请稍后查看");
+        }
+        contractMetadataCache.invalidate(List.of(contractId));
+        
+        if (asyncExtraction) {
+            extractionTaskPublisher.publish(new ExtractionTask(contractId, version.getId()));
+            version.setExtractStatus(ContractVersion.EXTRACT_PENDING);
+            version.setExtractError(null);
+            return Response.success("已重新提交内容提取", version);
+        }
+        try {
+            contractExtractionService.extract(version.getId());
+        } catch (RuntimeException e) {
+            logger.warn("重新提取失败: versionId={} - {}", version.getId(), e.getMessage());
+        }
+        ContractVersion reloaded = contractVersionRepository.findById(version.getId())
+                .orElseThrow(() -> new BusinessException(404, "版本不存在"));
+        return Response.success(Integer.valueOf(ContractVersion.EXTRACT_DONE).equals(reloaded.getExtractStatus())
+                ? "内容提取完成" : "内容提取失败", reloaded);
+    }
+    
     @Override
     public Response<List<ContractVersion>> getContractVersions(Long contractId) {
-        return Response.success(contractVersionRepository.findByContractId(contractId));
+        return Response.success(contractMetadataCache.getVersions(contractId));
     }
     
     @Override
     public Response<ContractVersion> getLatestContractVersion(Long contractId) {
-        ContractVersion version = contractVersionRepository.findTopByContractIdOrderByVersionNumberDesc(contractId)
+        ContractVersion version = contractMetadataCache.getLatestVersion(contractId)
                 .orElseThrow(() -> new BusinessException(404, "合同无版本记录"));
         return Response.success(version);
     }
@@ -487,8 +897,8 @@ public class ContractServiceImpl implements ContractService {
         Map<String, Object> result = new HashMap<>();
         result.put("version1", v1);
         result.put("version2", v2);
-        result.put("content1", content1.getPlainTextContent());
-        result.put("content2", content2.getPlainTextContent());
+        result.put("content1", contractContentReader.readPlainText(content1));
+        result.put("content2", contractContentReader.readPlainText(content2));
         result.put("diff", "版本对比功能待实现");
         
         return Response.success(result);
@@ -496,247 +906,357 @@ public class ContractServiceImpl implements ContractService {
     
     @Override
     public Response<String> getContractContent(Long contractId, Integer versionNumber) {
-        ContractVersion version = versionNumber != null 
-                ? getContractVersion(contractId, versionNumber).getData()
-                : getLatestContractVersion(contractId).getData();
-        
-        String content = contractContentRepository.findByContractIdAndVersionId(contractId, version.getId())
-                .map(ContractContent::getContent)
-                .orElseThrow(() -> new BusinessException(404, "合同内容不存在"));
+        String content = contractContentReader.readRaw(findContent(contractId, versionNumber));
         
         return Response.success(content);
     }
     
     @Override
     public Response<String> getContractPlainText(Long contractId, Integer versionNumber) {
-        ContractVersion version = versionNumber != null 
-                ? getContractVersion(contractId, versionNumber).getData()
-                : getLatestContractVersion(contractId).getData();
-        
-        String content = contractContentRepository.findByContractIdAndVersionId(contractId, version.getId())
-                .map(ContractContent::getPlainTextContent)
-                .orElseThrow(() -> new BusinessException(404, "合同内容不存在"));
+        String content = contractContentReader.readPlainText(findContent(contractId, versionNumber));
         
         return Response.success(content);
     }
     
     @Override
     public Response<String> getContractHtmlContent(Long contractId, Integer versionNumber) {
-        ContractVersion version = versionNumber != null 
-                ? getContractVersion(contractId, versionNumber).getData()
-                : getLatestContractVersion(contractId).getData();
-        
-        String content = contractContentRepository.findByContractIdAndVersionId(contractId, version.getId())
-                .map(ContractContent::getHtmlContent)
-                .orElseThrow(() -> new BusinessException(404, "合同内容不存在"));
+        String content = contractContentReader.readHtml(findContent(contractId, versionNumber));
         
         return Response.success(content);
     }
     
     @Override
+    public Response<StreamingResponseBody> streamContractHtml(Long contractId, Integer versionNumber) {
+        // 先解析出正文记录, 合同不存在 / 提取中的错误在写响应之前抛出
+        ContractContent content = findContent(contractId, versionNumber);
+        return Response.success(out -> {
+            Writer writer = utf8Writer(out);
+            contractContentReader.writeHtml(content, writer);
+            writer.flush();
+        });
+    }
+    
+    // 响应流不由这里关闭, 只 flush
+    private Writer utf8Writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public Response<Map<String, Object>> getContractContentChunk(Long contractId, Integer versionNumber, Integer chunkIndex) {
+        ContractContent content = findContent(contractId, versionNumber);
+        ContractContentChunk chunk = contractContentReader.readChunk(content, chunkIndex)
+                .orElseThrow(() -> new BusinessException(404, "内容分块不存在"));
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("chunkIndex", chunk.getChunkIndex());
+        result.put("chunkCount", contractContentReader.chunkCountOf(content));
+        result.put("pageStart", chunk.getPageStart());
+        result.put("pageEnd", chunk.getPageEnd());
+        result.put("pageCount", content.getPageCount());
+        result.put("plainText", chunk.getPlainText());
+        result.put("htmlContent", chunk.getHtmlContent());
+        
+        return Response.success(result);
+    }
+    
+    /**
+     * 批量获取合同, 一条 IN 查询
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Response<List<ContractMain>> batchGetContracts(List<Long> contractIds) {
+        List<Long> ids = distinctIds(contractIds);
+        Map<Long, ContractMain> found = new HashMap<>();
+        for (ContractMain contract : contractMainRepository.findAllById(ids)) {
+            found.put(contract.getId(), contract);
+        }
+        List<ContractMain> contracts = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            ContractMain contract = found.get(id);
+            if (contract != null) {
+                contracts.add(contract);
+            }
+        }
+        return Response.success(contracts);
+    }
+    
+    /**
+     * 批量状态变更
+     * 按 status-chunk-size 分段, 每段一个短事务: 先一条 IN 查询取当前状态, 再一条
+     * UPDATE ... WHERE id IN (...) AND status = :expected 变更; 变更行数少于预期时 (并发修改) 重新查询确定每个合同的结果
+     * 已提交的分段不因后续分段失败而回滚
+     */
+    @Override
+    public Response<BulkStatusResult> bulkUpdateContractStatus(BulkStatusRequest request) {
+        Integer expected = request.getExpectedStatus();
+        Integer target = request.getTargetStatus();
+        if (expected == null || target == null) {
+            throw new BusinessException(400, "期望状态和目标状态不能为空");
+        }
+        if (expected.equals(target)) {
+            throw new BusinessException(400, "目标状态与期望状态相同");
+        }
+        List<Long> ids = distinctIds(request.getIds());
+        
+        Map<Long, BulkStatusItem> results = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += statusChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + statusChunkSize, ids.size()));
+            writeTransaction.executeWithoutResult(status -> updateStatusChunk(chunk, expected, target, results));
+        }
+        List<BulkStatusItem> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            items.add(results.get(id));
+        }
+        BulkStatusResult result = new BulkStatusResult(items);
+        logger.info("批量状态变更 {} -> {}: 共 {} 个, 变更 {} 个", expected, target, result.getTotal(), result.getUpdatedCount());
+        return Response.success(result);
+    }
+    
+    private void updateStatusChunk(List<Long> chunk, Integer expected, Integer target, Map<Long, BulkStatusItem> results) {
+        Map<Long, Integer> current = statusOf(chunk);
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : chunk) {
+            if (!current.containsKey(id)) {
+                results.put(id, new BulkStatusItem(id, BulkStatusItem.Outcome.NOT_FOUND, null));
+            } else if (expected.equals(current.get(id))) {
+                candidates.add(id);
+            } else {
+                results.put(id, new BulkStatusItem(id, BulkStatusItem.Outcome.STATUS_MISMATCH, current.get(id)));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        
+        int updated = contractMainRepository.updateStatusIfMatches(candidates, expected, target, LocalDateTime.now());
+        if (updated < candidates.size()) {
+            // 查询与更新之间有合同被并发修改或删除
+            current = statusOf(candidates);
+        }
+        List<Long> updatedIds = new ArrayList<>(updated);
+        for (Long id : candidates) {
+            Integer status = updated < candidates.size() ? current.get(id) : target;
+            if (status == null) {
+                results.put(id, new BulkStatusItem(id, BulkStatusItem.Outcome.NOT_FOUND, null));
+            } else if (target.equals(status)) {
+                results.put(id, new BulkStatusItem(id, BulkStatusItem.Outcome.UPDATED, status));
+                updatedIds.add(id);
+            } else {
+                results.put(id, new BulkStatusItem(id, BulkStatusItem.Outcome.STATUS_MISMATCH, status));
+            }
+        }
+        contractStatService.recordStatusChange(expected, target, updated);
+        eventPublisher.publishEvent(new ContractBatchChangeEvent(updatedIds, ContractChangeEvent.Type.STATUS_CHANGED));
+    }
+    
+    private Map<Long, Integer> statusOf(List<Long> ids) {
+        Map<Long, Integer> statuses = new HashMap<>();
+        for (Object[] row : contractMainRepository.findStatusByIdIn(ids)) {
+            statuses.put((Long) row[0], (Integer) row[1]);
+        }
+        return statuses;
+    }
+    
+    private List<Long> distinctIds(List<Long> contractIds) {
+        if (contractIds == null || contractIds.isEmpty()) {
+            throw new BusinessException(400, "合同ID不能为空");
+        }
+        List<Long> ids = contractIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (ids.size() > batchMaxIds) {
+            throw new BusinessException(400, "单次最多处理 " + batchMaxIds + " 个合同");
+        }
+        return ids;
+    }
+    
+    @Override
+    @Transactional
     public Response<ContractMain> updateContractStatus(Long contractId, Integer status) {
         ContractMain contract = contractMainRepository.findById(contractId)
                 .orElseThrow(() -> new BusinessException(404, "合同不存在"));
+        ContractStatKeys statKeysBefore = ContractStatKeys.of(contract);
         
         contract.setStatus(status);
         contract.setUpdateTime(LocalDateTime.now());
         
-        return Response.success("合同状态更新成功", contractMainRepository.save(contract));
+        ContractMain savedContract = saveWithLock(contract);
+        contractStatService.recordChange(statKeysBefore, ContractStatKeys.of(savedContract));
+        publishChange(contractId, ContractChangeEvent.Type.CONTRACT_SAVED);
+        return Response.success("合同状态更新成功", savedContract);
     }
     
     @Override
-    public Response<byte[]> exportContract(Long contractId, Integer versionNumber, String format) {
-        try {
-            ContractVersion version = versionNumber != null 
-                    ? getContractVersion(contractId, versionNumber).getData()
-                    : getLatestContractVersion(contractId).getData();
-            
-            ContractContent content = contractContentRepository.findByContractIdAndVersionId(contractId, version.getId())
-                    .orElseThrow(() -> new BusinessException(404, "合同内容不存在"));
-            
-            byte[] exportContent;
-            switch (format.toLowerCase()) {
-                case "txt":
-                    exportContent = content.getPlainTextContent().getBytes(StandardCharsets.UTF_8);
-                    break;
-                case "html":
-                    exportContent = content.getHtmlContent().getBytes(StandardCharsets.UTF_8);
-                    break;
-                default:
-                    exportContent = content.getContent().getBytes(StandardCharsets.UTF_8);
+    public Response<StreamingResponseBody> exportContract(Long contractId, Integer versionNumber, String format) {
+        // 合同不存在 / 提取中等错误在开始写响应之前抛出; 正文在写响应时逐块读取, 不在内存中生成整个导出文件
+        ContractContent content = findContent(contractId, versionNumber);
+        String exportFormat = format.toLowerCase();
+        
+        return Response.success("合同导出成功", out -> {
+            try {
+                Writer writer = utf8Writer(out);
+                switch (exportFormat) {
+                    case "txt":
+                        contractContentReader.writePlainText(content, writer);
+                        break;
+                    case "html":
+                        contractContentReader.writeHtml(content, writer);
+                        break;
+                    default:
+                        contractContentReader.writeRaw(content, writer);
+                }
+                writer.flush();
+            } catch (IOException | RuntimeException e) {
+                // 响应头已发出, 只能中断响应
+                logger.error("导出合同失败: contractId={} - {}", contractId, e.getMessage(), e);
+                throw e;
             }
-            
-            return Response.success("合同导出成功", exportContent);
-        } catch (Exception e) {
-            logger.error("导出合同失败: {}", e.getMessage(), e);
-            throw new BusinessException(500, "导出合同失败: " + e.getMessage());
-        }
+        });
     }
     
+    /**
+     * 合同内搜索: 空格分隔的多个关键词一次扫描全文, 按字面匹配 (不区分大小写), 返回合并后的片段
+     */
     @Override
-    public Response<List<Map<String, Object>>> searchContractContent(Long contractId, String keyword) {
+    public Response<List<ContentMatch>> searchContractContent(Long contractId, String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            throw new BusinessException(400, "搜索关键词不能为空");
+        }
         ContractVersion latestVersion = getLatestContractVersion(contractId).getData();
         
-        ContractContent content = contractContentRepository.findByContractIdAndVersionId(contractId, latestVersion.getId())
-                .orElseThrow(() -> new BusinessException(404, "合同内容不存在"));
+        ContractContent content = findContent(contractId, latestVersion);
+        String plainText = contractContentReader.readPlainText(content);
         
-        List<Map<String, Object>> results = new ArrayList<>();
-        String plainText = content.getPlainTextContent();
-        String lowerCasePlainText = plainText.toLowerCase();
-        String lowerCaseKeyword = keyword.toLowerCase();
+        KeywordMatcher matcher = KeywordMatcher.of(Arrays.asList(keyword.trim().split("\\s+")));
+        List<HighlightSnippet> snippets = KeywordHighlighter.highlight(matcher, plainText, contentSearchContext, contentSearchMaxSnippets);
         
-        int index = lowerCasePlainText.indexOf(lowerCaseKeyword);
-        while (index != -1) {
-            Map<String, Object> result = new HashMap<>();
-            result.put("keyword", keyword);
-            result.put("position", index);
-            
-            // 获取更丰富的前后文
-            int start = Math.max(0, index - 100);
-            int end = Math.min(plainText.length(), index + keyword.length() + 100);
-            
-            // 高亮匹配的关键词
-            String context = plainText.substring(start, end);
-            String highlightedContext = context.replaceAll(
-                "(?i)" + keyword, 
-                "<mark>$0</mark>"
-            );
-            
-            result.put("context", highlightedContext);
-            result.put("version", latestVersion.getVersionNumber());
-            results.add(result);
-            
-            index = lowerCasePlainText.indexOf(lowerCaseKeyword, index + 1);
+        List<ContentMatch> results = new ArrayList<>(snippets.size());
+        for (HighlightSnippet snippet : snippets) {
+            results.add(new ContentMatch(keyword, snippet.getOffsets()[0], snippet.getStart(), snippet.getEnd(),
+                    snippet.getOffsets(), snippet.getHtml(), latestVersion.getVersionNumber()));
         }
-        
         return Response.success("内容搜索完成", results);
     }
     
+    /**
+     * 全局正文搜索, 由搜索引擎按相关度排序分页返回
+     */
     @Override
-    public Response<List<Map<String, Object>>> searchAllContractContent(String keyword) {
-        // 简单实现，实际项目中应使用Elasticsearch进行全文搜索
-        List<Map<String, Object>> results = new ArrayList<>();
-        
-        // 获取所有合同
-        List<ContractMain> contracts = contractMainRepository.findAll();
-        
-        for (ContractMain contract : contracts) {
-            try {
-                // 获取最新版本内容
-                ContractVersion latestVersion = getLatestContractVersion(contract.getId()).getData();
-                ContractContent content = contractContentRepository.findByContractIdAndVersionId(contract.getId(), latestVersion.getId())
-                        .orElse(null);
-                
-                if (content != null) {
-                    String plainText = content.getPlainTextContent();
-                    if (plainText.contains(keyword)) {
-                        Map<String, Object> result = new HashMap<>();
-                        result.put("contractId", contract.getId());
-                        result.put("contractName", contract.getContractName());
-                        result.put("contractNumber", contract.getContractNumber());
-                        
-                        // 获取第一个匹配的上下文
-                        int index = plainText.indexOf(keyword);
-                        if (index != -1) {
-                            int start = Math.max(0, index - 50);
-                            int end = Math.min(plainText.length(), index + keyword.length() + 50);
-                            result.put("context", plainText.substring(start, end));
-                        }
-                        
-                        results.add(result);
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("搜索合同 {} 内容失败: {}", contract.getId(), e.getMessage(), e);
-                // 继续搜索其他合同
-            }
+    public Response<Page<ContractSearchHit>> searchAllContractContent(String keyword, Pageable pageable) {
+        if (!StringUtils.hasText(keyword)) {
+            throw new BusinessException(400, "搜索关键词不能为空");
+        }
+        try {
+            return Response.success("全局内容搜索完成", contractSearchEngine.search(keyword.trim(), pageable));
+        } catch (Exception e) {
+            logger.error("全局内容搜索失败: {}", e.getMessage(), e);
+            throw new BusinessException(503, "搜索服务暂不可用");
         }
-        
-        return Response.success("全局内容搜索完成", results);
     }
     
     // 辅助方法
-    private String extractPlainText(byte[] fileBytes, String fileName)
-            throws IOException, TikaException {
 
-        Metadata metadata = new Metadata();
-        metadata.set("resourceName", fileName);
+    /**
+     * 发布合同变更事件, 搜索索引等在事务提交后更新
+     */
+    private void publishChange(Long contractId, ContractChangeEvent.Type type) {
+        eventPublisher.publishEvent(new ContractChangeEvent(contractId, type));
+    }
 
-        try (InputStream is = new ByteArrayInputStream(fileBytes)) {
-            return tika.parseToString(is, metadata);
+    /**
+     * 获取当前登录用户，如果未登录则使用默认系统用户
+     * 依赖请求上下文, 只能在请求线程中调用
+     */
+    private String currentUserId() {
+        if (StpUtil.isLogin()) {
+            return StpUtil.getLoginIdAsString();
         }
+        logger.warn("当前未登录，使用默认用户system_auto创建合同");
+        return "system_auto";
     }
-    
-    private String convertToHtml(String plainText) {
-        // 简单转换，实际应该使用更复杂的HTML生成逻辑
-        return plainText.replaceAll("\\n", "<br>")
-                        .replaceAll("\\t", "&nbsp;&nbsp;&nbsp;&nbsp;");
+
+    /**
+     * 读取指定版本的合同内容, 不指定版本时读取最新版本
+     * 最新版本正文已提取完成时按合同上记录的正文文档ID一次主键查询, 不再先查版本
+     */
+    private ContractContent findContent(Long contractId, Integer versionNumber) {
+        if (versionNumber != null) {
+            return findContent(contractId, getContractVersion(contractId, versionNumber).getData());
+        }
+        ContractMain contract = contractMetadataCache.getContract(contractId)
+                .orElseThrow(() -> new BusinessException(404, "合同不存在"));
+        if (contract.getLatestContentId() != null) {
+            Optional<ContractContent> content = contractContentRepository.findContentById(contract.getLatestContentId());
+            if (content.isPresent()) {
+                return content.get();
+            }
+        }
+        // 正文还在提取或缓存的合同信息已过期, 按最新版本查找并给出明确提示
+        return findContent(contractId, getLatestContractVersion(contractId).getData());
     }
 
     /**
-     * 验证文件类型 只支持/pdf和.docx文件
-     * @param file
+     * 读取版本对应的合同内容, 内容还在异步提取时给出明确提示
      */
-    private void validateFileType(MultipartFile file) {
-        String fileName = file.getOriginalFilename();
-        if (fileName == null || (!fileName.toLowerCase().endsWith(".pdf") && !fileName.toLowerCase().endsWith(".docx"))) {
-            throw new BusinessException(400, "不支持的文件类型，仅支持 .pdf 和 .docx");
+    private ContractContent findContent(Long contractId, ContractVersion version) {
+        Optional<ContractContent> content = contractContentRepository.findByContractIdAndVersionId(contractId, version.getId());
+        if (content.isPresent()) {
+            return content.get();
         }
+        Integer extractStatus = version.getExtractStatus();
+        if (extractStatus != null && (extractStatus == ContractVersion.EXTRACT_PENDING
+                || extractStatus == ContractVersion.EXTRACT_PROCESSING)) {
+            throw new BusinessException(409, "合同内容提取中，请稍后重试");
+        }
+        if (extractStatus != null && extractStatus == ContractVersion.EXTRACT_FAILED) {
+            throw new BusinessException(500, "合同内容提取失败: " + version.getExtractError());
+        }
+        throw new BusinessException(404, "合同内容不存在");
     }
 
     /**
-     * 保存文件到磁盘
-     * @param file
-     * @return
-     * @throws IOException
+     * 流式处理上传文件: 边读边计算哈希、写入存储, 不把整个文件读进内存
+     * 文本提取在拿到哈希之后进行, 以便命中提取缓存时跳过解析
      */
-    private String saveFileToDisk(MultipartFile file) throws IOException {
-        String originalFileName = file.getOriginalFilename();
-        
+    private IngestResult storeFile(MultipartFile file) throws IOException {
+        MessageDigest digest = newDigest();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (InputStream is = new DigestInputStream(file.getInputStream(), digest)) {
+            StoredObject stored = contractFileStorage.store(uniqueFileName(file.getOriginalFilename()), is);
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            return new IngestResult(contentHash, stored.getStoragePath(), stored.getSize());
+        } finally {
+            sample.stop(storeStageTimer);
+        }
+    }
+
+    private String uniqueFileName(String originalFileName) {
         // 生成唯一文件名: UUID + 原始文件名
-        String uniqueFileName = UUID.randomUUID().toString() + "_" + originalFileName;
-        
-        // 尝试上传到FTP
+        return UUID.randomUUID().toString() + "_" + originalFileName;
+    }
+
+    private MessageDigest newDigest() {
         try {
-            uploadToFtp(file.getInputStream(), uniqueFileName);
-            return "ftp://" + ftpHost + ":" + ftpPort + ftpBasePath + "/" + uniqueFileName;
-        } catch (Exception e) {
-            logger.error("FTP上传失败，降级存储到本地磁盘: {}", e.getMessage());
-            // 降级：保存到本地磁盘
-            Path uploadPath = Paths.get(STORAGE_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            Path filePath = uploadPath.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            return filePath.toAbsolutePath().toString();
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 算法不可用", e);
         }
     }
-    
-    private void uploadToFtp(InputStream inputStream, String fileName) throws IOException {
-        FTPClient ftpClient = new FTPClient();
+
+    private void deleteStoredFileQuietly(String storagePath) {
         try {
-            ftpClient.connect(ftpHost, ftpPort);
-            ftpClient.login(ftpUsername, ftpPassword);
-            ftpClient.enterLocalPassiveMode();
-            ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
-            
-            // 确保目录存在
-            if (!ftpClient.changeWorkingDirectory(ftpBasePath)) {
-                ftpClient.makeDirectory(ftpBasePath);
-                ftpClient.changeWorkingDirectory(ftpBasePath);
-            }
-            
-            // 上传文件
-            boolean success = ftpClient.storeFile(fileName, inputStream);
-            if (!success) {
-                throw new IOException("FTP文件存储失败");
-            }
-        } finally {
-            if (ftpClient.isConnected()) {
-                ftpClient.logout();
-                ftpClient.disconnect();
-            }
+            contractFileStorage.delete(storagePath);
+        } catch (Exception e) {
+            logger.error("清理存储文件失败: {} - {}", storagePath, e.getMessage());
+        }
+    }
+
+    /**
+     * 验证文件类型 只支持/pdf和.docx文件
+     * @param file
+     */
+    private void validateFileType(MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        if (fileName == null || (!fileName.toLowerCase().endsWith(".pdf") && !fileName.toLowerCase().endsWith(".docx"))) {
+            throw new BusinessException(400, "不支持的文件类型，仅支持 .pdf 和 .docx");
         }
     }
 }
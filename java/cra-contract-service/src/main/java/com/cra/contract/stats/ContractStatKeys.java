@@ -0,0 +1,40 @@
+package com.cra.contract.stats;
+
+import com.cra.contract.entity.ContractMain;
+import lombok.Data;
+
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 一份合同在各统计维度上的取值, 变更前后各取一次, 差异即为计数增量
+ */
+@Data
+public class ContractStatKeys {
+
+    public enum Dimension {
+        STATUS, CATEGORY, DEPARTMENT, MONTH
+    }
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final Map<Dimension, String> keys = new EnumMap<>(Dimension.class);
+
+    public static ContractStatKeys of(ContractMain contract) {
+        ContractStatKeys statKeys = new ContractStatKeys();
+        statKeys.keys.put(Dimension.STATUS, keyOf(contract.getStatus()));
+        statKeys.keys.put(Dimension.CATEGORY, keyOf(contract.getCategory()));
+        statKeys.keys.put(Dimension.DEPARTMENT, keyOf(contract.getDepartment()));
+        statKeys.keys.put(Dimension.MONTH, contract.getCreateTime() == null ? "" : contract.getCreateTime().format(MONTH_FORMAT));
+        return statKeys;
+    }
+
+    public String get(Dimension dimension) {
+        return keys.get(dimension);
+    }
+
+    static String keyOf(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
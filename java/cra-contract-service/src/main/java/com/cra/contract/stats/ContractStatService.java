@@ -0,0 +1,192 @@
+package com.cra.contract.stats;
+
+import com.cra.contract.dto.ContractFacets;
+import com.cra.contract.entity.ContractStat;
+import com.cra.contract.repository.ContractMainRepository;
+import com.cra.contract.repository.ContractStatRepository;
+import com.cra.contract.stats.ContractStatKeys.Dimension;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 合同统计计数
+ * - 合同增删改时由 ContractServiceImpl 在同一事务内调用 recordChange, 按变更前后的维度取值增减 contract_stat,
+ *   查询统计只读 contract_stat, 耗时与合同数量无关
+ * - 定时按 GROUP BY 重新计算并覆盖计数, 修正绕过服务层的数据变更造成的偏差;
+ *   校正期间锁住计数行, 并发的增量更新等到校正提交后再累加, 不会丢失
+ */
+@Service
+public class ContractStatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractStatService.class);
+
+    @Value("${contract.stats.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    @Autowired
+    private ContractStatRepository contractStatRepository;
+
+    @Autowired
+    private ContractMainRepository contractMainRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 记录一次合同变更, 必须在写 contract_main 的事务内调用
+     * @param before 变更前取值, 新建合同时为空
+     * @param after 变更后取值, 删除合同时为空
+     */
+    public void recordChange(ContractStatKeys before, ContractStatKeys after) {
+        // 按 (维度, 取值) 固定顺序更新, 并发事务不会交叉加锁而死锁
+        Map<String, Long> deltas = new TreeMap<>();
+        for (Dimension dimension : Dimension.values()) {
+            String oldKey = before == null ? null : before.get(dimension);
+            String newKey = after == null ? null : after.get(dimension);
+            if (oldKey != null && oldKey.equals(newKey)) {
+                continue;
+            }
+            if (oldKey != null) {
+                deltas.merge(dimension.name() + "\n" + oldKey, -1L, Long::sum);
+            }
+            if (newKey != null) {
+                deltas.merge(dimension.name() + "\n" + newKey, 1L, Long::sum);
+            }
+        }
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                int split = key.indexOf('\n');
+                contractStatRepository.increment(key.substring(0, split), key.substring(split + 1), delta);
+            }
+        });
+    }
+
+    /**
+     * 记录一批合同从 from 状态改为 to 状态, 其它维度不变
+     */
+    public void recordStatusChange(Integer from, Integer to, long count) {
+        if (count == 0) {
+            return;
+        }
+        String fromKey = ContractStatKeys.keyOf(from);
+        String toKey = ContractStatKeys.keyOf(to);
+        // 与 recordChange 相同的加锁顺序
+        boolean fromFirst = fromKey.compareTo(toKey) < 0;
+        contractStatRepository.increment(Dimension.STATUS.name(), fromFirst ? fromKey : toKey, fromFirst ? -count : count);
+        contractStatRepository.increment(Dimension.STATUS.name(), fromFirst ? toKey : fromKey, fromFirst ? count : -count);
+    }
+
+    public ContractFacets getFacets() {
+        ContractFacets facets = new ContractFacets();
+        for (ContractStat stat : contractStatRepository.findAll()) {
+            Map<String, Long> target = switch (Dimension.valueOf(stat.getDimension())) {
+                case STATUS -> facets.getByStatus();
+                case CATEGORY -> facets.getByCategory();
+                case DEPARTMENT -> facets.getByDepartment();
+                case MONTH -> facets.getByMonth();
+            };
+            if (stat.getStatCount() > 0) {
+                target.put(stat.getDimKey(), stat.getStatCount());
+            }
+        }
+        facets.setTotal(facets.getByStatus().values().stream().mapToLong(Long::longValue).sum());
+        return facets;
+    }
+
+    /**
+     * 首次部署时计数表为空, 启动后按合同表生成
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initIfEmpty() {
+        if (contractStatRepository.count() == 0) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(cron = "${contract.stats.reconcile.cron:0 30 3 * * ?}")
+    public void scheduledReconcile() {
+        if (reconcileEnabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * 按 contract_main 重新计算全部计数
+     * @return 校正的计数行数
+     */
+    public int reconcile() {
+        Integer corrected = new TransactionTemplate(transactionManager).execute(status -> {
+            List<ContractStat> current = contractStatRepository.findAllForUpdate();
+            Map<Dimension, Map<String, Long>> expected = countFromContracts();
+
+            int changed = 0;
+            for (ContractStat stat : current) {
+                Long count = expected.get(Dimension.valueOf(stat.getDimension())).remove(stat.getDimKey());
+                if (count == null) {
+                    contractStatRepository.delete(stat);
+                    changed++;
+                } else if (!count.equals(stat.getStatCount())) {
+                    stat.setStatCount(count);
+                    stat.setUpdateTime(LocalDateTime.now());
+                    changed++;
+                }
+            }
+            // 计数表中还没有的取值
+            for (Map.Entry<Dimension, Map<String, Long>> entry : expected.entrySet()) {
+                for (Map.Entry<String, Long> count : entry.getValue().entrySet()) {
+                    contractStatRepository.increment(entry.getKey().name(), count.getKey(), count.getValue());
+                    changed++;
+                }
+            }
+            return changed;
+        });
+        int changed = corrected == null ? 0 : corrected;
+        meterRegistry.counter("contract.stats.reconcile.corrected").increment(changed);
+        if (changed > 0) {
+            logger.warn("合同统计计数已校正 {} 行", changed);
+        }
+        return changed;
+    }
+
+    private Map<Dimension, Map<String, Long>> countFromContracts() {
+        Map<Dimension, Map<String, Long>> expected = new EnumMap<>(Dimension.class);
+        expected.put(Dimension.STATUS, toCounts(contractMainRepository.countGroupByStatus()));
+        expected.put(Dimension.CATEGORY, toCounts(contractMainRepository.countGroupByCategory()));
+        expected.put(Dimension.DEPARTMENT, toCounts(contractMainRepository.countGroupByDepartment()));
+        Map<String, Long> byMonth = new HashMap<>();
+        for (Object[] row : contractMainRepository.countGroupByCreateMonth()) {
+            String month = String.format("%04d-%02d", ((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            byMonth.put(month, ((Number) row[2]).longValue());
+        }
+        expected.put(Dimension.MONTH, byMonth);
+        return expected;
+    }
+
+    private Map<String, Long> toCounts(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            // 空字符串和 NULL 合并计数, 与增量更新时的取值规则一致
+            counts.merge(ContractStatKeys.keyOf(row[0]), ((Number) row[1]).longValue(), Long::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,166 @@
+package com.cra.contract.storage;
+
+import com.cra.contract.entity.ContractVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 合同原始文件下载 (PDF 预览、下载原件)
+ * 支持单区间 Range 请求 (206), 多区间或 If-Range 不匹配时返回整个文件 (200), 区间越界返回 416
+ * 本地文件交给 Tomcat sendfile, 由内核直接从页缓存发送到 socket, 不经过 JVM;
+ * 容器不支持 sendfile 或文件在远程存储时经 ContractFileStorage.transferTo 按区间写出,
+ * 每个下载只占用固定大小的缓冲区, 大文件和并发下载都不会把文件读入堆内存
+ */
+@Component
+public class ContractFileDownloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractFileDownloader.class);
+
+    // Tomcat sendfile 约定的请求属性, 见 org.apache.coyote.http11.Http11Processor
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${contract.download.sendfile:true}")
+    private boolean sendfileEnabled;
+
+    @Autowired
+    private ContractFileStorage contractFileStorage;
+
+    @Autowired
+    private LocalStorageBackend localStorageBackend;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 把版本对应的原始文件写入响应, 请求中的 Range / If-Range 按 RFC 9110 处理
+     */
+    public void download(ContractVersion version, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String storagePath = version.getStoragePath();
+        Path localFile = localStorageBackend.supports(storagePath) ? localStorageBackend.localFile(storagePath) : null;
+        long length = localFile != null ? Files.size(localFile) : version.getFileSize() == null ? -1 : version.getFileSize();
+        String etag = version.getContentHash() == null ? null : "\"" + version.getContentHash() + "\"";
+
+        response.setContentType(contentTypeOf(version).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename(fileNameOf(version), StandardCharsets.UTF_8).build().toString());
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        if (length < 0) {
+            // 历史数据没有记录文件大小, 不支持区间请求
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+            write(version, null, 0, Long.MAX_VALUE, false, request, response);
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        HttpRange range = requestedRange(request, etag);
+        if (range == null || length == 0) {
+            response.setContentLengthLong(length);
+            write(version, localFile, 0, length, false, request, response);
+            return;
+        }
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        response.setContentLengthLong(end - start + 1);
+        write(version, localFile, start, end - start + 1, true, request, response);
+    }
+
+    /**
+     * 只处理单区间请求; 格式错误或多区间时忽略 Range, 返回整个文件
+     */
+    private HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasText(header)) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            // 文件已变化 (或 If-Range 为日期, 不做比较), 返回整个文件
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            logger.debug("忽略无法解析的 Range 请求头: {}", header);
+            return null;
+        }
+    }
+
+    private void write(ContractVersion version, Path localFile, long position, long count, boolean partial,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (localFile != null && sendfileEnabled && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 响应体由容器在请求处理结束后直接发送, 这里不写任何内容
+            request.setAttribute(SENDFILE_FILENAME, localFile.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            record("sendfile", partial, count);
+            return;
+        }
+        long written = contractFileStorage.transferTo(version.getStoragePath(), position, count,
+                Channels.newChannel(response.getOutputStream()));
+        record("stream", partial, written);
+    }
+
+    private void record(String mode, boolean partial, long bytes) {
+        Counter.builder("contract.file.download.bytes")
+                .tag("mode", mode)
+                .tag("partial", String.valueOf(partial))
+                .description("原始文件下载字节数")
+                .register(meterRegistry)
+                .increment(bytes);
+    }
+
+    private MediaType contentTypeOf(ContractVersion version) {
+        if (StringUtils.hasText(version.getFileType())) {
+            try {
+                return MediaType.parseMediaType(version.getFileType());
+            } catch (IllegalArgumentException e) {
+                // 上传时客户端给出的类型不规范, 按文件名推断
+            }
+        }
+        return MediaTypeFactory.getMediaType(version.getFileName()).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    private String fileNameOf(ContractVersion version) {
+        return StringUtils.hasText(version.getFileName()) ? version.getFileName()
+                : "contract_" + version.getContractId() + "_v" + version.getVersionNumber();
+    }
+}
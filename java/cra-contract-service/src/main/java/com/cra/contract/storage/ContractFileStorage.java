@@ -0,0 +1,151 @@
+package com.cra.contract.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 合同原始文件存储
+ * 上传接口写文件, 提取消费者读文件, 删除合同时删文件, 都走这里
+ * 主存储由 contract.storage.type 决定 (ftp / local / gridfs), 读取和删除按存储路径格式路由到对应后端,
+ * 切换主存储后历史文件仍然可读
+ * 主存储为远程存储时写入经过熔断器, 失败或熔断期间降级写本地磁盘, 由 StorageResyncTask 在恢复后补传
+ */
+@Component
+public class ContractFileStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractFileStorage.class);
+
+    @Value("${contract.storage.type:ftp}")
+    private String storageType;
+
+    @Autowired
+    private List<StorageBackend> backends;
+
+    @Autowired
+    private LocalStorageBackend localStorageBackend;
+
+    @Autowired
+    private StorageCircuitBreaker storageCircuitBreaker;
+
+    private StorageBackend primary;
+
+    @PostConstruct
+    public void init() {
+        primary = backends.stream()
+                .filter(backend -> backend.type().equals(storageType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("未找到存储后端: " + storageType));
+        logger.info("合同文件主存储: {}", primary.type());
+    }
+
+    /**
+     * 打开存储输出流, 优先主存储, 远程存储不可用时降级到本地磁盘
+     * @param uniqueFileName 存储文件名
+     * @return 存储输出流, 关闭后文件写入完成
+     * @throws IOException
+     */
+    public StorageSink openSink(String uniqueFileName) throws IOException {
+        if (primary == localStorageBackend) {
+            return localStorageBackend.openSink(uniqueFileName);
+        }
+        if (!storageCircuitBreaker.allowRequest()) {
+            // 熔断中：直接保存到本地磁盘
+            logger.debug("{}熔断中，直接存储到本地磁盘: {}", primary.type(), uniqueFileName);
+            return localStorageBackend.openSink(uniqueFileName);
+        }
+        try {
+            StorageSink sink = primary.openSink(uniqueFileName);
+            storageCircuitBreaker.recordSuccess();
+            return sink;
+        } catch (Exception e) {
+            storageCircuitBreaker.recordFailure();
+            logger.error("{}存储失败，降级存储到本地磁盘: {}", primary.type(), e.getMessage());
+            // 降级：保存到本地磁盘
+            return localStorageBackend.openSink(uniqueFileName);
+        }
+    }
+
+    /**
+     * 从输入流读取并写入存储, 不负责关闭输入流
+     * 主存储为本地磁盘时走 FileChannel.transferFrom
+     */
+    public StoredObject store(String uniqueFileName, InputStream in) throws IOException {
+        if (primary == localStorageBackend) {
+            return localStorageBackend.store(uniqueFileName, in);
+        }
+        StorageSink sink = openSink(uniqueFileName);
+        try {
+            in.transferTo(sink);
+            sink.close();
+            return new StoredObject(sink.getStoragePath(), sink.getBytesWritten());
+        } catch (IOException | RuntimeException e) {
+            sink.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 把本地降级文件补传到主存储, 不做降级, 主存储不可用时直接抛出异常
+     * @return 主存储路径
+     */
+    public String copyToPrimary(Path localFile) throws IOException {
+        String fileName = localFile.getFileName().toString();
+        try (InputStream in = Files.newInputStream(localFile)) {
+            StoredObject stored = primary.store(fileName, in);
+            storageCircuitBreaker.recordSuccess();
+            return stored.getStoragePath();
+        } catch (IOException | RuntimeException e) {
+            storageCircuitBreaker.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取已存储的文件, 调用方负责关闭
+     */
+    public InputStream openRead(String storagePath) throws IOException {
+        return backendOf(storagePath).openRead(storagePath);
+    }
+
+    /**
+     * 把文件指定区间写入目标通道, 本地文件走 FileChannel.transferTo
+     */
+    public long transferTo(String storagePath, long position, long count, WritableByteChannel target) throws IOException {
+        return backendOf(storagePath).transferTo(storagePath, position, count, target);
+    }
+
+    /**
+     * 删除物理文件
+     */
+    public void delete(String storagePath) {
+        try {
+            backendOf(storagePath).delete(storagePath);
+        } catch (IOException | RuntimeException e) {
+            logger.error("文件删除异常: {} - {}", storagePath, e.getMessage());
+        }
+    }
+
+    private StorageBackend backendOf(String storagePath) {
+        for (StorageBackend backend : backends) {
+            // 本地存储兜底匹配所有不带协议前缀的路径, 放到最后
+            if (backend != localStorageBackend && backend.supports(storagePath)) {
+                return backend;
+            }
+        }
+        if (localStorageBackend.supports(storagePath)) {
+            return localStorageBackend;
+        }
+        throw new IllegalStateException("存储后端未启用: " + storagePath);
+    }
+}
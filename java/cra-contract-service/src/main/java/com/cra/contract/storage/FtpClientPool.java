@@ -0,0 +1,302 @@
+package com.cra.contract.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FTP 会话池
+ * 连接建立后保持登录状态并停留在 base-path 目录, 上传/下载/删除共享同一批长连接,
+ * 不再每个文件都走一遍 connect -> login -> pasv -> cwd -> logout
+ * 借出前发送 NOOP 校验连接, 空闲连接定期检测和回收, 操作中出现 IO 异常的连接直接废弃并重连重试一次
+ */
+@Component
+@ConditionalOnProperty(prefix = "ftp", name = "host")
+public class FtpClientPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpClientPool.class);
+
+    @Value("${ftp.host}")
+    private String ftpHost;
+
+    @Value("${ftp.port}")
+    private int ftpPort;
+
+    @Value("${ftp.username}")
+    private String ftpUsername;
+
+    @Value("${ftp.password}")
+    private String ftpPassword;
+
+    @Value("${ftp.base-path}")
+    private String ftpBasePath;
+
+    @Value("${ftp.connect-timeout:5000}")
+    private int connectTimeout;
+
+    @Value("${ftp.data-timeout:60000}")
+    private int dataTimeout;
+
+    @Value("${ftp.pool.min-idle:1}")
+    private int minIdle;
+
+    @Value("${ftp.pool.max-idle:4}")
+    private int maxIdle;
+
+    @Value("${ftp.pool.max-total:8}")
+    private int maxTotal;
+
+    @Value("${ftp.pool.max-wait:5000}")
+    private long maxWaitMillis;
+
+    @Value("${ftp.pool.eviction-interval:30000}")
+    private long evictionIntervalMillis;
+
+    @Value("${ftp.pool.min-evictable-idle:120000}")
+    private long minEvictableIdleMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 标记本次借出是否新建了连接 (GenericObjectPool 在借出线程中调用 create)
+    private final ThreadLocal<Boolean> createdOnBorrow = ThreadLocal.withInitial(() -> false);
+
+    private GenericObjectPool<FTPClient> pool;
+
+    private Timer borrowTimer;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        GenericObjectPoolConfig<FTPClient> config = new GenericObjectPoolConfig<>();
+        config.setMinIdle(minIdle);
+        config.setMaxIdle(maxIdle);
+        config.setMaxTotal(maxTotal);
+        config.setMaxWait(Duration.ofMillis(maxWaitMillis));
+        config.setTestOnBorrow(true);
+        config.setTestWhileIdle(true);
+        config.setTimeBetweenEvictionRuns(Duration.ofMillis(evictionIntervalMillis));
+        config.setMinEvictableIdleDuration(Duration.ofMillis(minEvictableIdleMillis));
+        config.setJmxEnabled(false);
+        pool = new GenericObjectPool<>(new FtpClientFactory(), config);
+
+        borrowTimer = Timer.builder("contract.ftp.pool.borrow.wait")
+                .description("FTP 连接借出等待时间")
+                .register(meterRegistry);
+        hitCounter = Counter.builder("contract.ftp.pool.borrow")
+                .tag("result", "hit")
+                .description("复用池中已有连接的借出次数")
+                .register(meterRegistry);
+        missCounter = Counter.builder("contract.ftp.pool.borrow")
+                .tag("result", "miss")
+                .description("需要新建连接的借出次数")
+                .register(meterRegistry);
+        Gauge.builder("contract.ftp.pool.active", pool, GenericObjectPool::getNumActive).register(meterRegistry);
+        Gauge.builder("contract.ftp.pool.idle", pool, GenericObjectPool::getNumIdle).register(meterRegistry);
+        Gauge.builder("contract.ftp.pool.waiters", pool, GenericObjectPool::getNumWaiters).register(meterRegistry);
+
+        try {
+            // 预热最小空闲连接, FTP 不可用时不影响服务启动
+            pool.preparePool();
+        } catch (Exception e) {
+            logger.warn("FTP连接池预热失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pool.close();
+    }
+
+    /**
+     * 借出一个已登录且位于 base-path 的连接, 用完必须调用 release 或 invalidate
+     */
+    public FTPClient borrow() throws IOException {
+        long start = System.nanoTime();
+        createdOnBorrow.set(false);
+        try {
+            FTPClient client = pool.borrowObject();
+            (createdOnBorrow.get() ? missCounter : hitCounter).increment();
+            return client;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("获取FTP连接失败: " + e.getMessage(), e);
+        } finally {
+            createdOnBorrow.remove();
+            borrowTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 归还连接
+     */
+    public void release(FTPClient client) {
+        pool.returnObject(client);
+    }
+
+    /**
+     * 废弃连接 (连接出现 IO 异常或状态不确定时)
+     */
+    public void invalidate(FTPClient client) {
+        try {
+            pool.invalidateObject(client);
+        } catch (Exception e) {
+            logger.warn("废弃FTP连接失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 借出连接执行一次操作, 连接失效时重连重试一次
+     * @param operation 操作名, 用于延迟指标
+     */
+    public <T> T execute(String operation, FtpCallback<T> callback) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            try {
+                return executeOnce(callback);
+            } catch (IOException e) {
+                logger.warn("FTP操作 {} 失败，重连后重试: {}", operation, e.getMessage());
+                return executeOnce(callback);
+            }
+        } catch (IOException | RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            sample.stop(operationTimer(operation, outcome));
+        }
+    }
+
+    /**
+     * 单次 FTP 操作的延迟指标
+     */
+    public Timer operationTimer(String operation, String outcome) {
+        return Timer.builder("contract.ftp.operation")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .description("FTP 单次操作耗时")
+                .register(meterRegistry);
+    }
+
+    public String getFtpHost() {
+        return ftpHost;
+    }
+
+    public int getFtpPort() {
+        return ftpPort;
+    }
+
+    public String getFtpBasePath() {
+        return ftpBasePath;
+    }
+
+    private <T> T executeOnce(FtpCallback<T> callback) throws IOException {
+        FTPClient client = borrow();
+        try {
+            T result = callback.doInFtp(client);
+            release(client);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            invalidate(client);
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface FtpCallback<T> {
+        T doInFtp(FTPClient client) throws IOException;
+    }
+
+    /**
+     * 连接工厂: 建立连接并登录, 切到 base-path 目录
+     */
+    private class FtpClientFactory extends BasePooledObjectFactory<FTPClient> {
+
+        @Override
+        public FTPClient create() throws Exception {
+            createdOnBorrow.set(true);
+            FTPClient client = new FTPClient();
+            client.setConnectTimeout(connectTimeout);
+            client.setDefaultTimeout(dataTimeout);
+            try {
+                client.connect(ftpHost, ftpPort);
+                if (!client.login(ftpUsername, ftpPassword)) {
+                    throw new IOException("FTP登录失败");
+                }
+                client.enterLocalPassiveMode();
+                client.setFileType(FTP.BINARY_FILE_TYPE);
+                // 确保目录存在
+                if (!client.changeWorkingDirectory(ftpBasePath)) {
+                    client.makeDirectory(ftpBasePath);
+                    if (!client.changeWorkingDirectory(ftpBasePath)) {
+                        throw new IOException("FTP目录不可用: " + ftpBasePath);
+                    }
+                }
+                return client;
+            } catch (IOException | RuntimeException e) {
+                disconnectQuietly(client);
+                throw e;
+            }
+        }
+
+        @Override
+        public PooledObject<FTPClient> wrap(FTPClient client) {
+            return new DefaultPooledObject<>(client);
+        }
+
+        @Override
+        public boolean validateObject(PooledObject<FTPClient> pooledObject) {
+            FTPClient client = pooledObject.getObject();
+            try {
+                return client.isConnected() && client.sendNoOp();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void destroyObject(PooledObject<FTPClient> pooledObject) {
+            disconnectQuietly(pooledObject.getObject());
+        }
+
+        private void disconnectQuietly(FTPClient client) {
+            if (!client.isConnected()) {
+                return;
+            }
+            try {
+                client.logout();
+            } catch (IOException ex) {
+                // 连接已失效时 logout 会失败, 忽略后继续断开
+            }
+            try {
+                client.disconnect();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+}
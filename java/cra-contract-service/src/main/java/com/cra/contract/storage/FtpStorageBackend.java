@@ -0,0 +1,152 @@
+package com.cra.contract.storage;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.net.ftp.FTPClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * FTP 存储
+ * FTP 连接统一从 FtpClientPool 借出, 流式读写期间占用连接, 流关闭后归还
+ * 存储路径格式: ftp://host:port/basePath/fileName
+ * 配置了 ftp.host 即启用, 主存储切换到其它后端后仍可读取和删除历史 FTP 文件
+ */
+@Component
+@ConditionalOnProperty(prefix = "ftp", name = "host")
+public class FtpStorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(FtpStorageBackend.class);
+
+    public static final String TYPE = "ftp";
+
+    private static final String FTP_PREFIX = "ftp://";
+
+    @Autowired
+    private FtpClientPool ftpClientPool;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean supports(String storagePath) {
+        return storagePath.startsWith(FTP_PREFIX);
+    }
+
+    @Override
+    public StorageSink openSink(String fileName) throws IOException {
+        Timer.Sample sample = Timer.start();
+        // 打开上传数据流, 文件内容边读边写
+        FtpStream<OutputStream> upload = openStream(client -> client.storeFileStream(fileName), "FTP文件存储失败");
+        FTPClient ftpClient = upload.client();
+        String storagePath = FTP_PREFIX + ftpClientPool.getFtpHost() + ":" + ftpClientPool.getFtpPort()
+                + ftpClientPool.getFtpBasePath() + "/" + fileName;
+        return new StorageSink(upload.stream(), storagePath, () -> {
+            boolean completed = false;
+            try {
+                completed = ftpClient.completePendingCommand();
+                if (!completed) {
+                    throw new IOException("FTP文件存储失败");
+                }
+            } finally {
+                finish(ftpClient, completed, sample, "upload");
+            }
+        }, () -> {
+            // 上传中断: 连接状态不确定直接废弃, 再删掉服务端残留的半个文件
+            finish(ftpClient, false, sample, "upload");
+            ftpClientPool.execute("delete", client -> client.deleteFile(fileName));
+        });
+    }
+
+    @Override
+    public InputStream openRead(String storagePath) throws IOException {
+        String fileName = fileNameOf(storagePath);
+        Timer.Sample sample = Timer.start();
+        FtpStream<InputStream> download = openStream(client -> client.retrieveFileStream(fileName), "FTP文件读取失败: " + fileName);
+        FTPClient ftpClient = download.client();
+        return new FilterInputStream(download.stream()) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                boolean completed = false;
+                try {
+                    super.close();
+                    // 提前关闭(没读完)时服务端会返回传输中断, 此时连接状态不确定, 直接废弃
+                    completed = ftpClient.completePendingCommand();
+                } finally {
+                    finish(ftpClient, completed, sample, "download");
+                }
+            }
+        };
+    }
+
+    @Override
+    public void delete(String storagePath) throws IOException {
+        // 解析文件名: ftp://host:port/basePath/fileName
+        String fileName = fileNameOf(storagePath);
+        boolean deleted = ftpClientPool.execute("delete", client -> client.deleteFile(fileName));
+        if (deleted) {
+            logger.info("FTP文件已删除: {}", fileName);
+        } else {
+            logger.warn("FTP文件删除失败或文件不存在: {}", fileName);
+        }
+    }
+
+    /**
+     * 借出连接并打开数据流, 借到的连接已失效时废弃并重连重试一次
+     * 返回的连接在数据流关闭前一直被占用
+     */
+    private <T> FtpStream<T> openStream(FtpStreamOpener<T> opener, String errorMessage) throws IOException {
+        IOException lastError = null;
+        for (int attempt = 0; attempt < 2; attempt++) {
+            FTPClient client = ftpClientPool.borrow();
+            try {
+                T stream = opener.open(client);
+                if (stream != null) {
+                    return new FtpStream<>(client, stream);
+                }
+                lastError = new IOException(errorMessage);
+            } catch (IOException e) {
+                lastError = e;
+            }
+            ftpClientPool.invalidate(client);
+        }
+        throw lastError;
+    }
+
+    private void finish(FTPClient client, boolean completed, Timer.Sample sample, String operation) {
+        if (completed) {
+            ftpClientPool.release(client);
+        } else {
+            ftpClientPool.invalidate(client);
+        }
+        sample.stop(ftpClientPool.operationTimer(operation, completed ? "success" : "failure"));
+    }
+
+    private String fileNameOf(String storagePath) {
+        // 简单截取最后一个 '/' 后的部分作为文件名
+        return storagePath.substring(storagePath.lastIndexOf("/") + 1);
+    }
+
+    @FunctionalInterface
+    private interface FtpStreamOpener<T> {
+        T open(FTPClient client) throws IOException;
+    }
+
+    private record FtpStream<T>(FTPClient client, T stream) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.cra.contract.storage;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * MongoDB GridFS 存储
+ * 复用合同内容所在的 MongoDB, 不需要额外部署文件服务; 文件按 chunk 分块存储, 读写都是流式的
+ * 存储路径格式: gridfs://bucket/objectId
+ */
+@Component
+public class GridFsStorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(GridFsStorageBackend.class);
+
+    public static final String TYPE = "gridfs";
+
+    private static final String GRIDFS_PREFIX = "gridfs://";
+
+    @Value("${contract.storage.gridfs.bucket:contract_files}")
+    private String bucketName;
+
+    @Autowired
+    private MongoDatabaseFactory mongoDatabaseFactory;
+
+    private GridFSBucket bucket;
+
+    @PostConstruct
+    public void init() {
+        bucket = GridFSBuckets.create(mongoDatabaseFactory.getMongoDatabase(), bucketName);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean supports(String storagePath) {
+        return storagePath.startsWith(GRIDFS_PREFIX);
+    }
+
+    @Override
+    public StorageSink openSink(String fileName) throws IOException {
+        GridFSUploadStream upload;
+        try {
+            upload = bucket.openUploadStream(fileName);
+        } catch (MongoException e) {
+            throw new IOException("GridFS文件存储失败: " + e.getMessage(), e);
+        }
+        String storagePath = GRIDFS_PREFIX + bucketName + "/" + upload.getObjectId().toHexString();
+        // GridFS 上传流关闭后不能再 abort, 所以真正的 close 放到收尾动作里; abort 会删除已写入的 chunk
+        OutputStream out = new FilterOutputStream(upload) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                upload.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                // 由 completion 关闭
+            }
+        };
+        return new StorageSink(out, storagePath, upload::close, upload::abort);
+    }
+
+    @Override
+    public InputStream openRead(String storagePath) throws IOException {
+        try {
+            return bucket.openDownloadStream(objectIdOf(storagePath));
+        } catch (MongoException e) {
+            throw new IOException("GridFS文件读取失败: " + storagePath, e);
+        }
+    }
+
+    @Override
+    public void delete(String storagePath) throws IOException {
+        try {
+            bucket.delete(objectIdOf(storagePath));
+            logger.info("GridFS文件已删除: {}", storagePath);
+        } catch (MongoGridFSException e) {
+            logger.warn("GridFS文件不存在: {}", storagePath);
+        } catch (MongoException e) {
+            throw new IOException("GridFS文件删除失败: " + storagePath, e);
+        }
+    }
+
+    private ObjectId objectIdOf(String storagePath) {
+        return new ObjectId(storagePath.substring(storagePath.lastIndexOf("/") + 1));
+    }
+}
@@ -0,0 +1,174 @@
+package com.cra.contract.storage;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 本地文件系统存储 (NIO)
+ * 目录按文件名哈希分片: root/ab/cd/文件名, 百万级文件时单个目录下的文件数仍然很少
+ * 写入先落到 .part 临时文件, 完成后原子改名, 读取方不会看到写了一半的文件
+ * 读写走 FileChannel.transferFrom / transferTo, 源或目标是文件/socket 通道时由内核直接拷贝;
+ * 上传时输入流外面包着计算内容哈希的 DigestInputStream, 写入经过 Channels.newChannel 的缓冲拷贝, 不是零拷贝
+ * (哈希边写边算, 不必写完后再把文件读一遍); 零拷贝只在补传、下载等源/目标本身是通道的路径上生效
+ * 存储路径为绝对路径, 与历史数据中的本地路径格式一致
+ */
+@Component
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStorageBackend.class);
+
+    public static final String TYPE = "local";
+
+    private static final String TEMP_SUFFIX = ".part";
+
+    // 单次 transferFrom/transferTo 的最大字节数
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    @Value("${contract.storage.local.root}")
+    private String root;
+
+    @Value("${contract.storage.local.shard-depth:2}")
+    private int shardDepth;
+
+    private Path rootPath;
+
+    @PostConstruct
+    public void init() throws IOException {
+        rootPath = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(rootPath);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public boolean supports(String storagePath) {
+        // 远程存储路径都带协议前缀, 其余视为本地路径
+        return !storagePath.contains("://");
+    }
+
+    @Override
+    public StorageSink openSink(String fileName) throws IOException {
+        Path target = resolve(fileName);
+        Path temp = tempOf(target);
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new StorageSink(Channels.newOutputStream(channel), target.toString(),
+                () -> Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING),
+                () -> Files.deleteIfExists(temp));
+    }
+
+    @Override
+    public StoredObject store(String fileName, InputStream in) throws IOException {
+        Path target = resolve(fileName);
+        Path temp = tempOf(target);
+        long position = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = channelOf(in);
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new StoredObject(target.toString(), position);
+    }
+
+    @Override
+    public InputStream openRead(String storagePath) throws IOException {
+        return Files.newInputStream(Paths.get(storagePath));
+    }
+
+    @Override
+    public long transferTo(String storagePath, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(storagePath), StandardOpenOption.READ)) {
+            long end = Math.min(channel.size(), position + count);
+            long current = position;
+            while (current < end) {
+                long transferred = channel.transferTo(current, Math.min(TRANSFER_CHUNK, end - current), target);
+                if (transferred <= 0) {
+                    break;
+                }
+                current += transferred;
+            }
+            return current - position;
+        }
+    }
+
+    @Override
+    public void delete(String storagePath) throws IOException {
+        if (Files.deleteIfExists(Paths.get(storagePath))) {
+            logger.info("本地文件已删除: {}", storagePath);
+        }
+    }
+
+    /**
+     * 本地文件的绝对路径, 文件不在本机时返回 null
+     */
+    public Path localFile(String storagePath) {
+        Path path = Paths.get(storagePath);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    private Path resolve(String fileName) throws IOException {
+        String hash = sha256Hex(fileName);
+        Path dir = rootPath;
+        for (int i = 0; i < shardDepth; i++) {
+            dir = dir.resolve(hash.substring(i * 2, i * 2 + 2));
+        }
+        Files.createDirectories(dir);
+        Path target = dir.resolve(fileName).normalize();
+        if (!target.startsWith(rootPath)) {
+            throw new IOException("非法的文件名: " + fileName);
+        }
+        return target;
+    }
+
+    private Path tempOf(Path target) {
+        return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    }
+
+    private ReadableByteChannel channelOf(InputStream in) {
+        // 源本身是文件时直接用文件通道, transferFrom 可走零拷贝; 其它输入流 (包括上传时的 DigestInputStream) 按缓冲区拷贝
+        if (in instanceof FileInputStream fileInputStream) {
+            return fileInputStream.getChannel();
+        }
+        return Channels.newChannel(in);
+    }
+
+    private String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 算法不可用", e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.cra.contract.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 合同原始文件存储后端 SPI
+ * 通过 contract.storage.type 选择主存储 (ftp / local / gridfs), 本地存储始终可用, 作为远程存储故障时的降级
+ * 存储路径(storagePath)由后端生成并写入 contract_version, 读取和删除时按路径格式找到对应后端
+ */
+public interface StorageBackend {
+
+    /**
+     * 后端类型, 与 contract.storage.type 对应
+     */
+    String type();
+
+    /**
+     * 是否由该后端负责此存储路径
+     */
+    boolean supports(String storagePath);
+
+    /**
+     * 打开写入流 (推模式), 调用方写完后 close, 失败时 abort
+     */
+    StorageSink openSink(String fileName) throws IOException;
+
+    /**
+     * 从输入流读取并写入存储 (拉模式), 不负责关闭输入流
+     */
+    default StoredObject store(String fileName, InputStream in) throws IOException {
+        StorageSink sink = openSink(fileName);
+        try {
+            in.transferTo(sink);
+            sink.close();
+            return new StoredObject(sink.getStoragePath(), sink.getBytesWritten());
+        } catch (IOException | RuntimeException e) {
+            sink.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取文件, 调用方负责关闭
+     */
+    InputStream openRead(String storagePath) throws IOException;
+
+    /**
+     * 把文件 [position, position + count) 区间写入目标通道, 返回实际写入字节数
+     */
+    default long transferTo(String storagePath, long position, long count, WritableByteChannel target) throws IOException {
+        try (InputStream in = openRead(storagePath)) {
+            in.skipNBytes(position);
+            byte[] buffer = new byte[8192];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    break;
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    target.write(byteBuffer);
+                }
+                remaining -= read;
+            }
+            return count - remaining;
+        }
+    }
+
+    /**
+     * 删除文件, 文件不存在时不报错
+     */
+    void delete(String storagePath) throws IOException;
+
+}
@@ -0,0 +1,100 @@
+package com.cra.contract.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 远程存储熔断器 (FTP / GridFS)
+ * 连续失败达到阈值后熔断(OPEN), 熔断期间上传直接写本地磁盘, 不再等待远程存储连接超时
+ * 熔断时间过后进入半开(HALF_OPEN), 只放行一个探测请求: 成功则恢复(CLOSED), 失败则继续熔断
+ */
+@Component
+public class StorageCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Value("${contract.storage.circuit-breaker.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${contract.storage.circuit-breaker.open-duration:30000}")
+    private long openDurationMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openedAt;
+
+    private boolean probeInFlight;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("contract.storage.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("远程存储熔断器状态 0:CLOSED 1:OPEN 2:HALF_OPEN")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否允许本次请求访问远程存储
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                logger.info("存储熔断器进入半开状态，放行探测请求");
+                return true;
+            case HALF_OPEN:
+            default:
+                // 半开状态只放行一个探测请求
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("远程存储已恢复，熔断器关闭");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                logger.warn("远程存储连续失败 {} 次，熔断 {} ms", consecutiveFailures, openDurationMillis);
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
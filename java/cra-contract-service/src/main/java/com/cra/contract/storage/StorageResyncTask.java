@@ -0,0 +1,138 @@
+package com.cra.contract.storage;
+
+import com.cra.contract.cache.ContractMetadataCache;
+import com.cra.contract.dedup.ContractBlobService;
+import com.cra.contract.entity.ContractVersion;
+import com.cra.contract.repository.ContractVersionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 本地降级文件补传任务
+ * 远程存储故障期间上传的文件落在各实例本地磁盘, 恢复后由本任务补传到主存储并改写 storagePath,
+ * 避免文件长期分散在不同主机上. 每个实例只处理自己磁盘上存在的文件
+ * 共享同一文件的版本和 contract_blob 记录在同一事务内改写
+ * 主存储本身为本地磁盘时不启用
+ */
+@Component
+@ConditionalOnExpression("!'${contract.storage.type:ftp}'.equals('local')")
+public class StorageResyncTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageResyncTask.class);
+
+    // 远程存储路径都带协议前缀, 不带前缀的是本地路径
+    private static final String REMOTE_PATH_PATTERN = "%://%";
+
+    @Value("${contract.storage.resync.enabled:true}")
+    private boolean enabled;
+
+    @Value("${contract.storage.resync.batch-size:100}")
+    private int batchSize;
+
+    @Autowired
+    private ContractVersionRepository contractVersionRepository;
+
+    @Autowired
+    private ContractFileStorage contractFileStorage;
+
+    @Autowired
+    private ContractBlobService contractBlobService;
+
+    @Autowired
+    private LocalStorageBackend localStorageBackend;
+
+    @Autowired
+    private StorageCircuitBreaker storageCircuitBreaker;
+
+    @Autowired
+    private ContractMetadataCache contractMetadataCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter resyncedCounter;
+
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        resyncedCounter = Counter.builder("contract.storage.resync")
+                .tag("result", "success")
+                .description("本地降级文件补传主存储次数")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("contract.storage.resync")
+                .tag("result", "failure")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${contract.storage.resync.interval:60000}",
+            fixedDelayString = "${contract.storage.resync.interval:60000}")
+    public void resync() {
+        if (!enabled || storageCircuitBreaker.getState() == StorageCircuitBreaker.State.OPEN) {
+            return;
+        }
+        long lastId = 0L;
+        while (true) {
+            List<ContractVersion> versions = contractVersionRepository
+                    .findByStoragePathNotLikeAndIdGreaterThanOrderByIdAsc(REMOTE_PATH_PATTERN, lastId, PageRequest.of(0, batchSize));
+            if (versions.isEmpty()) {
+                return;
+            }
+            for (ContractVersion version : versions) {
+                lastId = version.getId();
+                if (!resyncVersion(version)) {
+                    // 主存储又不可用了, 等下一轮
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false 表示主存储不可用, 应停止本轮补传
+     */
+    private boolean resyncVersion(ContractVersion version) {
+        String localPath = version.getStoragePath();
+        Path localFile = localStorageBackend.localFile(localPath);
+        if (localFile == null) {
+            // 文件在其它实例的磁盘上
+            return true;
+        }
+        if (!storageCircuitBreaker.allowRequest()) {
+            return false;
+        }
+        String remotePath;
+        try {
+            remotePath = contractFileStorage.copyToPrimary(localFile);
+        } catch (IOException | RuntimeException e) {
+            failedCounter.increment();
+            logger.warn("补传文件到主存储失败: versionId={} - {}", version.getId(), e.getMessage());
+            return false;
+        }
+        List<Long> contractIds = contractVersionRepository.findContractIdsByStoragePath(localPath);
+        if (contractBlobService.relocate(localPath, remotePath) > 0) {
+            // 缓存的版本仍指向本地路径, 先失效再删除本地文件
+            contractMetadataCache.invalidate(contractIds);
+            contractFileStorage.delete(localPath);
+            resyncedCounter.increment();
+            logger.info("本地文件已补传到主存储: versionId={}, {} -> {}", version.getId(), localPath, remotePath);
+        } else {
+            // 版本已全部删除或路径已被修改, 撤销本次补传
+            contractFileStorage.delete(remotePath);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,100 @@
+package com.cra.contract.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 存储输出流: 记录存储路径和写入字节数
+ * close() 表示写入成功, 执行收尾动作(如FTP确认传输完成、本地临时文件改名)
+ * abort() 表示写入失败, 丢弃已写入的内容
+ */
+public class StorageSink extends FilterOutputStream {
+
+    private final String storagePath;
+
+    private final Completion completion;
+
+    private final Completion abortion;
+
+    private long bytesWritten;
+
+    private boolean closed;
+
+    public StorageSink(OutputStream out, String storagePath, Completion completion) {
+        this(out, storagePath, completion, null);
+    }
+
+    public StorageSink(OutputStream out, String storagePath, Completion completion, Completion abortion) {
+        super(out);
+        this.storagePath = storagePath;
+        this.completion = completion;
+        this.abortion = abortion;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        // FilterOutputStream 默认逐字节写, 这里直接批量写出
+        out.write(b, off, len);
+        bytesWritten += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } finally {
+            if (completion != null) {
+                completion.complete();
+            }
+        }
+    }
+
+    /**
+     * 放弃写入, 清理已写入的部分内容, 不抛出异常
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // ignore
+        }
+        if (abortion != null) {
+            try {
+                abortion.complete();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * 流关闭后的收尾动作
+     */
+    @FunctionalInterface
+    public interface Completion {
+        void complete() throws IOException;
+    }
+}
@@ -0,0 +1,16 @@
+package com.cra.contract.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 写入完成的存储对象
+ */
+@Data
+@AllArgsConstructor
+public class StoredObject {
+
+    private String storagePath; // 存储路径
+
+    private long size; // 文件大小
+}
@@ -0,0 +1,159 @@
+package com.cra.contract.cache;
+
+import com.cra.contract.entity.ContractMain;
+import com.cra.contract.repository.ContractMainRepository;
+import com.cra.contract.repository.ContractVersionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 两个实例共享一个 Redis (用 Map 模拟); 频道消息和延迟任务都放入队列, 由测试决定何时投递 / 执行
+ */
+class ContractMetadataCacheTest {
+
+    private static final Long CONTRACT_ID = 1L;
+
+    private final Map<String, String> redis = new HashMap<>();
+
+    private final Queue<String> messages = new ArrayDeque<>();
+
+    private final Queue<Runnable> delayed = new ArrayDeque<>();
+
+    private final AtomicReference<ContractMain> row = new AtomicReference<>(contract("旧名称"));
+
+    private ContractMainRepository contractMainRepository;
+
+    private ContractMetadataCache instanceA;
+
+    private ContractMetadataCache instanceB;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOps).set(anyString(), anyString(), any(Duration.class));
+        when(redisTemplate.delete(anyCollection())).thenAnswer(invocation -> {
+            ((Collection<String>) invocation.getArgument(0)).forEach(redis::remove);
+            return 0L;
+        });
+        doAnswer(invocation -> messages.add(invocation.getArgument(1)))
+                .when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        TaskScheduler taskScheduler = mock(TaskScheduler.class);
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            delayed.add(invocation.getArgument(0));
+            return null;
+        });
+
+        contractMainRepository = mock(ContractMainRepository.class);
+        when(contractMainRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(row.get()));
+
+        instanceA = newInstance(redisTemplate, taskScheduler);
+        instanceB = newInstance(redisTemplate, taskScheduler);
+    }
+
+    /**
+     * B 查库读到旧值 -> A 修改提交并失效 -> B 写回 Redis -> B 收到失效通知: 延迟删除后两个实例都读到新值
+     */
+    @Test
+    void staleWriteBackAfterRemoteInvalidateIsDeletedLater() {
+        ContractMain old = row.get();
+        when(contractMainRepository.findById(CONTRACT_ID)).thenAnswer(invocation -> {
+            row.set(contract("新名称"));
+            instanceA.invalidate(List.of(CONTRACT_ID));
+            return Optional.of(old);
+        }).thenAnswer(invocation -> Optional.of(row.get()));
+
+        assertEquals("旧名称", instanceB.getContract(CONTRACT_ID).orElseThrow().getContractName());
+        deliverMessages();
+        // 失效通知只清除了本地条目, B 写回 Redis 的旧值仍在, 两个实例都会读到
+        assertTrue(redis.containsKey(ContractMetadataCache.Kind.MAIN.key(CONTRACT_ID)));
+        assertEquals("旧名称", instanceA.getContract(CONTRACT_ID).orElseThrow().getContractName());
+
+        assertEquals(1, delayed.size());
+        delayed.poll().run();
+        deliverMessages();
+
+        assertFalse(redis.containsKey(ContractMetadataCache.Kind.MAIN.key(CONTRACT_ID)));
+        assertEquals("新名称", instanceA.getContract(CONTRACT_ID).orElseThrow().getContractName());
+        assertEquals("新名称", instanceB.getContract(CONTRACT_ID).orElseThrow().getContractName());
+    }
+
+    @Test
+    void delayedDeleteDoesNotScheduleAgain() {
+        instanceA.invalidate(List.of(CONTRACT_ID));
+        delayed.poll().run();
+
+        assertTrue(delayed.isEmpty());
+    }
+
+    private void deliverMessages() {
+        String body;
+        while ((body = messages.poll()) != null) {
+            DefaultMessage message = new DefaultMessage(new byte[0], body.getBytes(StandardCharsets.UTF_8));
+            instanceA.onMessage(message, null);
+            instanceB.onMessage(message, null);
+        }
+    }
+
+    private ContractMetadataCache newInstance(StringRedisTemplate redisTemplate, TaskScheduler taskScheduler) {
+        ContractMetadataCache cache = new ContractMetadataCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "memoryMaxSize", 100L);
+        ReflectionTestUtils.setField(cache, "memoryTtl", 60000L);
+        ReflectionTestUtils.setField(cache, "redisEnabled", true);
+        ReflectionTestUtils.setField(cache, "redisTtl", 600000L);
+        ReflectionTestUtils.setField(cache, "channel", "test");
+        ReflectionTestUtils.setField(cache, "doubleDeleteDelay", 2000L);
+        ReflectionTestUtils.setField(cache, "verifySampleRate", 0.0);
+        ReflectionTestUtils.setField(cache, "contractMainRepository", contractMainRepository);
+        ReflectionTestUtils.setField(cache, "contractVersionRepository", mock(ContractVersionRepository.class));
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "taskScheduler", taskScheduler);
+        cache.init();
+        return cache;
+    }
+
+    private static ContractMain contract(String name) {
+        ContractMain contract = new ContractMain();
+        contract.setId(CONTRACT_ID);
+        contract.setContractName(name);
+        return contract;
+    }
+}
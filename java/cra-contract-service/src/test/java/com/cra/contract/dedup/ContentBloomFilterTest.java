@@ -0,0 +1,87 @@
+package com.cra.contract.dedup;
+
+import com.cra.contract.entity.ContractBlob;
+import com.cra.contract.repository.ContractBlobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentBloomFilterTest {
+
+    private static final String STORED = "a".repeat(64);
+
+    private static final String ABSENT = "0123456789abcdef".repeat(4);
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private ContentBloomFilter filter;
+
+    private ContractBlobRepository contractBlobRepository;
+
+    @BeforeEach
+    void setUp() {
+        contractBlobRepository = mock(ContractBlobRepository.class);
+        ContractBlob blob = new ContractBlob();
+        blob.setId(1L);
+        blob.setContentHash(STORED);
+        when(contractBlobRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(List.of(blob));
+        when(contractBlobRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Pageable.class))).thenReturn(List.of());
+
+        filter = new ContentBloomFilter();
+        ReflectionTestUtils.setField(filter, "contractBlobRepository", contractBlobRepository);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "maintenanceExecutor", (Executor) tasks::add);
+        ReflectionTestUtils.setField(filter, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(filter, "rebuildBatchSize", 100);
+        filter.init();
+    }
+
+    @Test
+    void rebuildRunsOffTheStartupThread() {
+        filter.scheduleRebuild();
+
+        assertEquals(1, tasks.size());
+        verify(contractBlobRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void maybePresentUntilRebuildFinishes() {
+        filter.scheduleRebuild();
+        assertTrue(filter.mightContain(ABSENT));
+
+        tasks.poll().run();
+
+        assertTrue(filter.mightContain(STORED));
+        assertFalse(filter.mightContain(ABSENT));
+    }
+
+    @Test
+    void failedRebuildKeepsFallingBackToDatabase() {
+        when(contractBlobRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("db down"));
+        filter.scheduleRebuild();
+
+        tasks.poll().run();
+
+        assertTrue(filter.mightContain(ABSENT));
+    }
+}
@@ -0,0 +1,124 @@
+package com.cra.contract.repository;
+
+import com.cra.contract.entity.ContractMain;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多条件合同查询的执行计划检查
+ * 表结构和索引按 ContractMain 上的 @Table indexes 建在 H2 中, 对 ContractMainRepositoryImpl 文档中列出的常用条件组合
+ * 执行 EXPLAIN, 确认每个组合都有对应的索引可用; 删掉或改错索引时这里会失败
+ * H2 的规划器和 PostgreSQL 不同: party_a / party_b 的 BitmapOr 和较宽的日期区间只在 PostgreSQL 上有意义, 这里不检查
+ */
+class ContractMainQueryPlanTest {
+
+    private static final int ROWS = 5000;
+
+    private static SingleConnectionDataSource dataSource;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createSchema() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:contract_plan;MODE=PostgreSQL", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE contract_main ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "contract_number VARCHAR(255) NOT NULL UNIQUE, "
+                + "contract_name VARCHAR(255) NOT NULL, "
+                + "party_a_id BIGINT NOT NULL, "
+                + "party_b_id BIGINT NOT NULL, "
+                + "amount NUMERIC(15, 2), "
+                + "start_date DATE, "
+                + "end_date DATE, "
+                + "status INTEGER NOT NULL, "
+                + "category VARCHAR(255), "
+                + "department VARCHAR(255), "
+                + "creator_id VARCHAR(255) NOT NULL, "
+                + "create_time TIMESTAMP NOT NULL)");
+        for (Index index : ContractMain.class.getAnnotation(Table.class).indexes()) {
+            jdbcTemplate.execute("CREATE INDEX " + index.name() + " ON contract_main (" + index.columnList() + ")");
+        }
+
+        LocalDate baseDate = LocalDate.of(2024, 1, 1);
+        LocalDateTime baseTime = baseDate.atStartOfDay();
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{"HT-" + i, "合同" + i, (long) (i % 200), (long) (1000 + i % 300),
+                    BigDecimal.valueOf(i * 10L), Date.valueOf(baseDate.plusDays(i % 1000)),
+                    Date.valueOf(baseDate.plusDays(365 + i % 1000)), i % 4, "cat" + i % 10, "dept" + i % 20,
+                    "u" + i % 50, Timestamp.valueOf(baseTime.plusMinutes(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO contract_main (contract_number, contract_name, party_a_id, party_b_id, "
+                + "amount, start_date, end_date, status, category, department, creator_id, create_time) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void statusUsesStatusIndex() {
+        assertUsesIndex("idx_contract_main_status", "status = 1");
+    }
+
+    @Test
+    void creatorUsesCreatorIndex() {
+        assertUsesIndex("idx_contract_main_creator", "creator_id = 'u7'");
+    }
+
+    @Test
+    void categoryUsesCategoryIndex() {
+        assertUsesIndex("idx_contract_main_category", "category = 'cat3'");
+    }
+
+    @Test
+    void departmentUsesDepartmentIndex() {
+        assertUsesIndex("idx_contract_main_department", "department = 'dept5'");
+    }
+
+    @Test
+    void departmentAndStatusUseCompositeIndex() {
+        assertUsesIndex("idx_contract_main_dept_status", "department = 'dept5' AND status = 2");
+    }
+
+    @Test
+    void categoryAndStatusUseCompositeIndex() {
+        assertUsesIndex("idx_contract_main_category_status", "category = 'cat3' AND status = 2");
+    }
+
+    @Test
+    void narrowAmountRangeUsesAmountIndex() {
+        assertUsesIndex("idx_contract_main_amount", "amount BETWEEN 1000 AND 1200");
+    }
+
+    /**
+     * 与 ContractMainRepositoryImpl.findSummaries 生成的语句同形: 条件 + (create_time, id) 排序 + 一页的 LIMIT
+     */
+    private void assertUsesIndex(String index, String where) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT id, create_time FROM contract_main WHERE " + where
+                + " ORDER BY create_time DESC, id DESC LIMIT 20", String.class);
+        // H2 的计划中使用索引查找时形如 /* PUBLIC.IDX_NAME: 条件 */
+        assertTrue(plan.toUpperCase(Locale.ROOT).contains("." + index.toUpperCase(Locale.ROOT) + ":"),
+                () -> "条件 " + where + " 应走 " + index + ", 实际计划: " + plan);
+    }
+}
@@ -0,0 +1,190 @@
+package com.cra.contract.search;
+
+import com.cra.contract.entity.ContractContent;
+import com.cra.contract.entity.ContractMain;
+import com.cra.contract.event.ContractBatchChangeEvent;
+import com.cra.contract.event.ContractChangeEvent;
+import com.cra.contract.extraction.ContractContentReader;
+import com.cra.contract.repository.ContractContentRepository;
+import com.cra.contract.repository.ContractMainRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContractSearchIndexerTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private ContractSearchIndexer indexer;
+
+    private ContractSearchEngine engine;
+
+    private ContractMainRepository contractMainRepository;
+
+    private ContractContentRepository contractContentRepository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        engine = mock(ContractSearchEngine.class);
+        when(engine.update(any())).thenReturn(true);
+        contractMainRepository = mock(ContractMainRepository.class);
+        when(contractMainRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            List<ContractMain> contracts = new ArrayList<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                contracts.add(contract(id));
+            }
+            return contracts;
+        });
+        contractContentRepository = mock(ContractContentRepository.class);
+        when(contractContentRepository.findContentById(anyString())).thenReturn(Optional.of(new ContractContent()));
+        ContractContentReader reader = mock(ContractContentReader.class);
+        when(reader.readPlainText(any())).thenReturn("合同正文");
+
+        indexer = new ContractSearchIndexer();
+        ReflectionTestUtils.setField(indexer, "contractSearchEngine", engine);
+        ReflectionTestUtils.setField(indexer, "contractMainRepository", contractMainRepository);
+        ReflectionTestUtils.setField(indexer, "contractContentRepository", contractContentRepository);
+        ReflectionTestUtils.setField(indexer, "contractContentReader", reader);
+        ReflectionTestUtils.setField(indexer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(indexer, "indexExecutor", (Executor) tasks::add);
+        ReflectionTestUtils.setField(indexer, "maxIndexedChars", 1000);
+        ReflectionTestUtils.setField(indexer, "reindexBatchSize", 200);
+    }
+
+    @Test
+    void listenerOnlyEnqueues() {
+        indexer.onContractChange(new ContractChangeEvent(1L, ContractChangeEvent.Type.CONTENT_EXTRACTED));
+
+        assertEquals(1, tasks.size());
+        verify(contractMainRepository, never()).findAllById(anyCollection());
+    }
+
+    @Test
+    void metadataChangeDoesNotReadContent() {
+        indexer.onContractChange(new ContractChangeEvent(1L, ContractChangeEvent.Type.CONTRACT_SAVED));
+        runTasks();
+
+        ArgumentCaptor<List<ContractSearchDocument>> captor = documentsCaptor();
+        verify(engine).update(captor.capture());
+        assertNull(captor.getValue().get(0).getPlainText());
+        verify(engine, never()).index(any());
+        verify(contractContentRepository, never()).findContentById(anyString());
+    }
+
+    @Test
+    void batchStatusChangeSendsOnlyStatus() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            ids.add(id);
+        }
+        indexer.onContractBatchChange(new ContractBatchChangeEvent(ids, ContractChangeEvent.Type.STATUS_CHANGED));
+        runTasks();
+
+        ArgumentCaptor<List<ContractSearchDocument>> captor = documentsCaptor();
+        verify(engine, times(3)).update(captor.capture());
+        ContractSearchDocument document = captor.getAllValues().get(0).get(0);
+        assertEquals(1, document.getStatus());
+        assertNull(document.getContractName());
+        assertNull(document.getPlainText());
+        verify(engine, never()).index(any());
+        verify(contractContentRepository, never()).findContentById(anyString());
+    }
+
+    @Test
+    void versionAndContentEventsAreCoalesced() {
+        indexer.onContractChange(new ContractChangeEvent(1L, ContractChangeEvent.Type.VERSION_CREATED));
+        indexer.onContractChange(new ContractChangeEvent(1L, ContractChangeEvent.Type.CONTENT_EXTRACTED));
+        indexer.onContractChange(new ContractChangeEvent(1L, ContractChangeEvent.Type.CONTRACT_SAVED));
+
+        assertEquals(1, tasks.size());
+        runTasks();
+
+        ArgumentCaptor<List<ContractSearchDocument>> captor = documentsCaptor();
+        verify(engine, times(1)).index(captor.capture());
+        assertEquals("合同正文", captor.getValue().get(0).getPlainText());
+        verify(engine, never()).update(any());
+    }
+
+    @Test
+    void newVersionClearsPreviousText() {
+        indexer.onContractChange(new ContractChangeEvent(1L, ContractChangeEvent.Type.VERSION_CREATED));
+        runTasks();
+
+        ArgumentCaptor<List<ContractSearchDocument>> captor = documentsCaptor();
+        verify(engine).update(captor.capture());
+        assertEquals("", captor.getValue().get(0).getPlainText());
+    }
+
+    @Test
+    void deleteWinsOverEarlierChanges() {
+        indexer.onContractBatchChange(new ContractBatchChangeEvent(List.of(1L, 2L), ContractChangeEvent.Type.CONTRACT_SAVED));
+        indexer.onContractChange(new ContractChangeEvent(2L, ContractChangeEvent.Type.CONTRACT_DELETED));
+        runTasks();
+
+        verify(engine).delete(2L);
+        ArgumentCaptor<List<ContractSearchDocument>> captor = documentsCaptor();
+        verify(engine).update(captor.capture());
+        assertEquals(List.of(1L), captor.getValue().stream().map(ContractSearchDocument::getContractId).toList());
+    }
+
+    @Test
+    void engineFailureDoesNotStopLaterUpdates() {
+        when(engine.update(any())).thenThrow(new IllegalStateException("es down")).thenReturn(true);
+        indexer.onContractChange(new ContractChangeEvent(1L, ContractChangeEvent.Type.CONTRACT_SAVED));
+        runTasks();
+        indexer.onContractChange(new ContractChangeEvent(2L, ContractChangeEvent.Type.CONTRACT_SAVED));
+
+        // 失败后仍能调度新的更新
+        assertEquals(1, tasks.size());
+        runTasks();
+        verify(engine, times(2)).update(any());
+        verify(engine, never()).delete(anyLong());
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<ContractSearchDocument>> documentsCaptor() {
+        return ArgumentCaptor.forClass((Class<List<ContractSearchDocument>>) (Class<?>) List.class);
+    }
+
+    private static ContractMain contract(Long id) {
+        ContractMain contract = new ContractMain();
+        contract.setId(id);
+        contract.setContractName("合同" + id);
+        contract.setContractNumber("HT-" + id);
+        contract.setStatus(1);
+        contract.setLatestVersionId(id * 10);
+        contract.setLatestVersionNumber(1);
+        contract.setLatestContentId("content-" + id);
+        return contract;
+    }
+}
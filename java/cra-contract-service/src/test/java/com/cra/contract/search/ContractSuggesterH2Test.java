@@ -0,0 +1,108 @@
+package com.cra.contract.search;
+
+import com.cra.contract.dto.ContractSuggestion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 合同联想在 H2 上的降级路径: 不建 pg_trgm 索引, 同样的查询语句按顺序扫描仍返回正确的排序结果
+ */
+class ContractSuggesterH2Test {
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ContractSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:contract_suggest;MODE=PostgreSQL", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE contract_main (id BIGINT PRIMARY KEY, contract_name VARCHAR(255) NOT NULL, "
+                + "contract_number VARCHAR(255) NOT NULL UNIQUE, status INTEGER NOT NULL)");
+
+        suggester = new ContractSuggester();
+        ReflectionTestUtils.setField(suggester, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(suggester, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(suggester, "defaultLimit", 10);
+        ReflectionTestUtils.setField(suggester, "maxLimit", 50);
+        ReflectionTestUtils.setField(suggester, "candidates", 5);
+        ReflectionTestUtils.setField(suggester, "createIndexes", true);
+        suggester.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void skipsTrigramIndexesOnH2() {
+        assertDoesNotThrow(suggester::ensureIndexes);
+        Integer indexes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE LOWER(INDEX_NAME) LIKE 'idx_contract_main_%'", Integer.class);
+        assertEquals(0, indexes);
+    }
+
+    @Test
+    void exactNumberSurvivesCandidateLimit() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            rows.add(new Object[]{i, "Abc 采购合同 " + i, "HT-" + i, 0});
+        }
+        rows.add(new Object[]{100L, "年度服务合同", "ABC", 2});
+        insert(rows);
+
+        List<ContractSuggestion> suggestions = suggester.suggest("abc", 3);
+
+        assertEquals(3, suggestions.size());
+        assertEquals(100L, suggestions.get(0).getContractId());
+        assertEquals("ABC", suggestions.get(0).getContractNumber());
+    }
+
+    @Test
+    void prefixRanksAboveContains() {
+        insert(List.of(
+                new Object[]{1L, "框架协议 (租赁)", "HT-001", 1},
+                new Object[]{2L, "租赁合同", "HT-002", 1},
+                new Object[]{3L, "办公场地租赁合同补充协议", "HT-003", 1}));
+
+        List<ContractSuggestion> suggestions = suggester.suggest("租赁合同", null);
+
+        assertEquals(List.of(2L, 3L), suggestions.stream().map(ContractSuggestion::getContractId).toList());
+    }
+
+    @Test
+    void likeWildcardsInKeywordAreLiteral() {
+        insert(List.of(
+                new Object[]{1L, "折扣 50% 协议", "HT-001", 1},
+                new Object[]{2L, "折扣 500 协议", "HT-002", 1}));
+
+        List<ContractSuggestion> suggestions = suggester.suggest("50%", null);
+
+        assertEquals(1, suggestions.size());
+        assertEquals(1L, suggestions.get(0).getContractId());
+    }
+
+    @Test
+    void blankKeywordReturnsEmpty() {
+        assertTrue(suggester.suggest("  ", null).isEmpty());
+    }
+
+    private void insert(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO contract_main (id, contract_name, contract_number, status) VALUES (?, ?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,100 @@
+package com.cra.contract.search;
+
+import com.cra.contract.support.ThreadAllocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordHighlighterTest {
+
+    @Test
+    void regexCharactersAreMatchedLiterally() {
+        String text = "甲方应支付 (人民币) 1.5*2 万元";
+        KeywordMatcher matcher = KeywordMatcher.of(List.of("(人民币)", "1.5*"));
+
+        List<HighlightSnippet> snippets = KeywordHighlighter.highlight(matcher, text, 0, 10);
+
+        assertEquals(2, snippets.size());
+        int first = text.indexOf("(人民币)");
+        int second = text.indexOf("1.5*");
+        assertArrayEquals(new int[]{first, first + 5}, snippets.get(0).getOffsets());
+        assertArrayEquals(new int[]{second, second + 4}, snippets.get(1).getOffsets());
+        assertEquals("<mark>(人民币)</mark>", snippets.get(0).getHtml());
+        assertEquals("<mark>1.5*</mark>", snippets.get(1).getHtml());
+    }
+
+    @Test
+    void caseAndFullWidthAreFolded() {
+        String text = "合同编号ＡＢＣ-01";
+        List<HighlightSnippet> snippets = KeywordHighlighter.highlight(KeywordMatcher.of(List.of("abc")), text, 0, 10);
+
+        assertEquals(1, snippets.size());
+        int start = text.indexOf("ＡＢＣ");
+        assertArrayEquals(new int[]{start, start + 3}, snippets.get(0).getOffsets());
+        assertEquals("<mark>ＡＢＣ</mark>", snippets.get(0).getHtml());
+    }
+
+    @Test
+    void overlappingMatchesAreMerged() {
+        List<HighlightSnippet> snippets = KeywordHighlighter.highlight(KeywordMatcher.of(List.of("合同", "同意")),
+                "双方合同意向书", 0, 10);
+
+        assertEquals(1, snippets.size());
+        assertArrayEquals(new int[]{2, 5}, snippets.get(0).getOffsets());
+        assertEquals("<mark>合同意</mark>", snippets.get(0).getHtml());
+    }
+
+    @Test
+    void nearbyWindowsShareOneEscapedSnippet() {
+        List<HighlightSnippet> snippets = KeywordHighlighter.highlight(KeywordMatcher.of(List.of("合同")),
+                "a<b>合同</b>c合同d", 3, 10);
+
+        assertEquals(1, snippets.size());
+        HighlightSnippet snippet = snippets.get(0);
+        assertEquals(1, snippet.getStart());
+        assertEquals(14, snippet.getEnd());
+        assertArrayEquals(new int[]{4, 6, 11, 13}, snippet.getOffsets());
+        assertEquals("&lt;b&gt;<mark>合同</mark>&lt;/b&gt;c<mark>合同</mark>d", snippet.getHtml());
+    }
+
+    @Test
+    void stopsAtMaxSnippets() {
+        List<HighlightSnippet> snippets = KeywordHighlighter.highlight(KeywordMatcher.of(List.of("合同")),
+                "合同 ----- 合同 ----- 合同", 0, 2);
+
+        assertEquals(2, snippets.size());
+    }
+
+    @Test
+    void noKeywordsReturnsEmpty() {
+        assertTrue(KeywordHighlighter.highlight(KeywordMatcher.of(List.of()), "合同", 0, 10).isEmpty());
+    }
+
+    /**
+     * 1 MB 正文只在末尾命中: 扫描全文不生成小写副本 (旧实现 toLowerCase 一次就要分配约 2 MB)
+     */
+    @Test
+    void scanningLargeDocumentAllocatesLittle() throws Exception {
+        StringBuilder sb = new StringBuilder(1 << 20);
+        while (sb.length() < (1 << 20)) {
+            sb.append("本协议条款由双方约定，Party A shall pay within 30 days. ");
+        }
+        String text = sb.append("违约金 Penalty").toString();
+        KeywordMatcher matcher = KeywordMatcher.of(List.of("违约金", "penalty", "不可抗力"));
+        // 预热, 排除类加载和 JIT 的分配
+        for (int i = 0; i < 5; i++) {
+            KeywordHighlighter.highlight(matcher, text, 20, 5);
+        }
+
+        AtomicReference<List<HighlightSnippet>> snippets = new AtomicReference<>();
+        long allocated = ThreadAllocation.measure(() -> snippets.set(KeywordHighlighter.highlight(matcher, text, 20, 5)));
+
+        assertEquals(1, snippets.get().size());
+        assertTrue(allocated < 64 * 1024, "扫描 1 MB 正文分配了 " + allocated + " 字节");
+    }
+}
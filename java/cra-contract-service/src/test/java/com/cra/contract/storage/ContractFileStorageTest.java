@@ -0,0 +1,106 @@
+package com.cra.contract.storage;
+
+import com.cra.contract.support.ThreadAllocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 上传的存储阶段 (ContractServiceImpl.storeFile: DigestInputStream -> ContractFileStorage.store) 的堆分配与文件大小无关
+ * 远程主存储 (默认 ftp) 走 openSink + transferTo, 这里用丢弃内容的后端代替 FTP 服务; 本地主存储走 transferFrom
+ * 只覆盖存储阶段: 文本提取之后从 multipart 暂存文件或存储中重新读取原文件, 不在这里测量
+ */
+class ContractFileStorageTest {
+
+    private static final long SIZE = 32L * 1024 * 1024;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void remoteUploadHeapStaysFlat() throws Exception {
+        assertHeapStaysFlat(storage("ftp"));
+    }
+
+    @Test
+    void localUploadHeapStaysFlat() throws Exception {
+        assertHeapStaysFlat(storage(LocalStorageBackend.TYPE));
+    }
+
+    private void assertHeapStaysFlat(ContractFileStorage storage) throws Exception {
+        // 预热, 排除类加载的分配
+        upload(storage, "warmup.pdf", 1024 * 1024);
+
+        long small = ThreadAllocation.measure(() -> upload(storage, "small.pdf", 1024 * 1024));
+        long large = ThreadAllocation.measure(() -> upload(storage, "large.pdf", SIZE));
+
+        assertTrue(large < 1024 * 1024, "32 MB 上传分配了 " + large + " 字节");
+        assertTrue(large < small + 256 * 1024, "1 MB 上传分配 " + small + " 字节, 32 MB 上传分配 " + large + " 字节");
+    }
+
+    private void upload(ContractFileStorage storage, String fileName, long size) throws Exception {
+        try (InputStream in = new DigestInputStream(new GeneratedInputStream(size), MessageDigest.getInstance("SHA-256"))) {
+            assertEquals(size, storage.store(fileName, in).getSize());
+        }
+    }
+
+    private ContractFileStorage storage(String type) throws IOException {
+        LocalStorageBackend local = new LocalStorageBackend();
+        ReflectionTestUtils.setField(local, "root", root.toString());
+        ReflectionTestUtils.setField(local, "shardDepth", 2);
+        local.init();
+        StorageCircuitBreaker circuitBreaker = mock(StorageCircuitBreaker.class);
+        when(circuitBreaker.allowRequest()).thenReturn(true);
+
+        ContractFileStorage storage = new ContractFileStorage();
+        ReflectionTestUtils.setField(storage, "storageType", type);
+        ReflectionTestUtils.setField(storage, "backends", List.of(new DiscardingBackend(), local));
+        ReflectionTestUtils.setField(storage, "localStorageBackend", local);
+        ReflectionTestUtils.setField(storage, "storageCircuitBreaker", circuitBreaker);
+        storage.init();
+        return storage;
+    }
+
+    /**
+     * 代替 FTP 服务的远程后端, 写入的内容直接丢弃
+     */
+    private static final class DiscardingBackend implements StorageBackend {
+
+        @Override
+        public String type() {
+            return "ftp";
+        }
+
+        @Override
+        public boolean supports(String storagePath) {
+            return storagePath.startsWith("ftp://");
+        }
+
+        @Override
+        public StorageSink openSink(String fileName) {
+            return new StorageSink(OutputStream.nullOutputStream(), "ftp://test/" + fileName, null);
+        }
+
+        @Override
+        public InputStream openRead(String storagePath) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(String storagePath) {
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.cra.contract.storage;
+
+import java.io.InputStream;
+
+/**
+ * 按位置生成内容的输入流, 模拟大文件上传而不在测试里占用同样大小的内存
+ */
+final class GeneratedInputStream extends InputStream {
+
+    private final long size;
+
+    private long position;
+
+    GeneratedInputStream(long size) {
+        this.size = size;
+    }
+
+    @Override
+    public int read() {
+        return position < size ? byteAt(position++) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (position >= size) {
+            return -1;
+        }
+        int n = (int) Math.min(len, size - position);
+        for (int i = 0; i < n; i++) {
+            b[off + i] = (byte) byteAt(position++);
+        }
+        return n;
+    }
+
+    private static int byteAt(long position) {
+        return (int) ((position * 31 + (position >>> 12)) & 0xFF);
+    }
+}
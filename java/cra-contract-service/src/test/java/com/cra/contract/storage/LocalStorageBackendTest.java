@@ -0,0 +1,78 @@
+package com.cra.contract.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalStorageBackendTest {
+
+    private static final long SIZE = 32L * 1024 * 1024;
+
+    @TempDir
+    Path root;
+
+    private LocalStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        backend = new LocalStorageBackend();
+        ReflectionTestUtils.setField(backend, "root", root.toString());
+        ReflectionTestUtils.setField(backend, "shardDepth", 2);
+        backend.init();
+    }
+
+    @Test
+    void storesStreamAndDigest() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        StoredObject stored;
+        try (InputStream in = new DigestInputStream(new GeneratedInputStream(SIZE), digest)) {
+            stored = backend.store("contract.pdf", in);
+        }
+
+        Path file = Paths.get(stored.getStoragePath());
+        assertTrue(file.startsWith(root));
+        assertEquals(SIZE, stored.getSize());
+        assertEquals(SIZE, Files.size(file));
+        assertArrayEquals(expectedDigest(), digest.digest());
+        assertArrayEquals(expectedDigest(), digestOf(file));
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".part")));
+    }
+
+    @Test
+    void rejectsFileNameOutsideRoot() {
+        assertThrows(IOException.class,
+                () -> backend.store("../../../escape.pdf", new GeneratedInputStream(16)));
+    }
+
+    private byte[] expectedDigest() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(new GeneratedInputStream(SIZE), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return digest.digest();
+    }
+
+    private byte[] digestOf(Path file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return digest.digest();
+    }
+}
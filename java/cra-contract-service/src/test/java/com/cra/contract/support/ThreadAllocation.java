@@ -0,0 +1,31 @@
+package com.cra.contract.support;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 统计当前线程执行一段代码时分配的堆内存 (HotSpot 的 ThreadMXBean 扩展), JVM 不支持时跳过测试
+ * 只计入调用线程的分配, 被测代码交给其它线程执行的部分不计入
+ */
+public final class ThreadAllocation {
+
+    private ThreadAllocation() {
+    }
+
+    public static long measure(Action action) throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        action.run();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+}
@@ -1,5 +1,5 @@
 import { apiFetch, CONTRACT_SERVICE_URL } from "@/lib/api";
-import { ContractMain } from "@/types/contract";
+import { BatchUploadItem, ContractFacets, ContractMain } from "@/types/contract";
 import { useAuthStore } from "@/store/auth";
 
 export const contractService = {
@@ -40,7 +40,9 @@ export const contractService = {
     if (res.code !== 200) {
         throw new Error(res.message || "Batch upload failed");
     }
-    return res.data;
+    // Backend returns BatchUploadResult with one item per file
+    const items: BatchUploadItem[] = res.data?.items || [];
+    return items.filter(item => item.success && item.contract).map(item => item.contract as ContractMain);
   },
 
   fetchContracts: async (page = 0, size = 10, params = {}): Promise<{ list: ContractMain[], total: number }> => {
@@ -79,6 +81,17 @@ export const contractService = {
     
     return { list, total };
   },
+
+  fetchFacets: async (): Promise<ContractFacets> => {
+    const token = useAuthStore.getState().token || undefined;
+    // Backend: @GetMapping("/stats/facets"), counts are precomputed so this does not scan contracts
+    const res = await apiFetch("/stats/facets", {}, token, CONTRACT_SERVICE_URL);
+
+    if (res.code !== 200) {
+      throw new Error(res.message || "Fetch contract facets failed");
+    }
+    return res.data;
+  },
   
   deleteContract: async (id: number): Promise<void> => {
       const token = useAuthStore.getState().token || undefined;
@@ -14,6 +14,10 @@ export interface ContractMain {
   createTime: string;
   updateTime?: string;
   remark?: string;
+  latestVersionId?: number;
+  latestVersionNumber?: number;
+  latestContentId?: string;
+  lockVersion?: number;
 }
 
 export interface ContractContent {
@@ -30,6 +34,14 @@ export interface ContractContent {
   updateTime: string;
 }
 
+export interface BatchUploadItem {
+  index: number;
+  fileName: string;
+  success: boolean;
+  contract?: ContractMain;
+  error?: string;
+}
+
 export enum ContractStatus {
   DRAFT = 0,
   PENDING_REVIEW = 1,
@@ -55,3 +67,12 @@ export const CONTRACT_TYPES = [
   "Service Agreement",
   "Other"
 ];
+
+// Counts maintained by the backend (GET /api/contracts/stats/facets); keys are the raw field values
+export interface ContractFacets {
+  total: number;
+  byStatus: Record<string, number>;
+  byCategory: Record<string, number>;
+  byDepartment: Record<string, number>;
+  byMonth: Record<string, number>;
+}